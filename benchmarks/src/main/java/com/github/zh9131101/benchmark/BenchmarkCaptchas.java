@@ -0,0 +1,66 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.benchmark;
+
+import com.github.zh9131101.constant.CaptchaConst;
+import com.github.zh9131101.textimage.AbstractCaptcha;
+import com.github.zh9131101.textimage.TextImageCaptchaFactory;
+import com.github.zh9131101.utils.RendererUtils;
+
+/**
+ * <p>
+ * 基准测试使用的验证码
+ * </p>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 19:30
+ * @since 1.1
+ */
+
+public final class BenchmarkCaptchas {
+
+    private BenchmarkCaptchas() {
+    }
+
+    /**
+     * 创建验证码并预先加载字体
+     *
+     * @param size    尺寸，如130x48
+     * @param charset 字符集：NUM_EN_MIX或CHINESE
+     * @param noise   干扰强度，默认干扰数量的倍数
+     * @return 验证码
+     */
+    public static AbstractCaptcha create(String size, String charset, int noise) {
+        AbstractCaptcha captcha = TextImageCaptchaFactory.getInstance().createCaptcha();
+        int x = size.indexOf('x');
+        int width = Integer.parseInt(size.substring(0, x));
+        int height = Integer.parseInt(size.substring(x + 1));
+        captcha.setWidth(width);
+        captcha.setHeight(height);
+        // 字体大小随高度等比缩放，默认48像素高对应28号字
+        captcha.setFontSize(height * 28 / 48);
+        captcha.setRandomText("CHINESE".equals(charset) ? CaptchaConst.CHINESE : CaptchaConst.NUM_EN_MIX);
+        captcha.setObstructLineCount(2 * noise);
+        captcha.setObstructOvalCount(2 * noise);
+        captcha.setObstructPointCount(20 * noise);
+        captcha.setBezierCurvesCount(2 * noise);
+        captcha.setFont(RendererUtils.createFont(captcha.getFontPath(), captcha.getFontStyle(),
+                captcha.getFontSize(), captcha.getFontName()));
+        captcha.generateCaptcha();
+        return captcha;
+    }
+}
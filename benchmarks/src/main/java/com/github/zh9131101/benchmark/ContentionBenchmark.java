@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.benchmark;
+
+import com.github.zh9131101.textimage.AbstractCaptcha;
+import com.github.zh9131101.utils.RandomUtils;
+import com.github.zh9131101.utils.RendererUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 多线程竞争基准测试
+ * </p>
+ * RandomUtils的所有方法共用一个SecureRandom，这里测量多线程同时调用时的吞吐量，以及生成+渲染的整体吞吐量。
+ * 线程数由-t指定，{@link ContentionScaling}依次以1、4、16、64个线程运行并计算每线程吞吐量与扩展效率：
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar ContentionBenchmark -t 16
+ * java -cp benchmarks/target/benchmarks.jar com.github.zh9131101.benchmark.ContentionScaling
+ * </pre>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 20:10
+ * @since 1.1
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Threads(1)
+public class ContentionBenchmark {
+
+    @Benchmark
+    public int randomNumber() {
+        return RandomUtils.randomNumber(62);
+    }
+
+    @Benchmark
+    public String randomString() {
+        return RandomUtils.randomString(4);
+    }
+
+    @Benchmark
+    public String getUuid() {
+        return RandomUtils.getUuid();
+    }
+
+    /**
+     * 生成验证码并渲染，每个线程使用自己的验证码对象
+     */
+    @Benchmark
+    public int renderer(PerThread state) {
+        state.out.reset();
+        state.captcha.generateCaptcha();
+        RendererUtils.renderer(state.format, state.out, state.captcha);
+        return state.out.size();
+    }
+
+    @State(Scope.Thread)
+    public static class PerThread {
+
+        @Param({"png", "gif"})
+        public String format;
+
+        AbstractCaptcha captcha;
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+
+        @Setup
+        public void setUp() {
+            captcha = BenchmarkCaptchas.create("130x48", "NUM_EN_MIX", 1);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * 竞争基准测试的扩展性报告
+ * </p>
+ * 依次以不同线程数运行{@link ContentionBenchmark}，输出总吞吐量、每线程吞吐量与扩展效率。
+ * 扩展效率为相对单线程的加速比除以理想加速比，理想加速比不超过CPU核数；低于{@link #SUBLINEAR}时标记为SUBLINEAR。
+ * 线程数通过-Dthreads=1,4,16,64指定，其余参数与JMH命令行相同：
+ * <pre>
+ * java -Dthreads=1,4,16,64 -cp benchmarks/target/benchmarks.jar com.github.zh9131101.benchmark.ContentionScaling -wi 2 -i 3
+ * </pre>
+ * 单核机器上多线程只会分时运行，结果不反映扩展性，需要在核数不少于最大线程数的机器上运行。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 20:10
+ * @since 1.1
+ */
+
+public final class ContentionScaling {
+    /**
+     * 扩展效率低于此值时标记
+     */
+    public static final double SUBLINEAR = 0.8;
+
+    private ContentionScaling() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        String include = cli.getIncludes().isEmpty()
+                ? ContentionBenchmark.class.getSimpleName() : String.join("|", cli.getIncludes());
+        int cpus = Runtime.getRuntime().availableProcessors();
+        // 基准名（含参数） -> 线程数 -> 吞吐量
+        Map<String, Map<Integer, Double>> scores = new LinkedHashMap<>();
+        String unit = "";
+        for (String value : System.getProperty("threads", "1,4,16,64").split(",")) {
+            int threads = Integer.parseInt(value.trim());
+            Options options = new OptionsBuilder().parent(cli).include(include).threads(threads).build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                String name = result.getParams().getBenchmark();
+                name = name.substring(name.lastIndexOf('.') + 1);
+                for (String key : result.getParams().getParamsKeys()) {
+                    name += " " + key + "=" + result.getParams().getParam(key);
+                }
+                scores.computeIfAbsent(name, k -> new TreeMap<>()).put(threads, result.getPrimaryResult().getScore());
+                unit = result.getPrimaryResult().getScoreUnit();
+            }
+        }
+        System.out.println();
+        System.out.printf("CPUs: %d, unit: %s%n", cpus, unit);
+        System.out.printf("%-24s %8s %14s %14s %10s%n", "Benchmark", "Threads", "Total", "Per thread", "Scaling");
+        for (Map.Entry<String, Map<Integer, Double>> entry : scores.entrySet()) {
+            Map<Integer, Double> byThreads = entry.getValue();
+            Double single = byThreads.get(1);
+            for (Map.Entry<Integer, Double> run : byThreads.entrySet()) {
+                int threads = run.getKey();
+                double total = run.getValue();
+                String scaling = "";
+                if (single != null && single > 0) {
+                    double efficiency = total / single / Math.min(threads, cpus);
+                    scaling = String.format("%.2f", efficiency) + (efficiency < SUBLINEAR ? " SUBLINEAR" : "");
+                }
+                System.out.printf("%-24s %8d %14.3f %14.3f %10s%n", entry.getKey(), threads, total, total / threads, scaling);
+            }
+        }
+    }
+}
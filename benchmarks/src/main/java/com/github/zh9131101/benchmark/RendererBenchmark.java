@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.benchmark;
+
+import com.github.zh9131101.constant.CaptchaConst;
+import com.github.zh9131101.textimage.AbstractCaptcha;
+import com.github.zh9131101.utils.RendererUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 完整渲染流程基准测试
+ * </p>
+ * 覆盖RendererUtils.renderer的PNG、JPG、GIF三种格式，参数为尺寸、字符集与干扰强度。
+ * 字体在初始化时加载一次，字体加载的开销不计入。
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar RendererBenchmark -prof gc
+ * </pre>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 19:30
+ * @since 1.1
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RendererBenchmark {
+
+    @Param({CaptchaConst.PNG, CaptchaConst.JPG, CaptchaConst.GIF})
+    public String format;
+
+    @Param({"130x48", "260x96"})
+    public String size;
+
+    @Param({"NUM_EN_MIX", "CHINESE"})
+    public String charset;
+
+    /**
+     * 干扰强度：0为无干扰，1为默认数量，3为默认数量的3倍
+     */
+    @Param({"0", "1", "3"})
+    public int noise;
+
+    private AbstractCaptcha captcha;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+
+    @Setup
+    public void setUp() {
+        captcha = BenchmarkCaptchas.create(size, charset, noise);
+    }
+
+    @Benchmark
+    public int renderer() {
+        out.reset();
+        captcha.generateCaptcha();
+        RendererUtils.renderer(format, out, captcha);
+        return out.size();
+    }
+}
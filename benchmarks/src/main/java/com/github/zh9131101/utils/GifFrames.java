@@ -0,0 +1,79 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.utils;
+
+import com.github.zh9131101.textimage.AbstractCaptcha;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.Method;
+
+/**
+ * <p>
+ * 截取GIF验证码的原始帧
+ * </p>
+ * 与RendererUtils按默认质量渲染GIF时的参数相同，调用其内部的graphicsGifBackground绘制共用背景，
+ * 再用graphicsGifImage逐帧绘制，得到编码前的完整帧。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 19:50
+ * @since 1.1
+ */
+
+final class GifFrames {
+
+    private GifFrames() {
+    }
+
+    /**
+     * 绘制验证码的所有帧
+     *
+     * @param captcha 验证码
+     * @return 每个字符一帧
+     */
+    static BufferedImage[] capture(AbstractCaptcha captcha) {
+        int width = captcha.getWidth();
+        int height = captcha.getHeight();
+        int len = captcha.getCaptchaChars().length();
+        Color[] fontColor = new Color[len];
+        for (int i = 0; i < len; i++) {
+            fontColor[i] = RendererUtils.color();
+        }
+        int[][] besselXY = new int[][]{
+                {5, RandomUtils.randomNumber(5, height / 2)},
+                {RandomUtils.randomNumber(width / 4, width / 4 * 3), RandomUtils.randomNumber(5, height - 5)},
+                {RandomUtils.randomNumber(width / 4, width / 4 * 3), RandomUtils.randomNumber(5, height - 5)},
+                {width - 5, RandomUtils.randomNumber(height / 2, height - 5)}};
+        try {
+            Method background = RendererUtils.class.getDeclaredMethod("graphicsGifBackground",
+                    AbstractCaptcha.class, Color[].class, int[][].class, RenderQuality.class, RenderTimer.class);
+            Method graphics = RendererUtils.class.getDeclaredMethod("graphicsGifImage", AbstractCaptcha.class,
+                    BufferedImage.class, BufferedImage.class, Color[].class, int.class, RenderQuality.class, RenderTimer.class);
+            background.setAccessible(true);
+            graphics.setAccessible(true);
+            BufferedImage bg = (BufferedImage) background.invoke(null, captcha, fontColor, besselXY, RenderQuality.HIGH, RenderTimer.DISABLED);
+            BufferedImage[] frames = new BufferedImage[len];
+            for (int i = 0; i < len; i++) {
+                frames[i] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                graphics.invoke(null, captcha, bg, frames[i], fontColor, i, RenderQuality.HIGH, RenderTimer.DISABLED);
+            }
+            return frames;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("RendererUtils GIF frame drawing is not available", e);
+        }
+    }
+}
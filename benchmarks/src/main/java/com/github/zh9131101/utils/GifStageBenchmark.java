@@ -0,0 +1,273 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.utils;
+
+import com.github.zh9131101.benchmark.BenchmarkCaptchas;
+import com.github.zh9131101.textimage.AbstractCaptcha;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * GIF编码各阶段基准测试
+ * </p>
+ * 每次操作处理一帧，帧由RendererUtils的GIF绘制方法生成，依次轮换使用。结果单位为ns/帧，
+ * 加上-prof gc时gc.alloc.rate.norm即每帧分配的字节数：
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar GifStageBenchmark -prof gc
+ * </pre>
+ * 各阶段的关系：analyzePixels = NeuQuant构造 + learn + unbiasnet + inxbuild + map全部像素，
+ * writePixels = Encoder构造 + compress。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 19:50
+ * @since 1.1
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GifStageBenchmark {
+
+    @Param({"130x48", "260x96"})
+    public String size;
+
+    /**
+     * NeuQuant采样因子：180为RendererUtils使用的值，10为AnimatedGifEncoder的默认值
+     */
+    @Param({"180", "10"})
+    public int quality;
+
+    /**
+     * 绘制出的帧（TYPE_INT_RGB）
+     */
+    private BufferedImage[] frames;
+
+    /**
+     * 每帧的BGR像素
+     */
+    private byte[][] pixels;
+
+    /**
+     * 每帧训练完成的NeuQuant
+     */
+    private NeuQuant[] quantizers;
+
+    /**
+     * 每帧的调色板索引
+     */
+    private byte[][] indexed;
+
+    /**
+     * 每帧的LZW编码器，每次编码前清空位累加器后可重复使用
+     */
+    private Encoder[] encoders;
+
+    private final AnimatedGifEncoder encoder = new AnimatedGifEncoder();
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        AbstractCaptcha captcha = BenchmarkCaptchas.create(size, "NUM_EN_MIX", 1);
+        frames = GifFrames.capture(captcha);
+        int count = frames.length;
+        pixels = new byte[count][];
+        quantizers = new NeuQuant[count];
+        indexed = new byte[count][];
+        encoders = new Encoder[count];
+        encoder.setQuality(quality);
+        encoder.setSize(captcha.getWidth(), captcha.getHeight());
+        encoder.out = out;
+        for (int i = 0; i < count; i++) {
+            encoder.image = frames[i];
+            encoder.getImagePixels();
+            pixels[i] = encoder.pixels;
+            quantizers[i] = new NeuQuant(pixels[i], pixels[i].length, quality);
+            quantizers[i].process();
+            encoder.analyzePixels();
+            indexed[i] = encoder.indexedPixels;
+            encoders[i] = new Encoder(encoder.width, encoder.height, indexed[i], encoder.colorDepth);
+        }
+    }
+
+    @Benchmark
+    public byte[] getImagePixels() {
+        encoder.image = frames[next()];
+        encoder.getImagePixels();
+        return encoder.pixels;
+    }
+
+    @Benchmark
+    public NeuQuant neuQuantConstruct() {
+        byte[] frame = pixels[next()];
+        return new NeuQuant(frame, frame.length, quality);
+    }
+
+    @Benchmark
+    public NeuQuant neuQuantLearn(Untrained state) {
+        state.quantizer.learn();
+        return state.quantizer;
+    }
+
+    @Benchmark
+    public int[] neuQuantInxbuild(Learned state) {
+        state.quantizer.inxbuild();
+        return state.quantizer.netindex;
+    }
+
+    /**
+     * 把一帧的全部像素映射到调色板
+     */
+    @Benchmark
+    public int neuQuantMap() {
+        int i = next();
+        NeuQuant quantizer = quantizers[i];
+        byte[] frame = pixels[i];
+        int sum = 0;
+        for (int k = 0; k < frame.length; k += 3) {
+            sum += quantizer.map(frame[k] & 0xff, frame[k + 1] & 0xff, frame[k + 2] & 0xff);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public byte[] analyzePixels() {
+        encoder.pixels = pixels[next()];
+        encoder.analyzePixels();
+        return encoder.indexedPixels;
+    }
+
+    /**
+     * 复用编码器，只包含compress本身（encode另外只写入首尾两个字节）
+     */
+    @Benchmark
+    public int encoderCompress() throws IOException {
+        out.reset();
+        Encoder lzw = encoders[next()];
+        lzw.cur_accum = 0;
+        lzw.cur_bits = 0;
+        lzw.encode(out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writePixels() throws IOException {
+        out.reset();
+        encoder.indexedPixels = indexed[next()];
+        encoder.writePixels();
+        return out.size();
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = i + 1 == frames.length ? 0 : i + 1;
+        return i;
+    }
+
+    /**
+     * learn与inxbuild会修改网络，每次调用前从模板复制初始状态，复制不分配内存，不影响每帧分配的字节数
+     */
+    private static void copy(NeuQuant from, NeuQuant to) {
+        for (int i = 0; i < NeuQuant.netsize; i++) {
+            System.arraycopy(from.network[i], 0, to.network[i], 0, 4);
+        }
+        System.arraycopy(from.bias, 0, to.bias, 0, NeuQuant.netsize);
+        System.arraycopy(from.freq, 0, to.freq, 0, NeuQuant.netsize);
+        to.thepicture = from.thepicture;
+        to.lengthcount = from.lengthcount;
+        to.samplefac = from.samplefac;
+    }
+
+    /**
+     * 每次调用前准备新构造的NeuQuant
+     */
+    @State(Scope.Thread)
+    public static class Untrained {
+        NeuQuant quantizer;
+
+        private NeuQuant[] templates;
+
+        private int cursor;
+
+        @Setup
+        public void setUp(GifStageBenchmark benchmark) {
+            templates = new NeuQuant[benchmark.pixels.length];
+            for (int i = 0; i < templates.length; i++) {
+                byte[] frame = benchmark.pixels[i];
+                templates[i] = new NeuQuant(frame, frame.length, benchmark.quality);
+            }
+            quantizer = new NeuQuant(templates[0].thepicture, templates[0].lengthcount, benchmark.quality);
+        }
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            copy(templates[cursor], quantizer);
+            cursor = cursor + 1 == templates.length ? 0 : cursor + 1;
+        }
+    }
+
+    /**
+     * 每次调用前准备训练完成、尚未建立索引的NeuQuant
+     */
+    @State(Scope.Thread)
+    public static class Learned {
+        NeuQuant quantizer;
+
+        private NeuQuant[] templates;
+
+        private int cursor;
+
+        @Setup
+        public void setUp(GifStageBenchmark benchmark) {
+            templates = new NeuQuant[benchmark.pixels.length];
+            for (int i = 0; i < templates.length; i++) {
+                byte[] frame = benchmark.pixels[i];
+                templates[i] = new NeuQuant(frame, frame.length, benchmark.quality);
+                templates[i].learn();
+                templates[i].unbiasnet();
+            }
+            quantizer = new NeuQuant(templates[0].thepicture, templates[0].lengthcount, benchmark.quality);
+        }
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            copy(templates[cursor], quantizer);
+            cursor = cursor + 1 == templates.length ? 0 : cursor + 1;
+        }
+    }
+}
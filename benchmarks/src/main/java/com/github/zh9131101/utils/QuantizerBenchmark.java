@@ -0,0 +1,125 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.utils;
+
+import com.github.zh9131101.benchmark.BenchmarkCaptchas;
+import com.github.zh9131101.quantize.IQuantizer;
+import com.github.zh9131101.quantize.NeuQuantQuantizer;
+import com.github.zh9131101.quantize.OctreeQuantizer;
+import com.github.zh9131101.quantize.PopularityQuantizer;
+import com.github.zh9131101.textimage.AbstractCaptcha;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * GIF颜色量化器基准测试
+ * </p>
+ * 每次操作量化一帧，与{@link GifStageBenchmark}使用相同的帧。quantize只生成调色板，
+ * analyzePixels即AnimatedGifEncoder生成调色板并映射全部像素：
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar QuantizerBenchmark
+ * </pre>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 23:30
+ * @since 1.1
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class QuantizerBenchmark {
+
+    @Param({"130x48", "260x96"})
+    public String size;
+
+    /**
+     * neuquant为RendererUtils默认使用的采样因子180
+     */
+    @Param({"neuquant", "octree", "popularity"})
+    public String quantizer;
+
+    /**
+     * 每帧的BGR像素
+     */
+    private byte[][] pixels;
+
+    private IQuantizer target;
+
+    private final AnimatedGifEncoder encoder = new AnimatedGifEncoder();
+
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        AbstractCaptcha captcha = BenchmarkCaptchas.create(size, "NUM_EN_MIX", 1);
+        BufferedImage[] frames = GifFrames.capture(captcha);
+        pixels = new byte[frames.length][];
+        encoder.setSize(captcha.getWidth(), captcha.getHeight());
+        for (int i = 0; i < frames.length; i++) {
+            encoder.image = frames[i];
+            encoder.getImagePixels();
+            pixels[i] = encoder.pixels;
+        }
+        switch (quantizer) {
+            case "octree":
+                target = new OctreeQuantizer();
+                break;
+            case "popularity":
+                target = new PopularityQuantizer();
+                break;
+            default:
+                target = new NeuQuantQuantizer(180);
+        }
+        encoder.setQuantizer(target);
+    }
+
+    @Benchmark
+    public byte[] quantize() {
+        byte[] frame = pixels[next()];
+        return target.quantize(frame, frame.length).getColorTab();
+    }
+
+    @Benchmark
+    public byte[] analyzePixels() {
+        encoder.pixels = pixels[next()];
+        encoder.analyzePixels();
+        return encoder.indexedPixels;
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = i + 1 == pixels.length ? 0 : i + 1;
+        return i;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.loadtest;
+
+import com.github.zh9131101.utils.CaptchaUtils;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * 内嵌的验证码服务
+ * </p>
+ * 使用JDK自带的HttpServer，挂载以下接口：
+ * <ul>
+ *     <li>/captcha/png：{@link CaptchaUtils#rendererPng(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)}</li>
+ *     <li>/captcha/gif：{@link CaptchaUtils#rendererGif(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)}</li>
+ *     <li>/captcha/verify?code=xxxx：{@link CaptchaUtils#sessionVerify}，响应true或false</li>
+ * </ul>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 20:30
+ * @since 1.1
+ */
+
+public class CaptchaServer implements Closeable {
+    public static final String PNG_PATH = "/captcha/png";
+
+    public static final String GIF_PATH = "/captcha/gif";
+
+    public static final String VERIFY_PATH = "/captcha/verify";
+
+    private final ServletAdapter adapter = new ServletAdapter();
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    /**
+     * 启动服务
+     *
+     * @param port    端口，0为随机端口
+     * @param threads 处理请求的线程数
+     * @throws IOException 端口绑定失败
+     */
+    public CaptchaServer(int port, int threads) throws IOException {
+        // 响应头与响应体分开写出，开启Nagle算法时与客户端的延迟确认叠加，每个请求多出约40ms
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        AtomicInteger sequence = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "captcha-http-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(PNG_PATH, exchange -> adapter.service(exchange, CaptchaUtils::rendererPng));
+        server.createContext(GIF_PATH, exchange -> adapter.service(exchange, CaptchaUtils::rendererGif));
+        server.createContext(VERIFY_PATH, exchange -> adapter.service(exchange, (request, response) -> {
+            boolean verified = CaptchaUtils.sessionVerify(request.getParameter("code"), request);
+            response.setContentType("text/plain");
+            try (OutputStream os = response.getOutputStream()) {
+                os.write(String.valueOf(verified).getBytes(StandardCharsets.US_ASCII));
+            }
+        }));
+        server.start();
+    }
+
+    /**
+     * 服务的根地址
+     *
+     * @return 如http://127.0.0.1:8080
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * 当前session数量
+     *
+     * @return session数量
+     */
+    public int sessionCount() {
+        return adapter.sessionCount();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * 压测请求生成
+ * </p>
+ * 两种模式：
+ * <ul>
+ *     <li>闭环：固定数量的并发用户，每个用户收到响应后立即发出下一个请求，测量最大吞吐量</li>
+ *     <li>开环：按固定速率发出请求，与响应快慢无关。延迟从计划发出的时刻算起，包含排队等待的时间，
+ *     服务跟不上时延迟持续增长，不会像闭环那样因为等待响应而少发请求而低估延迟</li>
+ * </ul>
+ * 每个用户（线程）使用自己的session cookie。校验接口使用随机答案，用户第一次请求前先获取一次验证码以建立session。
+ * GC时间取自本进程，使用内嵌服务时包含服务端与客户端。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 20:30
+ * @since 1.1
+ */
+
+public class LoadGenerator {
+    private static final char[] CODE_CHARS = "23456789abcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private final String baseUrl;
+
+    private final String endpoint;
+
+    private final String path;
+
+    /**
+     * @param baseUrl  服务根地址
+     * @param endpoint png、gif或verify
+     */
+    public LoadGenerator(String baseUrl, String endpoint) {
+        this.baseUrl = baseUrl;
+        this.endpoint = endpoint;
+        switch (endpoint) {
+            case "png":
+                path = CaptchaServer.PNG_PATH;
+                break;
+            case "gif":
+                path = CaptchaServer.GIF_PATH;
+                break;
+            case "verify":
+                path = CaptchaServer.VERIFY_PATH;
+                break;
+            default:
+                throw new IllegalArgumentException("unknown endpoint: " + endpoint);
+        }
+    }
+
+    /**
+     * 闭环压测
+     *
+     * @param concurrency    并发用户数
+     * @param warmupMillis   预热时长，期间的请求不计入结果
+     * @param durationMillis 测量时长
+     * @return 压测结果
+     * @throws InterruptedException 被中断
+     */
+    public LoadResult closedLoop(int concurrency, long warmupMillis, long durationMillis) throws InterruptedException {
+        long measureFrom = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+        long end = measureFrom + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        List<LoadResult.Samples> samples = new CopyOnWriteArrayList<>();
+        Thread[] users = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            users[i] = new Thread(() -> {
+                LoadResult.Samples own = new LoadResult.Samples();
+                samples.add(own);
+                Client client = newClient();
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    call(client, own, now, now >= measureFrom);
+                }
+            }, "captcha-load-" + i);
+            users[i].start();
+        }
+        sleepUntil(measureFrom);
+        long[] gcBefore = gc();
+        sleepUntil(end);
+        long[] gcAfter = gc();
+        for (Thread user : users) {
+            user.join();
+        }
+        String description = String.format("%s closed-loop, %d users", endpoint, concurrency);
+        return new LoadResult(description, durationMillis / 1000.0, samples, 0,
+                gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+
+    /**
+     * 开环压测
+     *
+     * @param rate           每秒请求数
+     * @param maxConcurrency 同时进行的请求数上限，超出的请求排队，排队时间计入延迟
+     * @param warmupMillis   预热时长，期间的请求不计入结果
+     * @param durationMillis 测量时长
+     * @return 压测结果
+     * @throws InterruptedException 被中断
+     */
+    public LoadResult openLoop(double rate, int maxConcurrency, long warmupMillis, long durationMillis)
+            throws InterruptedException {
+        List<LoadResult.Samples> samples = new CopyOnWriteArrayList<>();
+        ThreadLocal<LoadResult.Samples> ownSamples = ThreadLocal.withInitial(() -> {
+            LoadResult.Samples own = new LoadResult.Samples();
+            samples.add(own);
+            return own;
+        });
+        ThreadLocal<Client> clients = ThreadLocal.withInitial(this::newClient);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> new Thread(r, "captcha-load"));
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+        long end = measureFrom + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        double interval = 1e9 / rate;
+        long[] gcBefore = null;
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * interval);
+            if (intended >= end) {
+                break;
+            }
+            sleepUntil(intended);
+            boolean record = intended >= measureFrom;
+            if (record && gcBefore == null) {
+                gcBefore = gc();
+            }
+            pool.execute(() -> call(clients.get(), ownSamples.get(), intended, record));
+        }
+        if (gcBefore == null) {
+            gcBefore = gc();
+        }
+        pool.shutdown();
+        long dropped = 0;
+        if (!pool.awaitTermination(Math.max(durationMillis, 10_000), TimeUnit.MILLISECONDS)) {
+            dropped = pool.shutdownNow().size();
+        }
+        long[] gcAfter = gc();
+        String description = String.format("%s open-loop, %.0f req/s, max %d in flight", endpoint, rate, maxConcurrency);
+        return new LoadResult(description, durationMillis / 1000.0, samples, dropped,
+                gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+
+    private Client newClient() {
+        Client client = new Client();
+        if (CaptchaServer.VERIFY_PATH.equals(path)) {
+            try {
+                client.fetch(baseUrl + CaptchaServer.PNG_PATH);
+            } catch (IOException e) {
+                // 第一次校验时记为错误
+            }
+        }
+        return client;
+    }
+
+    private void call(Client client, LoadResult.Samples samples, long start, boolean record) {
+        try {
+            long bytes = client.fetch(url());
+            long latency = System.nanoTime() - start;
+            if (!record) {
+                return;
+            }
+            if (client.status == 429) {
+                samples.rejected++;
+            } else if (client.status >= 400) {
+                samples.errors++;
+            } else {
+                samples.success(latency, bytes);
+            }
+        } catch (IOException e) {
+            if (record) {
+                samples.errors++;
+            }
+        }
+    }
+
+    private String url() {
+        if (!CaptchaServer.VERIFY_PATH.equals(path)) {
+            return baseUrl + path;
+        }
+        char[] code = new char[4];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < code.length; i++) {
+            code[i] = CODE_CHARS[random.nextInt(CODE_CHARS.length)];
+        }
+        return baseUrl + path + "?code=" + new String(code);
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * @return 累计GC时间（毫秒）与次数
+     */
+    private static long[] gc() {
+        long time = 0;
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(bean.getCollectionTime(), 0);
+            count += Math.max(bean.getCollectionCount(), 0);
+        }
+        return new long[]{time, count};
+    }
+
+    /**
+     * 一个用户，保存session cookie，连接由HttpURLConnection保持复用
+     */
+    private static final class Client {
+        private final byte[] buffer = new byte[8192];
+
+        private String cookie;
+
+        int status;
+
+        long fetch(String url) throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(30000);
+            if (cookie != null) {
+                connection.setRequestProperty("Cookie", cookie);
+            }
+            status = connection.getResponseCode();
+            String setCookie = connection.getHeaderField("Set-Cookie");
+            if (setCookie != null) {
+                int semicolon = setCookie.indexOf(';');
+                cookie = semicolon < 0 ? setCookie : setCookie.substring(0, semicolon);
+            }
+            InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            long bytes = 0;
+            if (in != null) {
+                try (InputStream body = in) {
+                    int n;
+                    while ((n = body.read(buffer)) > 0) {
+                        bytes += n;
+                    }
+                }
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * 压测结果
+ * </p>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 20:30
+ * @since 1.1
+ */
+
+public class LoadResult {
+    private final String description;
+
+    private final double seconds;
+
+    /**
+     * 成功请求的延迟（纳秒），升序
+     */
+    private final long[] latencies;
+
+    private final long bytes;
+
+    private final long errors;
+
+    private final long rejected;
+
+    private final long dropped;
+
+    private final long gcMillis;
+
+    private final long gcCount;
+
+    LoadResult(String description, double seconds, List<Samples> samples, long dropped, long gcMillis, long gcCount) {
+        int count = 0;
+        long bytes = 0;
+        long errors = 0;
+        long rejected = 0;
+        for (Samples s : samples) {
+            count += s.count;
+            bytes += s.bytes;
+            errors += s.errors;
+            rejected += s.rejected;
+        }
+        long[] latencies = new long[count];
+        int n = 0;
+        for (Samples s : samples) {
+            System.arraycopy(s.latencies, 0, latencies, n, s.count);
+            n += s.count;
+        }
+        Arrays.sort(latencies);
+        this.description = description;
+        this.seconds = seconds;
+        this.latencies = latencies;
+        this.bytes = bytes;
+        this.errors = errors;
+        this.rejected = rejected;
+        this.dropped = dropped;
+        this.gcMillis = gcMillis;
+        this.gcCount = gcCount;
+    }
+
+    /**
+     * 每秒完成的成功请求数
+     *
+     * @return 吞吐量
+     */
+    public double throughput() {
+        return latencies.length / seconds;
+    }
+
+    /**
+     * 延迟百分位
+     *
+     * @param percentile 0到1之间，如0.99
+     * @return 延迟（毫秒）
+     */
+    public double latencyMillis(double percentile) {
+        if (latencies.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * latencies.length) - 1;
+        return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1e6;
+    }
+
+    /**
+     * 平均每个成功响应的字节数
+     *
+     * @return 字节数
+     */
+    public double bytesPerResponse() {
+        return latencies.length == 0 ? 0 : (double) bytes / latencies.length;
+    }
+
+    public void print(PrintStream out) {
+        out.println(description);
+        out.printf("  requests     %d ok, %d errors, %d rejected (429), %d not started%n",
+                latencies.length, errors, rejected, dropped);
+        out.printf("  throughput   %.1f req/s over %.1f s%n", throughput(), seconds);
+        out.printf("  latency ms   p50 %.2f  p99 %.2f  p999 %.2f  max %.2f%n",
+                latencyMillis(0.5), latencyMillis(0.99), latencyMillis(0.999), latencyMillis(1));
+        out.printf("  bytes/resp   %.1f%n", bytesPerResponse());
+        out.printf("  gc           %d ms in %d collections (%.1f ms/s)%n", gcMillis, gcCount, gcMillis / seconds);
+    }
+
+    /**
+     * 单个线程记录的样本，只由所属线程写入
+     */
+    static final class Samples {
+        long[] latencies = new long[1024];
+
+        int count;
+
+        long bytes;
+
+        long errors;
+
+        long rejected;
+
+        void success(long latencyNanos, long responseBytes) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            bytes += responseBytes;
+        }
+    }
+}
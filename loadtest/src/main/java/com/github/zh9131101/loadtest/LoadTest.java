@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * 压测入口
+ * </p>
+ * 参数（均为--name=value形式）：
+ * <ul>
+ *     <li>endpoint：png、gif或verify，默认png</li>
+ *     <li>mode：closed或open，默认closed</li>
+ *     <li>concurrency：闭环的并发用户数，开环同时进行的请求数上限，默认16</li>
+ *     <li>rate：开环每秒请求数，默认100</li>
+ *     <li>warmup、duration：预热与测量的秒数，默认5与30</li>
+ *     <li>port、server-threads：内嵌服务的端口（默认随机）与线程数（默认CPU核数的2倍）</li>
+ *     <li>url：压测已有的服务，不启动内嵌服务</li>
+ *     <li>serve：只启动内嵌服务，供其他压测工具使用</li>
+ * </ul>
+ * <pre>
+ * java -jar loadtest/target/loadtest.jar --endpoint=gif --mode=open --rate=50 --duration=60
+ * </pre>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 20:30
+ * @since 1.1
+ */
+
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        Map<String, String> options = parse(args);
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        // HttpURLConnection默认每个地址只保持5个空闲连接
+        System.setProperty("http.maxConnections", String.valueOf(Math.max(concurrency, 5)));
+        String url = options.get("url");
+        CaptchaServer server = null;
+        if (url == null) {
+            int port = Integer.parseInt(options.getOrDefault("port", "0"));
+            int threads = Integer.parseInt(options.getOrDefault("server-threads",
+                    String.valueOf(Runtime.getRuntime().availableProcessors() * 2)));
+            server = new CaptchaServer(port, threads);
+            url = server.baseUrl();
+            System.out.println("captcha server listening on " + url);
+            if (options.containsKey("serve")) {
+                Thread.currentThread().join();
+            }
+        }
+        try {
+            LoadGenerator generator = new LoadGenerator(url, options.getOrDefault("endpoint", "png"));
+            long warmup = Long.parseLong(options.getOrDefault("warmup", "5")) * 1000;
+            long duration = Long.parseLong(options.getOrDefault("duration", "30")) * 1000;
+            LoadResult result;
+            if ("open".equals(options.getOrDefault("mode", "closed"))) {
+                double rate = Double.parseDouble(options.getOrDefault("rate", "100"));
+                result = generator.openLoop(rate, concurrency, warmup, duration);
+            } else {
+                result = generator.closedLoop(concurrency, warmup, duration);
+            }
+            result.print(System.out);
+            if (server != null) {
+                System.out.println("  sessions     " + server.sessionCount());
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>(16);
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.net.URLDecoder;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * 把HttpExchange适配为Servlet请求与响应
+ * </p>
+ * 用动态代理实现HttpServletRequest、HttpServletResponse与HttpSession中CaptchaUtils用到的方法，
+ * 其余方法抛出UnsupportedOperationException。session保存在内存中，通过JSESSIONID cookie关联，不过期。
+ * 响应体先写入缓冲区，处理完成后按实际长度发送。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 20:30
+ * @since 1.1
+ */
+
+final class ServletAdapter {
+    static final String SESSION_COOKIE = "JSESSIONID";
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private final Map<String, Map<String, Object>> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Servlet方法
+     */
+    interface Handler {
+        void handle(HttpServletRequest request, HttpServletResponse response) throws IOException;
+    }
+
+    /**
+     * 以Servlet方式处理一次请求
+     *
+     * @param exchange HttpExchange
+     * @param handler  处理方法
+     * @throws IOException IO异常
+     */
+    void service(HttpExchange exchange, Handler handler) throws IOException {
+        Call call = new Call(exchange);
+        try {
+            handler.handle(call.request(), call.response());
+        } catch (RuntimeException e) {
+            call.status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+            call.body.reset();
+            e.printStackTrace();
+        }
+        call.commit();
+    }
+
+    int sessionCount() {
+        return sessions.size();
+    }
+
+    private final class Call {
+        final HttpExchange exchange;
+
+        final Body body = new Body();
+
+        int status = HttpServletResponse.SC_OK;
+
+        String sessionId;
+
+        Map<String, String> query;
+
+        Call(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.sessionId = cookie(exchange.getRequestHeaders().getFirst("Cookie"));
+        }
+
+        HttpServletRequest request() {
+            return proxy(HttpServletRequest.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getSession":
+                        return session(args == null || (Boolean) args[0]);
+                    case "getRemoteAddr":
+                        return exchange.getRemoteAddress().getAddress().getHostAddress();
+                    case "getParameter":
+                        return query().get((String) args[0]);
+                    case "getHeader":
+                        return exchange.getRequestHeaders().getFirst((String) args[0]);
+                    case "getMethod":
+                        return exchange.getRequestMethod();
+                    case "getRequestURI":
+                        return exchange.getRequestURI().getPath();
+                    default:
+                        return unsupported(HttpServletRequest.class, method.getName());
+                }
+            });
+        }
+
+        HttpServletResponse response() {
+            return proxy(HttpServletResponse.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "setContentType":
+                        exchange.getResponseHeaders().set("Content-Type", (String) args[0]);
+                        return null;
+                    case "setHeader":
+                        exchange.getResponseHeaders().set((String) args[0], (String) args[1]);
+                        return null;
+                    case "addHeader":
+                        exchange.getResponseHeaders().add((String) args[0], (String) args[1]);
+                        return null;
+                    case "setDateHeader":
+                        exchange.getResponseHeaders().set((String) args[0],
+                                HTTP_DATE.format(Instant.ofEpochMilli((Long) args[1])));
+                        return null;
+                    case "setStatus":
+                        status = (Integer) args[0];
+                        return null;
+                    case "setContentLength":
+                    case "flushBuffer":
+                        // 提交时按缓冲区的实际长度发送
+                        return null;
+                    case "getOutputStream":
+                        return body;
+                    case "isCommitted":
+                        return false;
+                    default:
+                        return unsupported(HttpServletResponse.class, method.getName());
+                }
+            });
+        }
+
+        private HttpSession session(boolean create) {
+            Map<String, Object> attributes = sessionId == null ? null : sessions.get(sessionId);
+            if (attributes == null) {
+                if (!create) {
+                    return null;
+                }
+                sessionId = UUID.randomUUID().toString();
+                attributes = new ConcurrentHashMap<>();
+                sessions.put(sessionId, attributes);
+                exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + sessionId + "; Path=/; HttpOnly");
+            }
+            String id = sessionId;
+            Map<String, Object> values = attributes;
+            return proxy(HttpSession.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getId":
+                        return id;
+                    case "getAttribute":
+                        return values.get((String) args[0]);
+                    case "setAttribute":
+                        if (args[1] == null) {
+                            values.remove((String) args[0]);
+                        } else {
+                            values.put((String) args[0], args[1]);
+                        }
+                        return null;
+                    case "removeAttribute":
+                        values.remove((String) args[0]);
+                        return null;
+                    case "invalidate":
+                        sessions.remove(id);
+                        return null;
+                    default:
+                        return unsupported(HttpSession.class, method.getName());
+                }
+            });
+        }
+
+        private Map<String, String> query() {
+            if (query == null) {
+                query = parseQuery(exchange.getRequestURI().getRawQuery());
+            }
+            return query;
+        }
+
+        void commit() throws IOException {
+            byte[] bytes = body.toByteArray();
+            exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+            if (bytes.length > 0) {
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+            }
+            exchange.close();
+        }
+    }
+
+    /**
+     * 缓冲的响应体，RendererUtils写完后会关闭输出流，关闭后仍可读取内容
+     */
+    private static final class Body extends ServletOutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException("setWriteListener");
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.write(b, off, len);
+        }
+
+        void reset() {
+            buffer.reset();
+        }
+
+        byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+    }
+
+    private static String cookie(String header) {
+        if (header == null) {
+            return null;
+        }
+        for (String part : header.split(";")) {
+            String cookie = part.trim();
+            if (cookie.startsWith(SESSION_COOKIE + "=")) {
+                return cookie.substring(SESSION_COOKIE.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>(8);
+        if (query == null) {
+            return params;
+        }
+        try {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    params.putIfAbsent(URLDecoder.decode(pair.substring(0, eq), "UTF-8"),
+                            URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+                }
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return params;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ServletAdapter.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                        }
+                    }
+                    return handler.invoke(proxy, method, args);
+                });
+    }
+
+    private static Object unsupported(Class<?> type, String method) {
+        throw new UnsupportedOperationException(type.getSimpleName() + "." + method);
+    }
+}
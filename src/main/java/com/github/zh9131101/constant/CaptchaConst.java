@@ -70,6 +70,21 @@ public class CaptchaConst {
      */
     public static final String SESSION_KEY = "zhCaptcha";
 
+    /**
+     * 下发验证码id的响应头
+     */
+    public static final String CAPTCHA_ID_HEADER = "Captcha-Id";
+
+    /**
+     * 验证码默认有效时长（秒）
+     */
+    public static final long DEFAULT_TTL = 180;
+
+    /**
+     * 预热时每个验证码每种格式的默认渲染次数
+     */
+    public static final int DEFAULT_WARM_UP_RENDERS = 20;
+
     /**
      * 图片格式
      */
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.corpus;
+
+import com.github.zh9131101.store.AnswerDigest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * <p>
+ * 预渲染验证码库 条目
+ * </p>
+ * 图片数据为内存映射区域的只读切片，输出时不经过堆内复制。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 09:15
+ * @since 1.1
+ */
+
+public class CaptchaCorpusEntry {
+    /**
+     * 答案摘要长度（SHA-256）
+     */
+    static final int HASH_SIZE = 32;
+
+    private final int index;
+
+    private final FileChannel channel;
+
+    private final long offset;
+
+    private final ByteBuffer image;
+
+    private final byte[] answerHash;
+
+    CaptchaCorpusEntry(int index, FileChannel channel, long offset, ByteBuffer image, byte[] answerHash) {
+        this.index = index;
+        this.channel = channel;
+        this.offset = offset;
+        this.image = image;
+        this.answerHash = answerHash;
+    }
+
+    /**
+     * 条目在语料文件中的序号
+     *
+     * @return 序号
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * 图片字节数
+     *
+     * @return 字节数
+     */
+    public int getLength() {
+        return image.remaining();
+    }
+
+    /**
+     * 图片数据只读视图
+     *
+     * @return ByteBuffer
+     */
+    public ByteBuffer getImage() {
+        return image.duplicate();
+    }
+
+    /**
+     * 答案摘要
+     *
+     * @return SHA-256摘要
+     */
+    public byte[] getAnswerHash() {
+        return answerHash.clone();
+    }
+
+    /**
+     * 存入验证码存储时使用的答案：答案摘要的小写十六进制。
+     * 语料只保存摘要，存储中保存该值，校验时用{@link #answerKey(String)}转换用户输入后比对
+     *
+     * @return 64位十六进制字符串
+     */
+    public String getAnswerKey() {
+        return hex(answerHash);
+    }
+
+    /**
+     * 将用户输入转换为与{@link #getAnswerKey()}比对的值
+     *
+     * @param captcha 用户输入的验证码
+     * @return 64位十六进制字符串
+     */
+    public static String answerKey(String captcha) {
+        return hex(hash(captcha));
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = Character.forDigit((bytes[i] >>> 4) & 0xF, 16);
+            chars[i * 2 + 1] = Character.forDigit(bytes[i] & 0xF, 16);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 通过FileChannel.transferTo输出图片，目标为SocketChannel或FileChannel时由内核直接拷贝
+     *
+     * @param target 目标通道
+     * @return 写出的字节数
+     * @throws IOException IO异常
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        long length = image.remaining();
+        long written = 0;
+        while (written < length) {
+            written += channel.transferTo(offset + written, length - written, target);
+        }
+        return written;
+    }
+
+    /**
+     * 将图片写入输出流
+     *
+     * @param os 输出流
+     * @throws IOException IO异常
+     */
+    public void writeTo(OutputStream os) throws IOException {
+        WritableByteChannel target = Channels.newChannel(os);
+        ByteBuffer src = image.duplicate();
+        while (src.hasRemaining()) {
+            target.write(src);
+        }
+        os.flush();
+    }
+
+    /**
+     * 校验用户输入的验证码
+     *
+     * @param captcha 用户输入的验证码
+     * @return true or false
+     */
+    public boolean verify(String captcha) {
+        return captcha != null && MessageDigest.isEqual(answerHash, hash(captcha));
+    }
+
+    /**
+     * 计算答案摘要：按{@link AnswerDigest#normalize(CharSequence)}规范化后取SHA-256
+     *
+     * @param answer 答案
+     * @return 摘要
+     */
+    static byte[] hash(String answer) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return digest.digest(AnswerDigest.normalize(answer).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
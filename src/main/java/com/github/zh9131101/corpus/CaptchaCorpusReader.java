@@ -0,0 +1,338 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.corpus;
+
+import com.github.zh9131101.utils.RandomUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * 预渲染验证码库 读取器
+ * </p>
+ * 内存映射{@link CaptchaCorpusWriter}生成的文件，随机取出未使用的条目，
+ * 使用位图记录已取出的条目，保证每个验证码只下发一次。线程安全。
+ * <p>
+ * 已使用状态同时写入语料文件旁的使用记录文件（默认为语料文件名加{@value #USED_SUFFIX}，每个条目一个字节，内存映射），
+ * 重启后重新打开不会再次下发已取出的条目；语料文件重新生成后使用记录自动清空。
+ * 打开时对使用记录文件加排他锁，同一时间只能有一个读取器（包括其他进程）使用同一份语料，
+ * 多个进程共用一份语料时应各自生成语料文件。使用记录依赖操作系统的页缓存落盘，进程崩溃不会丢失，
+ * 操作系统崩溃或断电时可能丢失最近取出的条目记录。
+ * <p>
+ * 使用{@link #open(Path, Path)}传入null时不记录到文件，只保证单个进程的一次运行内不重复下发。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 09:18
+ * @since 1.1
+ */
+
+public class CaptchaCorpusReader implements Closeable {
+
+    /**
+     * 默认使用记录文件名后缀
+     */
+    public static final String USED_SUFFIX = ".used";
+
+    /**
+     * 使用记录文件魔数："ZHCU"
+     */
+    private static final int USED_MAGIC = 0x5A484355;
+
+    /**
+     * 使用记录文件头部：magic(4) count(4) corpusSize(8) 第一个条目的摘要(32)
+     */
+    private static final int USED_HEADER_SIZE = 16 + CaptchaCorpusEntry.HASH_SIZE;
+
+    private final FileChannel channel;
+
+    /**
+     * 使用记录文件，未记录到文件时为null
+     */
+    private final FileChannel usedChannel;
+
+    private final FileLock usedLock;
+
+    /**
+     * 使用记录，每个条目一个字节，取出后置为1
+     */
+    private final MappedByteBuffer usedFile;
+
+    private final String formatType;
+
+    private final int count;
+
+    private final long dataOffset;
+
+    private final MappedByteBuffer index;
+
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * 已使用条目位图
+     */
+    private final AtomicLongArray used;
+
+    private final AtomicInteger remaining;
+
+    private CaptchaCorpusReader(FileChannel channel, FileChannel usedChannel) throws IOException {
+        this.channel = channel;
+        this.usedChannel = usedChannel;
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, CaptchaCorpusWriter.HEADER_SIZE);
+        if (header.getInt() != CaptchaCorpusWriter.MAGIC || header.getInt() != CaptchaCorpusWriter.VERSION) {
+            throw new IOException("not a captcha corpus file");
+        }
+        this.count = header.getInt();
+        byte[] format = new byte[CaptchaCorpusWriter.FORMAT_SIZE];
+        header.get(format);
+        int len = 0;
+        while (len < format.length && format[len] != 0) {
+            len++;
+        }
+        this.formatType = new String(format, 0, len, StandardCharsets.US_ASCII);
+        this.dataOffset = header.getLong();
+        this.index = channel.map(FileChannel.MapMode.READ_ONLY, CaptchaCorpusWriter.HEADER_SIZE,
+                (long) count * CaptchaCorpusWriter.INDEX_ENTRY_SIZE);
+        long dataSize = channel.size() - dataOffset;
+        int segmentCount = (int) ((dataSize + CaptchaCorpusWriter.SEGMENT_SIZE - 1) / CaptchaCorpusWriter.SEGMENT_SIZE);
+        this.segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long start = dataOffset + i * CaptchaCorpusWriter.SEGMENT_SIZE;
+            long size = Math.min(CaptchaCorpusWriter.SEGMENT_SIZE, channel.size() - start);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        }
+        this.used = new AtomicLongArray((count + 63) >>> 6);
+        if (usedChannel == null) {
+            this.usedLock = null;
+            this.usedFile = null;
+            this.remaining = new AtomicInteger(count);
+            return;
+        }
+        try {
+            this.usedLock = usedChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            throw new IOException("captcha corpus is already open in this process", e);
+        }
+        if (usedLock == null) {
+            throw new IOException("captcha corpus is in use by another process");
+        }
+        this.usedFile = usedChannel.map(FileChannel.MapMode.READ_WRITE, 0, USED_HEADER_SIZE + (long) count);
+        this.remaining = new AtomicInteger(count - loadUsed());
+    }
+
+    /**
+     * 读取使用记录；记录属于其他语料文件（或新建）时清空并写入头部
+     *
+     * @return 已使用的条目数
+     */
+    private int loadUsed() throws IOException {
+        byte[] hash = new byte[CaptchaCorpusEntry.HASH_SIZE];
+        if (count > 0) {
+            ByteBuffer hashView = index.duplicate();
+            hashView.position(8 + 4);
+            hashView.get(hash);
+        }
+        byte[] recorded = new byte[CaptchaCorpusEntry.HASH_SIZE];
+        ByteBuffer header = usedFile.duplicate();
+        boolean same = header.getInt() == USED_MAGIC && header.getInt() == count && header.getLong() == channel.size();
+        header.get(recorded);
+        if (!same || !Arrays.equals(hash, recorded)) {
+            for (int i = 0; i < count; i++) {
+                usedFile.put(USED_HEADER_SIZE + i, (byte) 0);
+            }
+            ByteBuffer reset = usedFile.duplicate();
+            reset.putInt(USED_MAGIC).putInt(count).putLong(channel.size()).put(hash);
+            usedFile.force();
+            return 0;
+        }
+        int usedCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (usedFile.get(USED_HEADER_SIZE + i) != 0) {
+                used.set(i >>> 6, used.get(i >>> 6) | 1L << i);
+                usedCount++;
+            }
+        }
+        return usedCount;
+    }
+
+    /**
+     * 打开语料文件，使用记录保存在语料文件名加{@value #USED_SUFFIX}的文件中
+     *
+     * @param path 语料文件路径
+     * @return CaptchaCorpusReader
+     * @throws IOException IO异常，其他读取器正在使用同一份语料时也会抛出
+     */
+    public static CaptchaCorpusReader open(Path path) throws IOException {
+        return open(path, path.resolveSibling(path.getFileName() + USED_SUFFIX));
+    }
+
+    /**
+     * 打开语料文件
+     *
+     * @param path     语料文件路径
+     * @param usedPath 使用记录文件路径，不存在时创建；为null时不记录到文件，重新打开后所有条目都可再次取出
+     * @return CaptchaCorpusReader
+     * @throws IOException IO异常，其他读取器正在使用同一份语料时也会抛出
+     */
+    public static CaptchaCorpusReader open(Path path, Path usedPath) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        FileChannel usedChannel = null;
+        try {
+            if (usedPath != null) {
+                usedChannel = FileChannel.open(usedPath, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE);
+            }
+            return new CaptchaCorpusReader(channel, usedChannel);
+        } catch (IOException | RuntimeException e) {
+            if (usedChannel != null) {
+                usedChannel.close();
+            }
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 随机取出一个未使用的条目
+     *
+     * @return 条目，全部用完时返回null
+     */
+    public CaptchaCorpusEntry next() {
+        if (count == 0) {
+            return null;
+        }
+        int words = used.length();
+        int word = RandomUtils.randomNumber(words);
+        for (int i = 0; i < words; i++) {
+            int w = word + i < words ? word + i : word + i - words;
+            long bits = used.get(w);
+            long free = ~bits & validMask(w);
+            while (free != 0) {
+                long bit = randomBit(free);
+                if (used.compareAndSet(w, bits, bits | bit)) {
+                    remaining.decrementAndGet();
+                    int entry = (w << 6) + Long.numberOfTrailingZeros(bit);
+                    if (usedFile != null) {
+                        // 每个条目独占一个字节，并发写入不会互相覆盖
+                        usedFile.put(USED_HEADER_SIZE + entry, (byte) 1);
+                    }
+                    return entry(entry);
+                }
+                bits = used.get(w);
+                free = ~bits & validMask(w);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 读取指定序号的条目，不改变使用状态
+     *
+     * @param i 序号
+     * @return 条目
+     */
+    public CaptchaCorpusEntry get(int i) {
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException("index: " + i + ", count: " + count);
+        }
+        return entry(i);
+    }
+
+    private CaptchaCorpusEntry entry(int i) {
+        int base = i * CaptchaCorpusWriter.INDEX_ENTRY_SIZE;
+        long offset = index.getLong(base);
+        int length = index.getInt(base + 8);
+        byte[] hash = new byte[CaptchaCorpusEntry.HASH_SIZE];
+        ByteBuffer hashView = index.duplicate();
+        hashView.position(base + 12);
+        hashView.get(hash);
+        long relative = offset - dataOffset;
+        ByteBuffer image = segments[(int) (relative / CaptchaCorpusWriter.SEGMENT_SIZE)].duplicate();
+        int start = (int) (relative % CaptchaCorpusWriter.SEGMENT_SIZE);
+        image.limit(start + length);
+        image.position(start);
+        return new CaptchaCorpusEntry(i, channel, offset, image.slice().asReadOnlyBuffer(), hash);
+    }
+
+    /**
+     * 随机取一个置位的位
+     *
+     * @param free 非0
+     * @return 只有一位为1的值
+     */
+    private static long randomBit(long free) {
+        for (int n = RandomUtils.randomNumber(Long.bitCount(free)); n > 0; n--) {
+            free &= free - 1;
+        }
+        return Long.lowestOneBit(free);
+    }
+
+    private long validMask(int word) {
+        int bits = count - (word << 6);
+        return bits >= 64 ? -1L : (1L << bits) - 1;
+    }
+
+    /**
+     * 图片格式（后缀）
+     *
+     * @return 图片格式
+     */
+    public String getFormatType() {
+        return formatType;
+    }
+
+    /**
+     * 条目总数
+     *
+     * @return 总数
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 剩余未使用条目数
+     *
+     * @return 剩余数量
+     */
+    public int remaining() {
+        return remaining.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (usedChannel != null) {
+                usedFile.force();
+                usedChannel.close();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
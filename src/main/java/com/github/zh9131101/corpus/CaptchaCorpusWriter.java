@@ -0,0 +1,237 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.corpus;
+
+import com.github.zh9131101.constant.CaptchaConst;
+import com.github.zh9131101.textimage.AbstractCaptcha;
+import com.github.zh9131101.textimage.ICaptchaFactory;
+import com.github.zh9131101.utils.RendererUtils;
+import com.github.zh9131101.utils.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * 预渲染验证码库 写入器
+ * </p>
+ * 离线批量渲染验证码，将图片与答案摘要打包为单个带索引的文件，供{@link CaptchaCorpusReader}内存映射后直接输出。
+ * <pre>
+ * 文件结构：
+ *   头部   magic(4) version(4) count(4) format(8) dataOffset(8) reserved(4)
+ *   索引   count * [offset(8) length(4) hash(32)]
+ *   数据   按{@link #SEGMENT_SIZE}分段，单个图片不会跨段
+ * </pre>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 09:12
+ * @since 1.1
+ */
+
+public class CaptchaCorpusWriter implements Closeable {
+    /**
+     * 文件魔数："ZHCC"
+     */
+    static final int MAGIC = 0x5A484343;
+
+    /**
+     * 文件格式版本
+     */
+    static final int VERSION = 1;
+
+    /**
+     * 头部长度
+     */
+    static final int HEADER_SIZE = 32;
+
+    /**
+     * 图片格式字段长度
+     */
+    static final int FORMAT_SIZE = 8;
+
+    /**
+     * 单条索引长度
+     */
+    static final int INDEX_ENTRY_SIZE = 8 + 4 + CaptchaCorpusEntry.HASH_SIZE;
+
+    /**
+     * 数据段长度，每段单独映射，保证单个图片不跨段
+     */
+    static final long SEGMENT_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+
+    private final String formatType;
+
+    private final int capacity;
+
+    private final long dataOffset;
+
+    private final ByteBuffer index;
+
+    private final ByteArrayOutputStream imageBuffer = new ByteArrayOutputStream(8192);
+
+    private long position;
+
+    private int count;
+
+    /**
+     * 创建写入器
+     *
+     * @param path       语料文件路径，已存在时覆盖
+     * @param formatType 图片格式（后缀）
+     * @param capacity   最多写入的验证码数量
+     * @throws IOException IO异常
+     */
+    public CaptchaCorpusWriter(Path path, String formatType, int capacity) throws IOException {
+        if (capacity <= 0 || (long) capacity * INDEX_ENTRY_SIZE > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        }
+        this.formatType = StringUtils.isEmpty(formatType) ? CaptchaConst.PNG : formatType;
+        if (this.formatType.length() > FORMAT_SIZE) {
+            throw new IllegalArgumentException("unsupported format: " + formatType);
+        }
+        this.capacity = capacity;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+        this.dataOffset = HEADER_SIZE + (long) capacity * INDEX_ENTRY_SIZE;
+        this.index = ByteBuffer.allocate(capacity * INDEX_ENTRY_SIZE);
+        this.position = dataOffset;
+    }
+
+    /**
+     * 批量生成并写入验证码
+     *
+     * @param path       语料文件路径
+     * @param formatType 图片格式（后缀）
+     * @param count      验证码数量
+     * @param factory    验证码工厂
+     * @param customizer 验证码属性设置，可为null
+     * @throws IOException IO异常
+     */
+    public static void write(Path path, String formatType, int count, ICaptchaFactory factory,
+                             Consumer<AbstractCaptcha> customizer) throws IOException {
+        try (CaptchaCorpusWriter writer = new CaptchaCorpusWriter(path, formatType, count)) {
+            for (int i = 0; i < count; i++) {
+                AbstractCaptcha captcha = factory.createCaptcha();
+                if (customizer != null) {
+                    customizer.accept(captcha);
+                }
+                writer.append(captcha);
+            }
+        }
+    }
+
+    /**
+     * 生成、渲染并写入一个验证码
+     *
+     * @param captcha 验证码
+     * @throws IOException IO异常
+     */
+    public void append(AbstractCaptcha captcha) throws IOException {
+        if (count >= capacity) {
+            throw new IllegalStateException("corpus is full: " + capacity);
+        }
+        String answer = captcha.generateCaptcha();
+        imageBuffer.reset();
+        if (!RendererUtils.renderer(formatType, imageBuffer, captcha)) {
+            throw new IOException("captcha render failed");
+        }
+        append(imageBuffer.toByteArray(), answer);
+    }
+
+    /**
+     * 写入已渲染的验证码图片
+     *
+     * @param image  图片字节
+     * @param answer 验证码答案
+     * @throws IOException IO异常
+     */
+    public void append(byte[] image, String answer) throws IOException {
+        if (count >= capacity) {
+            throw new IllegalStateException("corpus is full: " + capacity);
+        }
+        if (image.length > SEGMENT_SIZE) {
+            throw new IllegalArgumentException("image too large: " + image.length);
+        }
+        long segmentEnd = dataOffset + ((position - dataOffset) / SEGMENT_SIZE + 1) * SEGMENT_SIZE;
+        if (position + image.length > segmentEnd) {
+            // 跳到下一段起始位置，保证图片不跨段
+            position = segmentEnd;
+        }
+        ByteBuffer src = ByteBuffer.wrap(image);
+        long offset = position;
+        while (src.hasRemaining()) {
+            offset += channel.write(src, offset);
+        }
+        index.putLong(position);
+        index.putInt(image.length);
+        index.put(CaptchaCorpusEntry.hash(answer));
+        position = offset;
+        count++;
+    }
+
+    /**
+     * 已写入数量
+     *
+     * @return 数量
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * 写入头部与索引并关闭文件
+     *
+     * @throws IOException IO异常
+     */
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(count);
+            byte[] format = formatType.getBytes(StandardCharsets.US_ASCII);
+            header.put(format);
+            header.position(header.position() + FORMAT_SIZE - format.length);
+            header.putLong(dataOffset);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            index.flip();
+            long offset = HEADER_SIZE;
+            while (index.hasRemaining()) {
+                offset += channel.write(index, offset);
+            }
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+}
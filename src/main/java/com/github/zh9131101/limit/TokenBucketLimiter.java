@@ -0,0 +1,160 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.limit;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * 按客户端限流的令牌桶
+ * </p>
+ * 固定数量的令牌桶保存在一个AtomicLongArray中，客户端标识（如IP地址）按带随机种子的哈希映射到其中一个桶，
+ * 内存占用固定，不随客户端数量增长；哈希到同一个桶的客户端共享额度。每个桶是一个long：
+ * 高42位为上次取令牌的时间（毫秒），低22位为剩余令牌数（定点数，1个令牌为1024）。
+ * 取令牌时按经过的时间补充令牌后CAS更新，无锁。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 18:10
+ * @since 1.1
+ */
+
+public class TokenBucketLimiter {
+    /**
+     * 默认桶数量
+     */
+    public static final int DEFAULT_BUCKETS = 1 << 16;
+
+    /**
+     * 桶容量上限
+     */
+    public static final int MAX_BURST = 4095;
+
+    private static final int TOKEN_BITS = 22;
+
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+    private static final long ONE = 1024;
+
+    /**
+     * 补满一个桶的最长时间（毫秒），为42位时间戳留出运行时间
+     */
+    private static final long MAX_REFILL_MILLIS = 1L << 40;
+
+    private final AtomicLongArray buckets;
+
+    private final int mask;
+
+    private final long capacity;
+
+    /**
+     * 每毫秒补充的令牌数（定点数）
+     */
+    private final double refillPerMilli;
+
+    private final long epoch;
+
+    private final long seed = new SecureRandom().nextLong();
+
+    /**
+     * 创建令牌桶限流
+     *
+     * @param permitsPerSecond 每个客户端每秒可获取的验证码数量
+     * @param burst            允许的突发数量（桶容量）
+     */
+    public TokenBucketLimiter(double permitsPerSecond, int burst) {
+        this(DEFAULT_BUCKETS, permitsPerSecond, burst);
+    }
+
+    /**
+     * 创建令牌桶限流
+     *
+     * @param bucketCount      桶数量，向上取整为2的幂
+     * @param permitsPerSecond 每个客户端每秒可获取的验证码数量
+     * @param burst            允许的突发数量（桶容量），不超过{@link #MAX_BURST}
+     */
+    public TokenBucketLimiter(int bucketCount, double permitsPerSecond, int burst) {
+        if (bucketCount <= 0 || !(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("bucketCount and permitsPerSecond must be positive");
+        }
+        if (burst < 1 || burst > MAX_BURST) {
+            throw new IllegalArgumentException("burst must be in [1, " + MAX_BURST + "]: " + burst);
+        }
+        int size = Integer.highestOneBit(Math.min(bucketCount, 1 << 30));
+        size = size < bucketCount ? size << 1 : size;
+        this.buckets = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.capacity = burst * ONE;
+        this.refillPerMilli = permitsPerSecond * ONE / 1000;
+        if (capacity / refillPerMilli > MAX_REFILL_MILLIS) {
+            throw new IllegalArgumentException("permitsPerSecond is too small for burst " + burst + ": " + permitsPerSecond);
+        }
+        // 时间起点提前一个完整补充周期，未使用过的桶（值为0）视为已满
+        this.epoch = System.currentTimeMillis() - (long) (capacity / refillPerMilli) - 1;
+    }
+
+    /**
+     * 为客户端获取一个令牌
+     *
+     * @param key 客户端标识，如IP地址
+     * @return 获取成功返回true，被限流返回false
+     */
+    public boolean tryAcquire(CharSequence key) {
+        long h = seed;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        return tryAcquire(h);
+    }
+
+    /**
+     * 按客户端标识的哈希获取一个令牌
+     *
+     * @param hash 客户端标识的哈希
+     * @return 获取成功返回true，被限流返回false
+     */
+    public boolean tryAcquire(long hash) {
+        int index = (int) mix64(hash ^ seed) & mask;
+        long now = Math.max(System.currentTimeMillis() - epoch, 0);
+        while (true) {
+            long old = buckets.get(index);
+            long last = old >>> TOKEN_BITS;
+            long tokens = old & TOKEN_MASK;
+            if (now > last) {
+                // 先截断经过的时间，避免溢出
+                long elapsed = Math.min(now - last, (long) (capacity / refillPerMilli) + 1);
+                tokens = Math.min(capacity, tokens + (long) (elapsed * refillPerMilli));
+            }
+            if (tokens < ONE) {
+                return false;
+            }
+            long updated = Math.max(now, last) << TOKEN_BITS | (tokens - ONE);
+            if (buckets.compareAndSet(index, old, updated)) {
+                return true;
+            }
+        }
+    }
+
+    private static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
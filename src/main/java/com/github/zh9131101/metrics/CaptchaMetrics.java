@@ -0,0 +1,225 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.metrics;
+
+import com.github.zh9131101.corpus.CaptchaCorpusReader;
+import com.github.zh9131101.store.ICaptchaStore;
+import com.github.zh9131101.store.MemoryCaptchaStore;
+import com.github.zh9131101.store.OffHeapCaptchaStore;
+import com.github.zh9131101.utils.CaptchaUtils;
+import com.github.zh9131101.utils.RendererUtils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * 验证码运行指标的实现
+ * </p>
+ * 计数使用{@link LongAdder}，高并发下各线程更新不同的单元，不会争用同一个计数；渲染耗时记入{@link LatencyHistogram}。
+ * 存储、字体缓存与验证码库的指标在读取时从当前配置中取得。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 21:40
+ * @since 1.1
+ */
+
+public class CaptchaMetrics implements CaptchaMetricsMXBean {
+    private final ConcurrentMap<String, LongAdder> issued = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LongAdder> verified = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LongAdder> failed = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    private final LongAdder renderErrors = new LongAdder();
+
+    private volatile CaptchaCorpusReader corpus;
+
+    /**
+     * 记录一次渲染
+     *
+     * @param format  图片格式
+     * @param nanos   耗时（纳秒）
+     * @param success 是否成功，成功时计入下发数量
+     */
+    public void rendered(String format, long nanos, boolean success) {
+        latency(format).record(nanos);
+        if (success) {
+            counter(issued, format).increment();
+        } else {
+            renderErrors.increment();
+        }
+    }
+
+    /**
+     * 记录一次直接下发，如预渲染验证码库中的验证码
+     *
+     * @param type 类型
+     */
+    public void issued(String type) {
+        counter(issued, type).increment();
+    }
+
+    /**
+     * 记录一次校验
+     *
+     * @param type   校验方式
+     * @param passed 是否通过
+     */
+    public void verified(String type, boolean passed) {
+        counter(passed ? verified : failed, type).increment();
+    }
+
+    /**
+     * 关联预渲染验证码库，其剩余数量作为{@link #getPoolDepth()}
+     *
+     * @param reader 验证码库，为null时取消关联
+     */
+    public void watchCorpus(CaptchaCorpusReader reader) {
+        this.corpus = reader;
+    }
+
+    @Override
+    public Map<String, Long> getIssued() {
+        return snapshot(issued);
+    }
+
+    @Override
+    public Map<String, Long> getVerified() {
+        return snapshot(verified);
+    }
+
+    @Override
+    public Map<String, Long> getFailed() {
+        return snapshot(failed);
+    }
+
+    @Override
+    public long getRenderErrors() {
+        return renderErrors.sum();
+    }
+
+    @Override
+    public Map<String, Double> getRenderP50Millis() {
+        return percentiles(0.5);
+    }
+
+    @Override
+    public Map<String, Double> getRenderP99Millis() {
+        return percentiles(0.99);
+    }
+
+    @Override
+    public Map<String, Double> getRenderP999Millis() {
+        return percentiles(0.999);
+    }
+
+    @Override
+    public Map<String, Double> getRenderMaxMillis() {
+        Map<String, Double> result = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().max() / 1e6);
+        }
+        return result;
+    }
+
+    @Override
+    public long getFontCacheHits() {
+        return RendererUtils.fontCacheHits();
+    }
+
+    @Override
+    public long getFontCacheMisses() {
+        return RendererUtils.fontCacheMisses();
+    }
+
+    @Override
+    public double getFontCacheHitRatio() {
+        long hits = RendererUtils.fontCacheHits();
+        long total = hits + RendererUtils.fontCacheMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public int getFontCacheSize() {
+        return RendererUtils.fontCacheSize();
+    }
+
+    @Override
+    public long getPoolDepth() {
+        CaptchaCorpusReader reader = corpus;
+        return reader == null ? -1 : reader.remaining();
+    }
+
+    @Override
+    public long getStoreSize() {
+        ICaptchaStore store = CaptchaUtils.getCaptchaStore();
+        if (store instanceof MemoryCaptchaStore) {
+            return ((MemoryCaptchaStore) store).size();
+        }
+        if (store instanceof OffHeapCaptchaStore) {
+            return ((OffHeapCaptchaStore) store).size();
+        }
+        return -1;
+    }
+
+    @Override
+    public long getStoreEvictions() {
+        ICaptchaStore store = CaptchaUtils.getCaptchaStore();
+        return store instanceof MemoryCaptchaStore ? ((MemoryCaptchaStore) store).evictionCount() : -1;
+    }
+
+    @Override
+    public void reset() {
+        issued.clear();
+        verified.clear();
+        failed.clear();
+        latencies.clear();
+        renderErrors.reset();
+    }
+
+    private LatencyHistogram latency(String format) {
+        LatencyHistogram histogram = latencies.get(format);
+        return histogram != null ? histogram : latencies.computeIfAbsent(format, k -> new LatencyHistogram());
+    }
+
+    private Map<String, Double> percentiles(double percentile) {
+        Map<String, Double> result = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().percentile(percentile) / 1e6);
+        }
+        return result;
+    }
+
+    private static LongAdder counter(ConcurrentMap<String, LongAdder> counters, String type) {
+        LongAdder counter = counters.get(type);
+        return counter != null ? counter : counters.computeIfAbsent(type, k -> new LongAdder());
+    }
+
+    private static Map<String, Long> snapshot(ConcurrentMap<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        return result;
+    }
+}
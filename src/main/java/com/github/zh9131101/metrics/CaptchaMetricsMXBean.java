@@ -0,0 +1,148 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.metrics;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * 验证码运行指标
+ * </p>
+ * 通过CaptchaUtils.enableMetrics注册到平台MBeanServer，ObjectName为{@link #OBJECT_NAME}。
+ * 下发数量按图片格式（png、gif、corpus）统计，校验数量按校验方式（存储类名、token、session）统计。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 21:40
+ * @since 1.1
+ */
+
+public interface CaptchaMetricsMXBean {
+    /**
+     * 注册的ObjectName
+     */
+    String OBJECT_NAME = "com.github.zh9131101:type=CaptchaMetrics";
+
+    /**
+     * 各图片格式成功下发的验证码数量
+     *
+     * @return 图片格式与数量
+     */
+    Map<String, Long> getIssued();
+
+    /**
+     * 各校验方式校验通过的数量
+     *
+     * @return 校验方式与数量
+     */
+    Map<String, Long> getVerified();
+
+    /**
+     * 各校验方式校验失败的数量
+     *
+     * @return 校验方式与数量
+     */
+    Map<String, Long> getFailed();
+
+    /**
+     * 渲染失败的数量
+     *
+     * @return 数量
+     */
+    long getRenderErrors();
+
+    /**
+     * 各图片格式渲染耗时的p50（毫秒）
+     *
+     * @return 图片格式与耗时
+     */
+    Map<String, Double> getRenderP50Millis();
+
+    /**
+     * 各图片格式渲染耗时的p99（毫秒）
+     *
+     * @return 图片格式与耗时
+     */
+    Map<String, Double> getRenderP99Millis();
+
+    /**
+     * 各图片格式渲染耗时的p999（毫秒）
+     *
+     * @return 图片格式与耗时
+     */
+    Map<String, Double> getRenderP999Millis();
+
+    /**
+     * 各图片格式渲染耗时的最大值（毫秒）
+     *
+     * @return 图片格式与耗时
+     */
+    Map<String, Double> getRenderMaxMillis();
+
+    /**
+     * 字体缓存命中次数
+     *
+     * @return 次数
+     */
+    long getFontCacheHits();
+
+    /**
+     * 字体缓存未命中次数
+     *
+     * @return 次数
+     */
+    long getFontCacheMisses();
+
+    /**
+     * 字体缓存命中率
+     *
+     * @return 0到1之间，没有访问时为0
+     */
+    double getFontCacheHitRatio();
+
+    /**
+     * 已缓存的字体数量
+     *
+     * @return 数量
+     */
+    int getFontCacheSize();
+
+    /**
+     * 预渲染验证码库剩余的验证码数量
+     *
+     * @return 数量，未关联验证码库时为-1
+     */
+    long getPoolDepth();
+
+    /**
+     * 验证码存储中的验证码数量
+     *
+     * @return 数量，存储不支持统计时为-1
+     */
+    long getStoreSize();
+
+    /**
+     * 验证码存储因容量上限淘汰的数量
+     *
+     * @return 数量，存储不支持统计时为-1
+     */
+    long getStoreEvictions();
+
+    /**
+     * 清空计数与渲染耗时
+     */
+    void reset();
+}
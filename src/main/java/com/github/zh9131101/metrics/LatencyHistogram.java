@@ -0,0 +1,136 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * 无锁延迟直方图
+ * </p>
+ * 对数-线性分桶：小于64纳秒每纳秒一个桶，之后每个2的幂区间再均分为32个桶，相对误差不超过1/32。
+ * 计数保存在AtomicLongArray中，记录只做一次原子自增，不加锁、不分配内存；超过约18分钟的值记入最后一个桶。
+ * 读取百分位时遍历所有桶，与并发记录之间不保证是同一时刻的快照。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 20:50
+ * @since 1.1
+ */
+
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    private static final int MAX_BITS = 40;
+
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+
+    private static final int BUCKETS = (MAX_BITS - SUB_BITS + 1) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个值
+     *
+     * @param nanos 延迟（纳秒），负数按0记录
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet(index(value));
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // 重试
+        }
+    }
+
+    /**
+     * 记录的值的数量
+     *
+     * @return 数量
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * 最大值
+     *
+     * @return 最大值（纳秒），没有记录时为0
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * 百分位的值
+     *
+     * @param percentile 0到1之间，如0.99
+     * @return 该百分位所在桶的上界（纳秒），不超过最大值；没有记录时为0
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * 清空
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    static int index(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    static long upperBound(int index) {
+        if (index < 2 * SUB_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BITS) - 1;
+        long sub = (index & (SUB_COUNT - 1)) + SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.metrics;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * 按格式与阶段统计渲染耗时的监听器
+ * </p>
+ * 每种图片格式的每个阶段以及整次渲染各一个{@link LatencyHistogram}：
+ * <pre>
+ * RenderHistogramListener histograms = new RenderHistogramListener();
+ * RendererUtils.setRenderListener(histograms);
+ * long p99 = histograms.percentile("gif", RenderStage.QUANTIZE, 0.99);
+ * </pre>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 20:50
+ * @since 1.1
+ */
+
+public class RenderHistogramListener implements RenderListener {
+    private static final RenderStage[] STAGES = RenderStage.values();
+
+    private final ConcurrentMap<String, LatencyHistogram[]> formats = new ConcurrentHashMap<>();
+
+    @Override
+    public void onStage(String format, RenderStage stage, long nanos) {
+        histograms(format)[stage.ordinal()].record(nanos);
+    }
+
+    @Override
+    public void onRender(String format, long nanos, boolean success) {
+        histograms(format)[STAGES.length].record(nanos);
+    }
+
+    /**
+     * 已记录的图片格式
+     *
+     * @return 图片格式
+     */
+    public Set<String> formats() {
+        return Collections.unmodifiableSet(formats.keySet());
+    }
+
+    /**
+     * 某个格式某个阶段的耗时
+     *
+     * @param format 图片格式
+     * @param stage  阶段
+     * @return 直方图，该格式没有记录时为null
+     */
+    public LatencyHistogram histogram(String format, RenderStage stage) {
+        LatencyHistogram[] histograms = formats.get(format);
+        return histograms == null ? null : histograms[stage.ordinal()];
+    }
+
+    /**
+     * 某个格式整次渲染的耗时
+     *
+     * @param format 图片格式
+     * @return 直方图，该格式没有记录时为null
+     */
+    public LatencyHistogram total(String format) {
+        LatencyHistogram[] histograms = formats.get(format);
+        return histograms == null ? null : histograms[STAGES.length];
+    }
+
+    /**
+     * 某个格式某个阶段耗时的百分位
+     *
+     * @param format     图片格式
+     * @param stage      阶段
+     * @param percentile 0到1之间，如0.99
+     * @return 耗时（纳秒），没有记录时为0
+     */
+    public long percentile(String format, RenderStage stage, double percentile) {
+        LatencyHistogram histogram = histogram(format, stage);
+        return histogram == null ? 0 : histogram.percentile(percentile);
+    }
+
+    /**
+     * 清空所有记录
+     */
+    public void reset() {
+        for (LatencyHistogram[] histograms : formats.values()) {
+            for (LatencyHistogram histogram : histograms) {
+                histogram.reset();
+            }
+        }
+    }
+
+    /**
+     * 各格式各阶段的p50、p99、p999与最大值（毫秒）
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("%-6s %-10s %10s %10s %10s %10s %10s%n",
+                "format", "stage", "count", "p50", "p99", "p999", "max"));
+        for (String format : formats.keySet()) {
+            for (RenderStage stage : STAGES) {
+                append(sb, format, stage.name(), histogram(format, stage));
+            }
+            append(sb, format, "TOTAL", total(format));
+        }
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, String format, String stage, LatencyHistogram histogram) {
+        long count = histogram.count();
+        if (count > 0) {
+            sb.append(String.format("%-6s %-10s %10d %10.3f %10.3f %10.3f %10.3f%n", format, stage, count,
+                    histogram.percentile(0.5) / 1e6, histogram.percentile(0.99) / 1e6,
+                    histogram.percentile(0.999) / 1e6, histogram.max() / 1e6));
+        }
+    }
+
+    private LatencyHistogram[] histograms(String format) {
+        LatencyHistogram[] histograms = formats.get(format);
+        if (histograms == null) {
+            histograms = formats.computeIfAbsent(format, k -> {
+                LatencyHistogram[] created = new LatencyHistogram[STAGES.length + 1];
+                for (int i = 0; i < created.length; i++) {
+                    created[i] = new LatencyHistogram();
+                }
+                return created;
+            });
+        }
+        return histograms;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.metrics;
+
+/**
+ * <p>
+ * 验证码渲染监听器
+ * </p>
+ * 通过RendererUtils.setRenderListener配置。默认为{@link #NOOP}，此时渲染过程不计时，没有额外开销。
+ * 回调在渲染线程中同步执行，实现需线程安全且尽量快。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 20:50
+ * @since 1.1
+ */
+
+public interface RenderListener {
+    /**
+     * 不做任何处理的监听器
+     */
+    RenderListener NOOP = new RenderListener() {
+    };
+
+    /**
+     * 一个阶段完成，GIF各帧同一阶段的耗时合计后报告一次
+     *
+     * @param format 图片格式
+     * @param stage  阶段
+     * @param nanos  耗时（纳秒）
+     */
+    default void onStage(String format, RenderStage stage, long nanos) {
+    }
+
+    /**
+     * 一次渲染完成
+     *
+     * @param format  图片格式
+     * @param nanos   总耗时（纳秒），不含渲染前生成答案的时间
+     * @param success 是否成功
+     */
+    default void onRender(String format, long nanos, boolean success) {
+    }
+}
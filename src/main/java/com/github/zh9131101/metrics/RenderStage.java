@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.metrics;
+
+/**
+ * <p>
+ * 验证码渲染的阶段
+ * </p>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 20:50
+ * @since 1.1
+ */
+
+public enum RenderStage {
+    /**
+     * 生成验证码答案
+     */
+    ANSWER,
+    /**
+     * 检查与加载字体
+     */
+    FONT,
+    /**
+     * 绘制背景与干扰元素
+     */
+    BACKGROUND,
+    /**
+     * 绘制验证码文字
+     */
+    TEXT,
+    /**
+     * 像素扭曲，未配置时不报告
+     */
+    WARP,
+    /**
+     * GIF颜色量化（NeuQuant）
+     */
+    QUANTIZE,
+    /**
+     * 图片编码：GIF为LZW，PNG为deflate，JPG为DCT
+     */
+    ENCODE,
+    /**
+     * 写出到输出流，包括flush与close，客户端接收慢时体现在此阶段
+     */
+    WRITE
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.quantize;
+
+/**
+ * <p>
+ * 调色板工具
+ * </p>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 23:30
+ * @since 1.1
+ */
+
+final class ColorTabs {
+
+    private ColorTabs() {
+    }
+
+    /**
+     * 调色板中与颜色距离最近的一项
+     *
+     * @param colorTab RGB调色板
+     * @param r        红
+     * @param g        绿
+     * @param b        蓝
+     * @return 调色板下标
+     */
+    static int nearest(byte[] colorTab, int r, int g, int b) {
+        int best = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0, n = colorTab.length / 3; i < n; i++) {
+            int dr = r - (colorTab[i * 3] & 0xff);
+            int dg = g - (colorTab[i * 3 + 1] & 0xff);
+            int db = b - (colorTab[i * 3 + 2] & 0xff);
+            int distance = dr * dr + dg * dg + db * db;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+                if (distance == 0) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.quantize;
+
+/**
+ * <p>
+ * GIF颜色量化
+ * </p>
+ * 为一帧图片生成不超过256色的调色板，并把像素映射到调色板下标。像素为BGR顺序的字节数组，即TYPE_3BYTE_BGR图片的数据。
+ * 量化器本身无状态，可被多个线程共用；{@link Palette}只在生成它的线程中使用。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 23:30
+ * @since 1.1
+ */
+
+public interface IQuantizer {
+    /**
+     * 生成调色板
+     *
+     * @param pixels BGR像素
+     * @param len    使用的字节数，为3的倍数
+     * @return 调色板
+     */
+    Palette quantize(byte[] pixels, int len);
+
+    /**
+     * 一帧图片的调色板
+     */
+    interface Palette {
+        /**
+         * RGB顺序的调色板，不超过256项；GIF编码时不足256项的部分补0
+         *
+         * @return 调色板
+         */
+        byte[] getColorTab();
+
+        /**
+         * 像素对应的调色板下标
+         *
+         * @param b 蓝
+         * @param g 绿
+         * @param r 红
+         * @return 调色板下标
+         */
+        int map(int b, int g, int r);
+    }
+}
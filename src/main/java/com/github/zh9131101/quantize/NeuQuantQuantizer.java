@@ -0,0 +1,66 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.quantize;
+
+import com.github.zh9131101.utils.NeuQuant;
+
+/**
+ * <p>
+ * NeuQuant神经网络量化
+ * </p>
+ * AnimatedGifEncoder原有的量化方式，适合颜色丰富的图片，学习的耗时与采样因子成反比。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 23:30
+ * @since 1.1
+ */
+
+public class NeuQuantQuantizer implements IQuantizer {
+    private final int sample;
+
+    /**
+     * 按采样因子创建
+     *
+     * @param sample 采样因子，越大学习越快、质量越低；AnimatedGifEncoder默认10，RendererUtils使用180
+     */
+    public NeuQuantQuantizer(int sample) {
+        this.sample = Math.max(1, sample);
+    }
+
+    @Override
+    public Palette quantize(byte[] pixels, int len) {
+        NeuQuant nq = new NeuQuant(pixels, len, sample);
+        byte[] colorTab = nq.process();
+        // convert map from BGR to RGB
+        for (int i = 0; i < colorTab.length; i += 3) {
+            byte temp = colorTab[i];
+            colorTab[i] = colorTab[i + 2];
+            colorTab[i + 2] = temp;
+        }
+        return new Palette() {
+            @Override
+            public byte[] getColorTab() {
+                return colorTab;
+            }
+
+            @Override
+            public int map(int b, int g, int r) {
+                return nq.map(b, g, r);
+            }
+        };
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.quantize;
+
+/**
+ * <p>
+ * 八叉树量化
+ * </p>
+ * 按RGB各位逐层建立八叉树，叶子数超过调色板大小时从最深一层开始把节点的子节点合并为一个叶子，叶子的平均色即调色板项。
+ * 调色板小于8色时第一层的叶子仍可能过多，此时两两合并像素最少的叶子，合并后的叶子被根节点的多个分支共用。
+ * 只需遍历一次像素，远快于NeuQuant的学习；映射时沿树下降即可，不在树中的颜色按距离取最近的调色板项。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 23:30
+ * @since 1.1
+ */
+
+public class OctreeQuantizer implements IQuantizer {
+    private static final int DEPTH = 8;
+
+    private final int maxColors;
+
+    /**
+     * 生成256色调色板
+     */
+    public OctreeQuantizer() {
+        this(256);
+    }
+
+    /**
+     * 指定调色板大小
+     *
+     * @param maxColors 2到256之间
+     */
+    public OctreeQuantizer(int maxColors) {
+        if (maxColors < 2 || maxColors > 256) {
+            throw new IllegalArgumentException("maxColors must be between 2 and 256: " + maxColors);
+        }
+        this.maxColors = maxColors;
+    }
+
+    @Override
+    public Palette quantize(byte[] pixels, int len) {
+        Tree tree = new Tree();
+        for (int k = 0; k < len; k += 3) {
+            tree.add(pixels[k + 2] & 0xff, pixels[k + 1] & 0xff, pixels[k] & 0xff);
+        }
+        tree.reduce(maxColors);
+        return tree.palette();
+    }
+
+    private static final class Node {
+        private Node[] children;
+
+        private boolean leaf;
+
+        private long red;
+
+        private long green;
+
+        private long blue;
+
+        private long count;
+
+        private int index = -1;
+
+        private Node nextReducible;
+    }
+
+    private static final class Tree implements Palette {
+        private final Node root = new Node();
+
+        private final Node[] reducible = new Node[DEPTH];
+
+        private int leaves;
+
+        private byte[] colorTab;
+
+        void add(int r, int g, int b) {
+            Node node = root;
+            for (int level = 0; level < DEPTH && !node.leaf; level++) {
+                if (node.children == null) {
+                    node.children = new Node[8];
+                }
+                int i = childIndex(r, g, b, level);
+                Node child = node.children[i];
+                if (child == null) {
+                    child = new Node();
+                    if (level + 1 == DEPTH) {
+                        child.leaf = true;
+                        leaves++;
+                    } else {
+                        child.nextReducible = reducible[level + 1];
+                        reducible[level + 1] = child;
+                    }
+                    node.children[i] = child;
+                }
+                node = child;
+            }
+            node.red += r;
+            node.green += g;
+            node.blue += b;
+            node.count++;
+        }
+
+        void reduce(int maxColors) {
+            int level = DEPTH - 1;
+            while (leaves > maxColors) {
+                while (level > 0 && reducible[level] == null) {
+                    level--;
+                }
+                if (level == 0) {
+                    // 第一层以下已全部合并
+                    mergeTopLeaves(maxColors);
+                    return;
+                }
+                Node node = reducible[level];
+                reducible[level] = node.nextReducible;
+                int merged = 0;
+                for (Node child : node.children) {
+                    if (child != null) {
+                        node.red += child.red;
+                        node.green += child.green;
+                        node.blue += child.blue;
+                        node.count += child.count;
+                        merged++;
+                    }
+                }
+                node.children = null;
+                node.leaf = true;
+                leaves -= merged - 1;
+            }
+        }
+
+        /**
+         * 把根节点下像素最少的叶子合并到次少的叶子中，直到叶子数不超过调色板大小
+         */
+        private void mergeTopLeaves(int maxColors) {
+            Node[] children = root.children;
+            while (leaves > maxColors) {
+                Node least = null;
+                Node second = null;
+                for (Node child : children) {
+                    if (child == null || child == least || child == second) {
+                        continue;
+                    }
+                    if (least == null || child.count < least.count) {
+                        second = least;
+                        least = child;
+                    } else if (second == null || child.count < second.count) {
+                        second = child;
+                    }
+                }
+                second.red += least.red;
+                second.green += least.green;
+                second.blue += least.blue;
+                second.count += least.count;
+                for (int i = 0; i < children.length; i++) {
+                    if (children[i] == least) {
+                        children[i] = second;
+                    }
+                }
+                leaves--;
+            }
+        }
+
+        Palette palette() {
+            colorTab = new byte[leaves * 3];
+            assign(root, 0);
+            return this;
+        }
+
+        private int assign(Node node, int next) {
+            if (node.leaf) {
+                if (node.index >= 0) {
+                    // 合并后被多个分支共用的叶子
+                    return next;
+                }
+                node.index = next;
+                colorTab[next * 3] = (byte) (node.red / node.count);
+                colorTab[next * 3 + 1] = (byte) (node.green / node.count);
+                colorTab[next * 3 + 2] = (byte) (node.blue / node.count);
+                return next + 1;
+            }
+            if (node.children != null) {
+                for (Node child : node.children) {
+                    if (child != null) {
+                        next = assign(child, next);
+                    }
+                }
+            }
+            return next;
+        }
+
+        @Override
+        public byte[] getColorTab() {
+            return colorTab;
+        }
+
+        @Override
+        public int map(int b, int g, int r) {
+            Node node = root;
+            for (int level = 0; !node.leaf; level++) {
+                Node child = node.children == null ? null : node.children[childIndex(r, g, b, level)];
+                if (child == null) {
+                    return ColorTabs.nearest(colorTab, r, g, b);
+                }
+                node = child;
+            }
+            return node.index;
+        }
+
+        private static int childIndex(int r, int g, int b, int level) {
+            int shift = 7 - level;
+            return ((r >> shift) & 1) << 2 | ((g >> shift) & 1) << 1 | ((b >> shift) & 1);
+        }
+    }
+}
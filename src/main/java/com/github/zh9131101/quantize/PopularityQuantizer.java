@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.quantize;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * 按颜色出现次数量化
+ * </p>
+ * 统计每种颜色出现的次数，不超过调色板大小时调色板与原图完全一致，超过时保留出现次数最多的颜色，其余颜色取距离最近的一项。
+ * 验证码的帧只有背景、干扰与字符少数几种颜色（开启抗锯齿后也只有几百种），适合使用本量化器。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 23:30
+ * @since 1.1
+ */
+
+public class PopularityQuantizer implements IQuantizer {
+    private static final int EMPTY = -1;
+
+    private final int maxColors;
+
+    /**
+     * 生成256色调色板
+     */
+    public PopularityQuantizer() {
+        this(256);
+    }
+
+    /**
+     * 指定调色板大小
+     *
+     * @param maxColors 2到256之间
+     */
+    public PopularityQuantizer(int maxColors) {
+        if (maxColors < 2 || maxColors > 256) {
+            throw new IllegalArgumentException("maxColors must be between 2 and 256: " + maxColors);
+        }
+        this.maxColors = maxColors;
+    }
+
+    @Override
+    public Palette quantize(byte[] pixels, int len) {
+        ColorTable counts = new ColorTable(1024);
+        for (int k = 0; k < len; k += 3) {
+            counts.increment(rgb(pixels[k + 2] & 0xff, pixels[k + 1] & 0xff, pixels[k] & 0xff));
+        }
+        // 高32位为出现次数，低24位为颜色，按次数降序取前maxColors项
+        long[] sorted = new long[counts.size];
+        int n = 0;
+        for (int i = 0; i < counts.keys.length; i++) {
+            if (counts.keys[i] != EMPTY) {
+                sorted[n++] = (long) counts.values[i] << 32 | counts.keys[i];
+            }
+        }
+        Arrays.sort(sorted);
+        int colors = Math.min(n, maxColors);
+        byte[] colorTab = new byte[Math.max(colors, 1) * 3];
+        ColorTable index = new ColorTable(n);
+        for (int i = 0; i < colors; i++) {
+            int rgb = (int) sorted[n - 1 - i];
+            colorTab[i * 3] = (byte) (rgb >> 16);
+            colorTab[i * 3 + 1] = (byte) (rgb >> 8);
+            colorTab[i * 3 + 2] = (byte) rgb;
+            index.put(rgb, i);
+        }
+        return new Palette() {
+            @Override
+            public byte[] getColorTab() {
+                return colorTab;
+            }
+
+            @Override
+            public int map(int b, int g, int r) {
+                int rgb = rgb(r, g, b);
+                int i = index.get(rgb);
+                if (i < 0) {
+                    i = ColorTabs.nearest(colorTab, r, g, b);
+                    index.put(rgb, i);
+                }
+                return i;
+            }
+        };
+    }
+
+    private static int rgb(int r, int g, int b) {
+        return r << 16 | g << 8 | b;
+    }
+
+    /**
+     * 颜色到整数的开放寻址散列表，颜色不超过24位，以-1表示空位
+     */
+    private static final class ColorTable {
+        private int[] keys;
+
+        private int[] values;
+
+        private int size;
+
+        ColorTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 16) * 2 - 1) << 1;
+            keys = new int[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        void increment(int key) {
+            int i = slot(key);
+            if (keys[i] == EMPTY) {
+                insert(i, key, 1);
+            } else {
+                values[i]++;
+            }
+        }
+
+        void put(int key, int value) {
+            int i = slot(key);
+            if (keys[i] == EMPTY) {
+                insert(i, key, value);
+            } else {
+                values[i] = value;
+            }
+        }
+
+        int get(int key) {
+            int i = slot(key);
+            return keys[i] == EMPTY ? -1 : values[i];
+        }
+
+        private void insert(int i, int key, int value) {
+            keys[i] = key;
+            values[i] = value;
+            if (++size * 2 > keys.length) {
+                int[] oldKeys = keys;
+                int[] oldValues = values;
+                keys = new int[oldKeys.length * 2];
+                values = new int[oldKeys.length * 2];
+                Arrays.fill(keys, EMPTY);
+                for (int j = 0; j < oldKeys.length; j++) {
+                    if (oldKeys[j] != EMPTY) {
+                        int s = slot(oldKeys[j]);
+                        keys[s] = oldKeys[j];
+                        values[s] = oldValues[j];
+                    }
+                }
+            }
+        }
+
+        private int slot(int key) {
+            int mask = keys.length - 1;
+            int h = key * 0x9E3779B9;
+            int i = (h ^ h >>> 16) & mask;
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+    }
+}
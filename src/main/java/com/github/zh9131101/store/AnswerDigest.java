@@ -0,0 +1,274 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import java.security.SecureRandom;
+
+/**
+ * <p>
+ * 验证码答案摘要
+ * </p>
+ * 存储只保存答案的64位带密钥摘要（SipHash-2-4），不保存答案原文。计算前对答案规范化：去除首尾空白（含全角空格）、
+ * 全角字符转半角、按码点转小写，再按UTF-8逐字节送入哈希，整个过程不创建字符串或数组，中文与算术答案同样适用。
+ * 摘要定长8字节，比较使用异或，耗时与内容无关。同一规范化由{@link #normalize(CharSequence)}公开，
+ * 原文存储与令牌签名的答案比较也使用它，同一输入在各种存储下的校验结果一致。
+ * <p>
+ * 进程内存储各自使用随机密钥。session与Redis中的答案由其他节点或重启后的进程校验，只有通过{@link #setDefault}
+ * 配置了各节点相同的密钥后才保存摘要，未配置时保存答案原文，与之前的版本一致。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 17:05
+ * @since 1.1
+ */
+
+public final class AnswerDigest {
+    /**
+     * 默认答案摘要，未配置时为null
+     */
+    private static volatile AnswerDigest defaultDigest;
+
+    private final long k0;
+
+    private final long k1;
+
+    /**
+     * 使用指定密钥，集群内共享存储（如复制的session）时各节点需相同
+     *
+     * @param k0 密钥低64位
+     * @param k1 密钥高64位
+     */
+    public AnswerDigest(long k0, long k1) {
+        this.k0 = k0;
+        this.k1 = k1;
+    }
+
+    /**
+     * 使用随机密钥
+     *
+     * @return 答案摘要
+     */
+    public static AnswerDigest random() {
+        SecureRandom random = new SecureRandom();
+        return new AnswerDigest(random.nextLong(), random.nextLong());
+    }
+
+    /**
+     * 默认答案摘要，session与Redis存储使用
+     *
+     * @return 答案摘要，未配置时返回null，此时session与Redis中保存答案原文
+     */
+    public static AnswerDigest getDefault() {
+        return defaultDigest;
+    }
+
+    /**
+     * 配置默认答案摘要，之后session与Redis中只保存答案摘要。集群内各节点（以及重启后的进程）需使用相同的密钥，
+     * 否则复制或持久化的session、Redis中的验证码校验失败；配置之前保存的原文答案仍可校验
+     *
+     * @param digest 答案摘要，如new AnswerDigest(k0, k1)，密钥应来自配置而不是每次启动随机生成；为null时恢复保存原文
+     */
+    public static void setDefault(AnswerDigest digest) {
+        defaultDigest = digest;
+    }
+
+    public long getK0() {
+        return k0;
+    }
+
+    public long getK1() {
+        return k1;
+    }
+
+    /**
+     * 计算规范化答案的摘要
+     *
+     * @param answer 答案或用户输入
+     * @return 摘要
+     */
+    public long hash(CharSequence answer) {
+        int start = 0;
+        int end = answer.length();
+        while (start < end && isSpace(answer.charAt(start))) {
+            start++;
+        }
+        while (end > start && isSpace(answer.charAt(end - 1))) {
+            end--;
+        }
+        long v0 = k0 ^ 0x736F6D6570736575L;
+        long v1 = k1 ^ 0x646F72616E646F6DL;
+        long v2 = k0 ^ 0x6C7967656E657261L;
+        long v3 = k1 ^ 0x7465646279746573L;
+        long m = 0;
+        int n = 0;
+        int i = start;
+        while (i < end) {
+            int cp = Character.codePointAt(answer, i);
+            i += Character.charCount(cp);
+            long encoded = encode(fold(cp));
+            int count = (int) encoded & 0xFF;
+            for (int k = 0; k < count; k++) {
+                m |= ((encoded >>> (32 - 8 * k)) & 0xFF) << (8 * (n & 7));
+                n++;
+                if ((n & 7) == 0) {
+                    v3 ^= m;
+                    for (int r = 0; r < 2; r++) {
+                        v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+                        v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+                        v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+                        v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+                    }
+                    v0 ^= m;
+                    m = 0;
+                }
+            }
+        }
+        long b = (long) n << 56 | m;
+        v3 ^= b;
+        for (int r = 0; r < 2; r++) {
+            v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+            v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+        }
+        v0 ^= b;
+        v2 ^= 0xFF;
+        for (int r = 0; r < 4; r++) {
+            v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+            v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+        }
+        return v0 ^ v1 ^ v2 ^ v3;
+    }
+
+    /**
+     * 校验用户输入与摘要是否一致
+     *
+     * @param expected 保存的摘要
+     * @param captcha  用户输入的验证码
+     * @return true or false
+     */
+    public boolean matches(long expected, CharSequence captcha) {
+        return captcha != null && equal(expected, hash(captcha));
+    }
+
+    /**
+     * 比较两个摘要，耗时与内容无关
+     *
+     * @param a 摘要
+     * @param b 摘要
+     * @return true or false
+     */
+    public static boolean equal(long a, long b) {
+        return (a ^ b) == 0;
+    }
+
+    /**
+     * 规范化答案：去除首尾空白（含全角空格）、全角字符转半角、按码点转小写
+     *
+     * @param answer 答案或用户输入
+     * @return 规范化后的字符串
+     */
+    public static String normalize(CharSequence answer) {
+        int start = 0;
+        int end = answer.length();
+        while (start < end && isSpace(answer.charAt(start))) {
+            start++;
+        }
+        while (end > start && isSpace(answer.charAt(end - 1))) {
+            end--;
+        }
+        StringBuilder normalized = new StringBuilder(end - start);
+        for (int i = start; i < end; ) {
+            int cp = Character.codePointAt(answer, i);
+            i += Character.charCount(cp);
+            normalized.appendCodePoint(fold(cp));
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * 规范化答案后按UTF-8写入缓冲区，不创建字符串
+     *
+     * @param answer 答案或用户输入
+     * @param out    缓冲区，长度不小于answer.length() * 3
+     * @return 写入的字节数
+     */
+    public static int normalize(CharSequence answer, byte[] out) {
+        int start = 0;
+        int end = answer.length();
+        while (start < end && isSpace(answer.charAt(start))) {
+            start++;
+        }
+        while (end > start && isSpace(answer.charAt(end - 1))) {
+            end--;
+        }
+        int n = 0;
+        for (int i = start; i < end; ) {
+            int cp = Character.codePointAt(answer, i);
+            i += Character.charCount(cp);
+            long encoded = encode(fold(cp));
+            int count = (int) encoded & 0xFF;
+            for (int k = 0; k < count; k++) {
+                out[n++] = (byte) (encoded >>> (32 - 8 * k));
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 按规范化后的内容比较两个答案，用于原文存储
+     *
+     * @param expected 保存的答案
+     * @param captcha  用户输入的验证码
+     * @return true or false
+     */
+    public static boolean matchesPlain(CharSequence expected, CharSequence captcha) {
+        return expected != null && captcha != null && normalize(expected).equals(normalize(captcha));
+    }
+
+    private static boolean isSpace(char c) {
+        return c <= ' ' || c == '　';
+    }
+
+    /**
+     * 全角ASCII转半角后转小写
+     */
+    private static int fold(int cp) {
+        if (cp >= 0xFF01 && cp <= 0xFF5E) {
+            cp -= 0xFEE0;
+        }
+        return Character.toLowerCase(cp);
+    }
+
+    /**
+     * UTF-8编码，低8位为字节数，第1至4个字节依次位于bit 32、24、16、8起始的字节中
+     */
+    private static long encode(int cp) {
+        if (cp < 0x80) {
+            return (long) cp << 32 | 1;
+        }
+        if (cp < 0x800) {
+            return (long) (0xC0 | cp >> 6) << 32 | (long) (0x80 | cp & 0x3F) << 24 | 2;
+        }
+        if (cp < 0x10000) {
+            return (long) (0xE0 | cp >> 12) << 32 | (long) (0x80 | (cp >> 6) & 0x3F) << 24 | (0x80 | cp & 0x3F) << 16 | 3;
+        }
+        return (long) (0xF0 | cp >> 18) << 32 | (long) (0x80 | (cp >> 12) & 0x3F) << 24
+                | (0x80 | (cp >> 6) & 0x3F) << 16 | (0x80 | cp & 0x3F) << 8 | 4;
+    }
+}
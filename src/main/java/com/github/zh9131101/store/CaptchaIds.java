@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+/**
+ * <p>
+ * 验证码id 工具类
+ * </p>
+ * 将验证码id转换为128位整数。32位十六进制id（{@link com.github.zh9131101.utils.RandomUtils#getUuid()}）直接解析，
+ * 其他id通过两个不同种子的哈希映射为128位。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 10:40
+ * @since 1.1
+ */
+
+final class CaptchaIds {
+
+    private CaptchaIds() {
+    }
+
+    /**
+     * 十六进制id长度
+     */
+    static final int HEX_LENGTH = 32;
+
+    /**
+     * id高64位
+     *
+     * @param id 验证码id
+     * @return 高64位
+     */
+    static long high(String id) {
+        return isHexId(id) ? parseHex(id, 0) : hash(id, 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * id低64位
+     *
+     * @param id 验证码id
+     * @return 低64位
+     */
+    static long low(String id) {
+        return isHexId(id) ? parseHex(id, 16) : hash(id, 0xC2B2AE3D27D4EB4FL);
+    }
+
+    /**
+     * 128位id的散列值
+     *
+     * @param high 高64位
+     * @param low  低64位
+     * @return 散列值
+     */
+    static long mix(long high, long low) {
+        return mix64(high * 0x9E3779B97F4A7C15L ^ low);
+    }
+
+    /**
+     * 64位混淆（MurmurHash3 fmix64）
+     *
+     * @param h 输入
+     * @return 混淆结果
+     */
+    static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 是否为32位十六进制id
+     *
+     * @param id 验证码id
+     * @return true or false
+     */
+    static boolean isHexId(String id) {
+        if (id.length() != HEX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < HEX_LENGTH; i++) {
+            if (Character.digit(id.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseHex(String id, int from) {
+        long value = 0;
+        for (int i = from; i < from + 16; i++) {
+            value = (value << 4) | Character.digit(id.charAt(i), 16);
+        }
+        return value;
+    }
+
+    private static long hash(String id, long seed) {
+        long h = seed;
+        for (int i = 0; i < id.length(); i++) {
+            h = (h ^ id.charAt(i)) * 0x100000001B3L;
+        }
+        return mix64(h ^ id.length());
+    }
+}
@@ -0,0 +1,734 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * 进程内验证码存储的预写日志
+ * </p>
+ * 保存与删除以记录的形式追加到内存映射的日志分段中，写入只是内存拷贝；后台线程按固定间隔统一force（组提交），
+ * 签发与校验不会等待磁盘同步。追加时用CAS在分段中预留写入位置，各线程并发写入各自的区域，不经过全局锁；
+ * 同一个id的记录总在存储同一分段的锁内追加，预留顺序即修改顺序。只有切换分段时才加锁。后台线程同时定期生成快照：先切换到新分段，再把存储中未过期的验证码写入快照，
+ * 之后删除旧分段，日志大小只与存活的验证码数量有关。重启时加载最新快照并按顺序重放其后的分段，
+ * 每条记录带CRC32校验，遇到写了一半的记录即停止。答案摘要的密钥保存在answer.key中，重启后摘要保持一致。
+ * <pre>
+ * 记录：长度(4) CRC32(4) 类型(1) id高64位(8) id低64位(8) [过期时间(8，毫秒) 答案摘要(8)]
+ * 分段：{序号}.log，快照：{序号}.snap，快照包含切换到该序号分段时的全部状态，其后的分段在快照之上重放
+ * </pre>
+ * 崩溃时最多丢失最近一个刷新间隔内的写入。不再写入的分段在force后立即解除映射，快照删除旧分段时不会因文件仍被映射而失败（Windows）；
+ * 仍有写入未完成或删除失败的分段在下一次快照时再删除。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 16:20
+ * @since 1.1
+ */
+
+public class CaptchaJournal implements Closeable {
+    /**
+     * 默认分段大小
+     */
+    public static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+
+    /**
+     * 默认刷新间隔（毫秒）
+     */
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+
+    /**
+     * 默认快照间隔（毫秒）
+     */
+    public static final long DEFAULT_SNAPSHOT_INTERVAL_MILLIS = 60_000;
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private static final String KEY_FILE = "answer.key";
+
+    private static final int SNAPSHOT_MAGIC = 0x5A484353;
+
+    private static final byte PUT = 1;
+
+    private static final byte REMOVE = 2;
+
+    private static final int HEADER_BYTES = 8;
+
+    private static final int REMOVE_BYTES = 1 + 16;
+
+    private static final int PUT_BYTES = REMOVE_BYTES + 8 + 8;
+
+    private final Path directory;
+
+    private final int segmentBytes;
+
+    private final long flushIntervalMillis;
+
+    private final long snapshotIntervalMillis;
+
+    /**
+     * 每个线程计算记录校验和使用的缓冲区
+     */
+    private static final ThreadLocal<Record> RECORD = ThreadLocal.withInitial(Record::new);
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Object snapshotLock = new Object();
+
+    /**
+     * force与解除映射互斥，避免force已解除映射的分段
+     */
+    private final Object flushLock = new Object();
+
+    private MemoryCaptchaStore store;
+
+    /**
+     * 当前写入的分段，只在持有this时切换
+     */
+    private volatile Segment current;
+
+    private long sequence;
+
+    /**
+     * 已切换但尚未force并解除映射的分段，由this保护
+     */
+    private final List<Segment> retired = new ArrayList<>();
+
+    private volatile boolean closed;
+
+    public CaptchaJournal(Path directory) {
+        this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_SNAPSHOT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * 创建预写日志，需通过MemoryCaptchaStore的构造方法绑定后才会打开
+     *
+     * @param directory              日志目录
+     * @param segmentBytes           每个分段的大小
+     * @param flushIntervalMillis    组提交间隔（毫秒）
+     * @param snapshotIntervalMillis 快照间隔（毫秒）
+     */
+    public CaptchaJournal(Path directory, int segmentBytes, long flushIntervalMillis, long snapshotIntervalMillis) {
+        if (segmentBytes < 4096) {
+            throw new IllegalArgumentException("segmentBytes must be at least 4096: " + segmentBytes);
+        }
+        if (flushIntervalMillis <= 0 || snapshotIntervalMillis <= 0) {
+            throw new IllegalArgumentException("flush and snapshot intervals must be positive");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "captcha-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 读取答案摘要密钥，首次使用时生成
+     */
+    AnswerDigest loadDigest() {
+        Path path = directory.resolve(KEY_FILE);
+        try {
+            Files.createDirectories(directory);
+            if (Files.exists(path)) {
+                ByteBuffer key = ByteBuffer.wrap(Files.readAllBytes(path));
+                if (key.remaining() != 16) {
+                    throw new IOException("corrupted answer key: " + path);
+                }
+                return new AnswerDigest(key.getLong(), key.getLong());
+            }
+            AnswerDigest digest = AnswerDigest.random();
+            ByteBuffer key = ByteBuffer.allocate(16).putLong(digest.getK0()).putLong(digest.getK1());
+            key.flip();
+            Path temp = directory.resolve(KEY_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                channel.write(key);
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            return digest;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 恢复存储并开始记录
+     */
+    synchronized void open(MemoryCaptchaStore store) {
+        if (this.store != null) {
+            throw new IllegalStateException("journal is already bound to a store");
+        }
+        this.store = store;
+        try {
+            Files.createDirectories(directory);
+            replay(store);
+            roll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录保存验证码
+     */
+    void appendPut(long high, long low, long answerHash, long expireAt) {
+        Record record = RECORD.get();
+        byte[] body = record.body;
+        body[0] = PUT;
+        putLong(body, 1, high);
+        putLong(body, 9, low);
+        putLong(body, 17, expireAt);
+        putLong(body, 25, answerHash);
+        append(record, PUT_BYTES);
+    }
+
+    /**
+     * 记录删除验证码
+     */
+    void appendRemove(long high, long low) {
+        Record record = RECORD.get();
+        byte[] body = record.body;
+        body[0] = REMOVE;
+        putLong(body, 1, high);
+        putLong(body, 9, low);
+        append(record, REMOVE_BYTES);
+    }
+
+    /**
+     * 立即把已追加的记录同步到磁盘，写入已完成的旧分段随后解除映射
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Segment segment;
+            List<Segment> done = new ArrayList<>();
+            synchronized (this) {
+                segment = current;
+                for (Iterator<Segment> it = retired.iterator(); it.hasNext(); ) {
+                    Segment old = it.next();
+                    if (old.idle()) {
+                        done.add(old);
+                        it.remove();
+                    }
+                }
+            }
+            for (Segment old : done) {
+                old.buffer.force();
+                old.unmapped = true;
+                unmap(old.buffer);
+            }
+            if (segment != null && !segment.unmapped) {
+                segment.buffer.force();
+            }
+        }
+    }
+
+    /**
+     * 立即生成快照并删除快照之前的分段
+     *
+     * @throws IOException 写入失败
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            writeSnapshot();
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        long snapshotSequence;
+        synchronized (this) {
+            if (store == null || closed) {
+                return;
+            }
+            roll();
+            snapshotSequence = sequence;
+        }
+        // 旧分段force后解除映射，之后才能删除
+        flush();
+        // 切换后的写入都记录在新分段中，遍历期间的并发修改由重放新分段修正
+        Path temp = directory.resolve(name(snapshotSequence, SNAPSHOT_SUFFIX + ".tmp"));
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 65536))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            CRC32 checksum = new CRC32();
+            long now = System.currentTimeMillis();
+            long[] count = new long[1];
+            byte[] entry = new byte[PUT_BYTES];
+            store.forEach((high, low, answerHash, expireAt) -> {
+                if (expireAt <= now) {
+                    return;
+                }
+                entry[0] = PUT;
+                putLong(entry, 1, high);
+                putLong(entry, 9, low);
+                putLong(entry, 17, expireAt);
+                putLong(entry, 25, answerHash);
+                out.write(entry);
+                checksum.update(entry, 0, PUT_BYTES);
+                count[0]++;
+            });
+            out.writeByte(0);
+            out.writeLong(count[0]);
+            out.writeLong(checksum.getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(name(snapshotSequence, SNAPSHOT_SUFFIX)),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Set<Long> mapped = new HashSet<>();
+        synchronized (this) {
+            for (Segment old : retired) {
+                mapped.add(old.sequence);
+            }
+        }
+        for (Path path : list(SEGMENT_SUFFIX)) {
+            long seq = sequence(path);
+            if (seq < snapshotSequence && !mapped.contains(seq)) {
+                deleteQuietly(path);
+            }
+        }
+        for (Path path : list(SNAPSHOT_SUFFIX)) {
+            if (sequence(path) < snapshotSequence) {
+                deleteQuietly(path);
+            }
+        }
+    }
+
+    /**
+     * 删除失败（如文件仍被其他进程打开）时保留，下一次快照再删除
+     */
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // 下一次快照重试
+        }
+    }
+
+    /**
+     * 同步剩余记录并停止后台线程
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(flushIntervalMillis + snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            Segment segment = current;
+            if (segment != null && !segment.sealed) {
+                segment.sealed = true;
+                retired.add(segment);
+            }
+        }
+        // 等待已预留位置的写入完成
+        while (true) {
+            flush();
+            synchronized (this) {
+                if (retired.isEmpty()) {
+                    break;
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    private void append(Record record, int size) {
+        record.crc.reset();
+        record.crc.update(record.body, 0, size);
+        int checksum = (int) record.crc.getValue();
+        int length = HEADER_BYTES + size;
+        while (!closed) {
+            Segment segment = current;
+            if (segment.enter()) {
+                try {
+                    int position = segment.position.getAndAdd(length);
+                    if (position <= segmentBytes - length) {
+                        segment.write(position, checksum, record.body, size);
+                        return;
+                    }
+                } finally {
+                    segment.exit();
+                }
+            }
+            // 分段已满或已切换，由第一个发现的线程切换
+            try {
+                roll(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private synchronized void roll(Segment full) throws IOException {
+        if (current == full && !closed) {
+            roll();
+        }
+    }
+
+    /**
+     * 切换到新分段，旧分段留给后台线程force并解除映射，调用时持有this
+     */
+    private void roll() throws IOException {
+        sequence++;
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(directory.resolve(name(sequence, SEGMENT_SUFFIX)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        Segment old = current;
+        current = new Segment(sequence, buffer);
+        if (old != null) {
+            old.sealed = true;
+            retired.add(old);
+        }
+    }
+
+    private void replay(MemoryCaptchaStore store) throws IOException {
+        long now = System.currentTimeMillis();
+        List<Path> snapshots = list(SNAPSHOT_SUFFIX);
+        long base = 0;
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            if (loadSnapshot(snapshots.get(i), store, now)) {
+                base = sequence(snapshots.get(i));
+                break;
+            }
+        }
+        long max = base;
+        for (Path path : list(SEGMENT_SUFFIX)) {
+            long seq = sequence(path);
+            max = Math.max(max, seq);
+            if (seq >= base) {
+                replaySegment(path, store, now);
+            }
+        }
+        sequence = max;
+    }
+
+    private static boolean loadSnapshot(Path path, MemoryCaptchaStore store, long now) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            return loadSnapshot(buffer, store, now);
+        } finally {
+            unmap(buffer);
+        }
+    }
+
+    private static boolean loadSnapshot(ByteBuffer buffer, MemoryCaptchaStore store, long now) {
+        if (buffer.remaining() < 4 || buffer.getInt() != SNAPSHOT_MAGIC) {
+            return false;
+        }
+        // 先校验完整性再恢复，损坏的快照被忽略
+        CRC32 checksum = new CRC32();
+        int start = buffer.position();
+        long count = 0;
+        byte[] entry = new byte[PUT_BYTES];
+        while (true) {
+            if (buffer.remaining() == 1 + 16 && buffer.get(buffer.position()) == 0) {
+                buffer.get();
+                break;
+            }
+            if (buffer.remaining() < PUT_BYTES) {
+                return false;
+            }
+            buffer.get(entry);
+            if (entry[0] != PUT) {
+                return false;
+            }
+            checksum.update(entry, 0, PUT_BYTES);
+            count++;
+        }
+        if (buffer.getLong() != count || buffer.getLong() != checksum.getValue()) {
+            return false;
+        }
+        buffer.position(start);
+        for (long i = 0; i < count; i++) {
+            buffer.get(entry);
+            long expireAt = getLong(entry, 17);
+            if (expireAt > now) {
+                store.restore(getLong(entry, 1), getLong(entry, 9), getLong(entry, 25), expireAt);
+            }
+        }
+        return true;
+    }
+
+    private static void replaySegment(Path path, MemoryCaptchaStore store, long now) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            replaySegment(buffer, store, now);
+        } finally {
+            unmap(buffer);
+        }
+    }
+
+    private static void replaySegment(ByteBuffer buffer, MemoryCaptchaStore store, long now) {
+        CRC32 crc = new CRC32();
+        byte[] body = new byte[PUT_BYTES];
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int size = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (size < REMOVE_BYTES || size > body.length || size > buffer.remaining()) {
+                break;
+            }
+            buffer.get(body, 0, size);
+            crc.reset();
+            crc.update(body, 0, size);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            long high = getLong(body, 1);
+            long low = getLong(body, 9);
+            if (body[0] == PUT && size == PUT_BYTES) {
+                long expireAt = getLong(body, 17);
+                if (expireAt > now) {
+                    store.restore(high, low, getLong(body, 25), expireAt);
+                } else {
+                    store.forget(high, low);
+                }
+            } else if (body[0] == REMOVE && size == REMOVE_BYTES) {
+                store.forget(high, low);
+            } else {
+                break;
+            }
+        }
+    }
+
+    private List<Path> list(String suffix) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + suffix)) {
+            for (Path path : stream) {
+                if (sequence(path) >= 0) {
+                    paths.add(path);
+                }
+            }
+        }
+        paths.sort(null);
+        return Collections.unmodifiableList(paths);
+    }
+
+    private static long sequence(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.indexOf('.');
+        if (dot != 16) {
+            return -1;
+        }
+        try {
+            return Long.parseUnsignedLong(name.substring(0, dot), 16);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String name(long sequence, String suffix) {
+        return String.format("%016x%s", sequence, suffix);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 解除映射。不支持时（非HotSpot运行时）留给GC回收，删除文件推迟到下一次快照
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        Unmapper.unmap(buffer);
+    }
+
+    private static void putLong(byte[] b, int offset, long v) {
+        for (int i = 7; i >= 0; i--) {
+            b[offset + i] = (byte) v;
+            v >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] b, int offset) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = v << 8 | (b[offset + i] & 0xFF);
+        }
+        return v;
+    }
+
+    /**
+     * 一个日志分段：写入前通过CAS预留位置，writers记录正在写入的线程数
+     */
+    private static final class Segment {
+        private final long sequence;
+
+        private final MappedByteBuffer buffer;
+
+        private final AtomicInteger position = new AtomicInteger();
+
+        private final AtomicInteger writers = new AtomicInteger();
+
+        /**
+         * 已切换，不再接受新的写入
+         */
+        private volatile boolean sealed;
+
+        /**
+         * 已解除映射，只由持有flushLock的线程读写
+         */
+        private boolean unmapped;
+
+        private Segment(long sequence, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.buffer = buffer;
+        }
+
+        /**
+         * 开始写入；先登记再检查sealed，与切换线程先设置sealed再检查writers配合，
+         * 两者至少有一方能看到对方，解除映射后不会再有写入
+         *
+         * @return 已切换时返回false
+         */
+        private boolean enter() {
+            writers.incrementAndGet();
+            if (sealed) {
+                writers.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        private void exit() {
+            writers.decrementAndGet();
+        }
+
+        private boolean idle() {
+            return sealed && writers.get() == 0;
+        }
+
+        /**
+         * 在预留的位置写入记录：先写内容再写长度，长度非0的记录才被视为已写入
+         */
+        private void write(int position, int checksum, byte[] body, int size) {
+            buffer.putInt(position + 4, checksum);
+            buffer.put(position + HEADER_BYTES, body[0]);
+            for (int offset = 1; offset < size; offset += 8) {
+                buffer.putLong(position + HEADER_BYTES + offset, getLong(body, offset));
+            }
+            buffer.putInt(position, size);
+        }
+    }
+
+    /**
+     * 线程私有的记录缓冲区与校验和
+     */
+    private static final class Record {
+        private final byte[] body = new byte[PUT_BYTES];
+
+        private final CRC32 crc = new CRC32();
+    }
+
+    /**
+     * 通过反射调用运行时的解除映射方法：Java 9及以上为Unsafe.invokeCleaner，Java 8为DirectByteBuffer.cleaner().clean()
+     */
+    private static final class Unmapper {
+        private static final Object UNSAFE;
+
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        private static void unmap(MappedByteBuffer buffer) {
+            try {
+                if (INVOKE_CLEANER != null) {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                    return;
+                }
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // 留给GC回收
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import com.github.zh9131101.utils.RandomUtils;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * 验证码存储
+ * </p>
+ * 以不透明的验证码id为键保存验证码答案。验证码校验通过后即删除，不能重复使用；
+ * 校验失败时默认同样删除，实现可允许有限次数的失败重试。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 10:02
+ * @since 1.1
+ */
+
+public interface ICaptchaStore {
+    /**
+     * 生成新的验证码id，默认为32位十六进制随机字符串。实现可在id中携带路由信息
+     *
+     * @return 验证码id
+     */
+    default String nextId() {
+        return RandomUtils.getUuid();
+    }
+
+    /**
+     * 保存验证码
+     *
+     * @param id     验证码id
+     * @param answer 验证码答案
+     * @param ttl    有效时长（秒）
+     */
+    void put(String id, String answer, long ttl);
+
+    /**
+     * 校验并删除验证码，忽略大小写及首尾空白。校验通过后验证码一定被删除
+     *
+     * @param id      验证码id
+     * @param captcha 用户输入的验证码
+     * @return true or false
+     */
+    boolean verifyAndRemove(String id, String captcha);
+
+    /**
+     * 删除验证码
+     *
+     * @param id 验证码id
+     */
+    void remove(String id);
+
+    /**
+     * 批量保存验证码
+     *
+     * @param answers 验证码id与答案
+     * @param ttl     有效时长（秒）
+     */
+    default void putAll(Map<String, String> answers, long ttl) {
+        for (Map.Entry<String, String> entry : answers.entrySet()) {
+            put(entry.getKey(), entry.getValue(), ttl);
+        }
+    }
+
+    /**
+     * 批量校验并删除验证码
+     *
+     * @param captchas 验证码id与用户输入的验证码
+     * @return 验证码id与校验结果
+     */
+    default Map<String, Boolean> verifyAndRemoveAll(Map<String, String> captchas) {
+        Map<String, Boolean> result = new LinkedHashMap<>(captchas.size() * 2);
+        for (Map.Entry<String, String> entry : captchas.entrySet()) {
+            result.put(entry.getKey(), verifyAndRemove(entry.getKey(), entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * 批量删除验证码
+     *
+     * @param ids 验证码id
+     */
+    default void removeAll(Collection<String> ids) {
+        for (String id : ids) {
+            remove(id);
+        }
+    }
+}
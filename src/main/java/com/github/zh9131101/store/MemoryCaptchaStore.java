@@ -0,0 +1,556 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * 进程内验证码存储
+ * </p>
+ * 按128位验证码id分段，每个分段是独立加锁的开放寻址（线性探测）哈希表，没有全局锁，
+ * 校验与删除在分段锁内原子完成，验证码不能被使用两次。答案只保存8字节的{@link AnswerDigest}摘要。过期由每个分段的分层时间轮处理，
+ * 随读写操作惰性推进，无需为每个条目创建定时器，也无需全表扫描。被校验、删除或淘汰的验证码在时间轮中留下的失效条目
+ * 超过分段验证码数量的两倍时批量清除，时间轮占用的内存与容量上限成正比。可选配置{@link CaptchaJournal}，重启后恢复未过期的验证码。
+ * <p>
+ * 可选配置容量上限，防止只获取不校验的请求使验证码无限增长。分段写满后由CLOCK（二次机会）指针淘汰：
+ * 新写入的验证码带引用位，指针经过时清除引用位，第二次经过仍未被校验的验证码视为已放弃并被淘汰，已过期的直接清理，
+ * 每次写入的淘汰开销为均摊O(1)。配置最短驻留时间后，若待淘汰的验证码驻留未满该时间（说明正遭遇获取洪峰），
+ * 拒绝写入新验证码而不是淘汰用户正在填写的验证码。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 11:05
+ * @since 1.1
+ */
+
+public class MemoryCaptchaStore implements ICaptchaStore {
+    /**
+     * 默认时间轮刻度（毫秒）
+     */
+    public static final long DEFAULT_TICK_MILLIS = 1000;
+
+    private static final int DEFAULT_SEGMENT_CAPACITY = 64;
+
+    /**
+     * 时间轮条目数超过分段验证码数量两倍加该值时清除失效条目
+     */
+    private static final int COMPACT_SLACK = 64;
+
+    private final Segment[] segments;
+
+    private final int segmentMask;
+
+    private final long tickMillis;
+
+    private final CaptchaJournal journal;
+
+    private final AnswerDigest digest;
+
+    /**
+     * 每个分段的容量上限
+     */
+    private final int segmentMaximum;
+
+    private final int minResidencySeconds;
+
+    private final long epoch;
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder rejections = new LongAdder();
+
+    public MemoryCaptchaStore() {
+        this(Runtime.getRuntime().availableProcessors() * 4, DEFAULT_SEGMENT_CAPACITY, DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     * 创建进程内验证码存储
+     *
+     * @param concurrencyLevel 分段数，向上取整为2的幂
+     * @param segmentCapacity  每个分段的初始容量
+     * @param tickMillis       时间轮刻度（毫秒）
+     */
+    public MemoryCaptchaStore(int concurrencyLevel, int segmentCapacity, long tickMillis) {
+        this(concurrencyLevel, segmentCapacity, tickMillis, null);
+    }
+
+    /**
+     * 创建带预写日志的进程内验证码存储，构造时从日志恢复未过期的验证码
+     *
+     * @param concurrencyLevel 分段数，向上取整为2的幂
+     * @param segmentCapacity  每个分段的初始容量
+     * @param tickMillis       时间轮刻度（毫秒）
+     * @param journal          预写日志，可为null
+     */
+    public MemoryCaptchaStore(int concurrencyLevel, int segmentCapacity, long tickMillis, CaptchaJournal journal) {
+        this(concurrencyLevel, segmentCapacity, tickMillis, 0, 0, journal);
+    }
+
+    /**
+     * 创建容量有限的进程内验证码存储
+     *
+     * @param maximumSize 验证码数量上限
+     */
+    public MemoryCaptchaStore(int maximumSize) {
+        this(Runtime.getRuntime().availableProcessors() * 4, DEFAULT_SEGMENT_CAPACITY, DEFAULT_TICK_MILLIS, maximumSize, 0, null);
+    }
+
+    /**
+     * 创建进程内验证码存储
+     *
+     * @param concurrencyLevel    分段数，向上取整为2的幂
+     * @param segmentCapacity     每个分段的初始容量
+     * @param tickMillis          时间轮刻度（毫秒）
+     * @param maximumSize         验证码数量上限，按分段均分，0表示不限制
+     * @param minResidencySeconds 最短驻留时间（秒），待淘汰的验证码驻留未满该时间时拒绝写入，0表示总是淘汰
+     * @param journal             预写日志，可为null
+     */
+    public MemoryCaptchaStore(int concurrencyLevel, int segmentCapacity, long tickMillis,
+                              int maximumSize, int minResidencySeconds, CaptchaJournal journal) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive: " + tickMillis);
+        }
+        if (maximumSize < 0 || minResidencySeconds < 0) {
+            throw new IllegalArgumentException("maximumSize and minResidencySeconds must not be negative");
+        }
+        int count = tableSize(Math.max(concurrencyLevel, 1));
+        this.segmentMask = count - 1;
+        this.tickMillis = tickMillis;
+        this.segmentMaximum = maximumSize > 0 ? Math.max(1, (maximumSize + count - 1) / count) : Integer.MAX_VALUE;
+        this.minResidencySeconds = minResidencySeconds;
+        this.epoch = System.currentTimeMillis();
+        this.segments = new Segment[count];
+        long nowTick = System.currentTimeMillis() / tickMillis;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(tableSize(Math.max(segmentCapacity, 2)), nowTick);
+        }
+        this.journal = journal;
+        this.digest = journal != null ? journal.loadDigest() : AnswerDigest.random();
+        if (journal != null) {
+            journal.open(this);
+        }
+    }
+
+    @Override
+    public void put(String id, String answer, long ttl) {
+        long high = CaptchaIds.high(id);
+        long low = CaptchaIds.low(id);
+        long now = System.currentTimeMillis();
+        long expireAt = ttl > 0 ? now + ttl * 1000 : Long.MAX_VALUE;
+        long hash = CaptchaIds.mix(high, low);
+        segmentFor(hash).put(hash, high, low, digest.hash(answer), expireAt, now, true);
+    }
+
+    @Override
+    public boolean verifyAndRemove(String id, String captcha) {
+        long high = CaptchaIds.high(id);
+        long low = CaptchaIds.low(id);
+        long hash = CaptchaIds.mix(high, low);
+        if (captcha == null) {
+            segmentFor(hash).remove(hash, high, low, 0, System.currentTimeMillis(), true);
+            return false;
+        }
+        return segmentFor(hash).remove(hash, high, low, digest.hash(captcha), System.currentTimeMillis(), true);
+    }
+
+    @Override
+    public void remove(String id) {
+        long high = CaptchaIds.high(id);
+        long low = CaptchaIds.low(id);
+        long hash = CaptchaIds.mix(high, low);
+        segmentFor(hash).remove(hash, high, low, 0, System.currentTimeMillis(), true);
+    }
+
+    /**
+     * 当前保存的验证码数量（包含已过期但尚未清理的验证码）
+     *
+     * @return 数量
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * 因容量上限被淘汰的验证码数量
+     *
+     * @return 数量
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * 因容量上限被拒绝写入的验证码数量
+     *
+     * @return 数量
+     */
+    public long rejectionCount() {
+        return rejections.sum();
+    }
+
+    /**
+     * 推进所有分段的时间轮，清理已过期的验证码
+     */
+    public void cleanUp() {
+        long now = System.currentTimeMillis();
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                segment.expire(now);
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    /**
+     * 时间轮中登记的条目数量，包含已失效但尚未清除的条目
+     */
+    int scheduledCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                count += segment.wheel.size();
+            } finally {
+                segment.unlock();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 遍历所有验证码，逐个分段加锁，遍历期间其他分段可正常读写
+     */
+    void forEach(EntryVisitor visitor) throws IOException {
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                for (int i = 0; i < segment.expires.length; i++) {
+                    if (segment.expires[i] != 0) {
+                        visitor.visit(segment.keys[i << 1], segment.keys[(i << 1) + 1], segment.answers[i], segment.expires[i]);
+                    }
+                }
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    /**
+     * 恢复验证码，不写日志
+     */
+    void restore(long high, long low, long answerHash, long expireAt) {
+        long hash = CaptchaIds.mix(high, low);
+        segmentFor(hash).put(hash, high, low, answerHash, expireAt, System.currentTimeMillis(), false);
+    }
+
+    /**
+     * 删除恢复的验证码，不写日志
+     */
+    void forget(long high, long low) {
+        long hash = CaptchaIds.mix(high, low);
+        segmentFor(hash).remove(hash, high, low, 0, System.currentTimeMillis(), false);
+    }
+
+    private Segment segmentFor(long hash) {
+        // 分段使用高32位，分段内槽位使用低位
+        return segments[(int) (hash >>> 32) & segmentMask];
+    }
+
+    private int seconds(long now) {
+        return (int) ((now - epoch) / 1000);
+    }
+
+    private static int tableSize(int n) {
+        int size = Integer.highestOneBit(Math.min(n, 1 << 30));
+        return size < n ? size << 1 : size;
+    }
+
+    /**
+     * 遍历验证码的回调
+     */
+    interface EntryVisitor {
+        void visit(long high, long low, long answerHash, long expireAt) throws IOException;
+    }
+
+    /**
+     * 分段：线性探测哈希表 + 分层时间轮，所有操作在分段锁内完成。日志在分段锁内追加，同一id的记录顺序与操作顺序一致
+     */
+    private final class Segment extends ReentrantLock implements TimingWheel.Expiry, TimingWheel.Retention {
+        private static final long serialVersionUID = -3914625089614870255L;
+
+        /**
+         * id，每个槽占两个long
+         */
+        private long[] keys;
+
+        /**
+         * 答案摘要
+         */
+        private long[] answers;
+
+        /**
+         * 过期时间（毫秒），0表示空槽
+         */
+        private long[] expires;
+
+        /**
+         * CLOCK引用位
+         */
+        private boolean[] refs;
+
+        /**
+         * 写入时间（相对epoch的秒数）
+         */
+        private int[] born;
+
+        /**
+         * 时间轮中登记的到期tick，0表示未登记
+         */
+        private long[] ticks;
+
+        private int hand;
+
+        private int mask;
+
+        private int size;
+
+        private final TimingWheel wheel;
+
+        private long now;
+
+        private Segment(int capacity, long nowTick) {
+            allocate(capacity);
+            this.wheel = new TimingWheel(nowTick);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity << 1];
+            answers = new long[capacity];
+            expires = new long[capacity];
+            refs = new boolean[capacity];
+            born = new int[capacity];
+            ticks = new long[capacity];
+            mask = capacity - 1;
+            hand = 0;
+        }
+
+        void put(long hash, long high, long low, long answer, long expireAt, long now, boolean journaled) {
+            lock();
+            try {
+                expire(now);
+                int slot = find(hash, high, low);
+                if (slot < 0) {
+                    if (size >= segmentMaximum && !evict(now)) {
+                        rejections.increment();
+                        return;
+                    }
+                    if (size + 1 > (expires.length >> 1) + (expires.length >> 2)) {
+                        resize();
+                    }
+                    slot = insertSlot(hash);
+                    keys[slot << 1] = high;
+                    keys[(slot << 1) + 1] = low;
+                    ticks[slot] = 0;
+                    size++;
+                }
+                answers[slot] = answer;
+                expires[slot] = expireAt;
+                refs[slot] = true;
+                born[slot] = seconds(now);
+                if (expireAt == Long.MAX_VALUE) {
+                    ticks[slot] = 0;
+                } else {
+                    long expireTick = Math.max((expireAt + tickMillis - 1) / tickMillis, wheel.currentTick() + 1);
+                    if (ticks[slot] != expireTick) {
+                        ticks[slot] = expireTick;
+                        wheel.schedule(high, low, expireTick);
+                        if (wheel.size() > (size << 1) + COMPACT_SLACK) {
+                            wheel.compact(this);
+                        }
+                    }
+                }
+                if (journaled && journal != null) {
+                    journal.appendPut(high, low, answer, expireAt);
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * 删除验证码，返回删除的是否为未过期且摘要一致的答案
+         */
+        boolean remove(long hash, long high, long low, long answer, long now, boolean journaled) {
+            lock();
+            try {
+                expire(now);
+                int slot = find(hash, high, low);
+                if (slot < 0) {
+                    return false;
+                }
+                boolean matched = expires[slot] > now && AnswerDigest.equal(answers[slot], answer);
+                delete(slot);
+                if (journaled && journal != null) {
+                    journal.appendRemove(high, low);
+                }
+                return matched;
+            } finally {
+                unlock();
+            }
+        }
+
+        void expire(long now) {
+            long nowTick = now / tickMillis;
+            if (nowTick > wheel.currentTick()) {
+                this.now = now;
+                wheel.advance(nowTick, this);
+            }
+        }
+
+        @Override
+        public void expire(long high, long low) {
+            int slot = find(CaptchaIds.mix(high, low), high, low);
+            if (slot >= 0 && expires[slot] <= now) {
+                delete(slot);
+            }
+        }
+
+        @Override
+        public boolean retain(long high, long low, long expireTick) {
+            int slot = find(CaptchaIds.mix(high, low), high, low);
+            return slot >= 0 && ticks[slot] == expireTick;
+        }
+
+        /**
+         * 移动CLOCK指针腾出一个槽位：已过期的直接删除，带引用位的清除引用位，否则淘汰。
+         * 指针最多转两圈（第一圈清除全部引用位），分段已满时均摊每次写入只移动常数步
+         *
+         * @return 待淘汰的验证码驻留未满最短驻留时间时返回false
+         */
+        private boolean evict(long now) {
+            for (int steps = expires.length << 1; steps > 0; steps--) {
+                int slot = hand;
+                hand = (hand + 1) & mask;
+                if (expires[slot] == 0) {
+                    continue;
+                }
+                if (expires[slot] > now) {
+                    if (refs[slot]) {
+                        refs[slot] = false;
+                        continue;
+                    }
+                    if (seconds(now) - born[slot] < minResidencySeconds) {
+                        return false;
+                    }
+                    evictions.increment();
+                }
+                long high = keys[slot << 1];
+                long low = keys[(slot << 1) + 1];
+                delete(slot);
+                if (journal != null) {
+                    journal.appendRemove(high, low);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private int find(long hash, long high, long low) {
+            int slot = (int) hash & mask;
+            while (expires[slot] != 0) {
+                if (keys[slot << 1] == high && keys[(slot << 1) + 1] == low) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private int insertSlot(long hash) {
+            int slot = (int) hash & mask;
+            while (expires[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * 删除槽位，后移删除（backward shift），不留墓碑。条目越过CLOCK指针移到指针之后已扫过的槽位时，
+         * 指针退回到该槽位，避免这一圈漏扫该条目
+         */
+        private void delete(int slot) {
+            int hole = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (expires[next] == 0) {
+                    break;
+                }
+                int home = (int) CaptchaIds.mix(keys[next << 1], keys[(next << 1) + 1]) & mask;
+                // home不在(hole, next]区间内时，可以移动到hole
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole << 1] = keys[next << 1];
+                    keys[(hole << 1) + 1] = keys[(next << 1) + 1];
+                    answers[hole] = answers[next];
+                    expires[hole] = expires[next];
+                    refs[hole] = refs[next];
+                    born[hole] = born[next];
+                    ticks[hole] = ticks[next];
+                    int passed = (hand - hole) & mask;
+                    if (passed != 0 && passed <= ((next - hole) & mask)) {
+                        hand = hole;
+                    }
+                    hole = next;
+                }
+            }
+            expires[hole] = 0;
+            size--;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldAnswers = answers;
+            long[] oldExpires = expires;
+            boolean[] oldRefs = refs;
+            int[] oldBorn = born;
+            long[] oldTicks = ticks;
+            allocate(oldExpires.length << 1);
+            for (int i = 0; i < oldExpires.length; i++) {
+                if (oldExpires[i] != 0) {
+                    long high = oldKeys[i << 1];
+                    long low = oldKeys[(i << 1) + 1];
+                    int slot = insertSlot(CaptchaIds.mix(high, low));
+                    keys[slot << 1] = high;
+                    keys[(slot << 1) + 1] = low;
+                    answers[slot] = oldAnswers[i];
+                    expires[slot] = oldExpires[i];
+                    refs[slot] = oldRefs[i];
+                    born[slot] = oldBorn[i];
+                    ticks[slot] = oldTicks[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * 堆外验证码存储
+ * </p>
+ * 验证码以固定长度记录保存在直接内存（direct ByteBuffer）中，记录本身组成开放寻址（线性探测）哈希表，
+ * 堆内只保留每个分段的一个ByteBuffer，GC停顿不随未校验验证码数量增长。
+ * <pre>
+ * 记录结构（32字节）：
+ *   id高64位(8) id低64位(8) 答案摘要(8) 过期时间(4，相对创建时间的秒数) 失败次数(2) 状态(2)
+ * </pre>
+ * 过期记录在探测时顺带删除，写入时按游标增量清理少量槽位，{@link #cleanUp()}可全量清理。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 13:20
+ * @since 1.1
+ */
+
+public class OffHeapCaptchaStore implements ICaptchaStore {
+
+    private static final int RECORD_SIZE = 32;
+
+    private static final int OFFSET_HIGH = 0;
+
+    private static final int OFFSET_LOW = 8;
+
+    private static final int OFFSET_HASH = 16;
+
+    private static final int OFFSET_EXPIRE = 24;
+
+    private static final int OFFSET_ATTEMPTS = 28;
+
+    private static final int OFFSET_STATE = 30;
+
+    private static final short STATE_EMPTY = 0;
+
+    private static final short STATE_USED = 1;
+
+    /**
+     * 单个分段最大槽数，保证单个ByteBuffer不超过1GB
+     */
+    private static final int MAX_SEGMENT_SLOTS = 1 << 25;
+
+    /**
+     * 每次写入时增量清理的槽数
+     */
+    private static final int SWEEP_STEP = 4;
+
+    private final Segment[] segments;
+
+    private final int segmentMask;
+
+    /**
+     * 过期时间基准（毫秒）
+     */
+    private final long epoch;
+
+    /**
+     * 答案摘要
+     */
+    private final AnswerDigest digest;
+
+    /**
+     * 允许校验失败的次数，达到后删除
+     */
+    private final int maxAttempts;
+
+    /**
+     * 单个分段最大槽数
+     */
+    private final int maxSegmentSlots;
+
+    public OffHeapCaptchaStore() {
+        this(Runtime.getRuntime().availableProcessors() * 4, 1024, 1);
+    }
+
+    /**
+     * 创建堆外验证码存储
+     *
+     * @param concurrencyLevel 分段数，向上取整为2的幂
+     * @param segmentCapacity  每个分段的初始槽数
+     * @param maxAttempts      允许校验失败的次数，达到后删除，1表示一次性校验
+     */
+    public OffHeapCaptchaStore(int concurrencyLevel, int segmentCapacity, int maxAttempts) {
+        this(concurrencyLevel, segmentCapacity, maxAttempts, MAX_SEGMENT_SLOTS);
+    }
+
+    /**
+     * 创建堆外验证码存储，限制单个分段的最大槽数
+     *
+     * @param concurrencyLevel 分段数，向上取整为2的幂
+     * @param segmentCapacity  每个分段的初始槽数
+     * @param maxAttempts      允许校验失败的次数，达到后删除，1表示一次性校验
+     * @param maxSegmentSlots  单个分段最大槽数，向上取整为2的幂，不超过{@value #MAX_SEGMENT_SLOTS}
+     */
+    OffHeapCaptchaStore(int concurrencyLevel, int segmentCapacity, int maxAttempts, int maxSegmentSlots) {
+        if (maxAttempts < 1 || maxAttempts > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("maxAttempts out of range: " + maxAttempts);
+        }
+        int count = tableSize(Math.max(concurrencyLevel, 1));
+        this.segments = new Segment[count];
+        this.segmentMask = count - 1;
+        this.epoch = System.currentTimeMillis();
+        this.digest = AnswerDigest.random();
+        this.maxAttempts = maxAttempts;
+        this.maxSegmentSlots = Math.min(tableSize(Math.max(maxSegmentSlots, 2)), MAX_SEGMENT_SLOTS);
+        int capacity = Math.min(tableSize(Math.max(segmentCapacity, 2)), this.maxSegmentSlots);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    @Override
+    public void put(String id, String answer, long ttl) {
+        long high = CaptchaIds.high(id);
+        long low = CaptchaIds.low(id);
+        long hash = CaptchaIds.mix(high, low);
+        int now = now();
+        long expire = ttl > 0 ? now + ttl : Integer.MAX_VALUE;
+        segmentFor(hash).put(hash, high, low, digest.hash(answer), (int) Math.min(expire, Integer.MAX_VALUE), now);
+    }
+
+    @Override
+    public boolean verifyAndRemove(String id, String captcha) {
+        long high = CaptchaIds.high(id);
+        long low = CaptchaIds.low(id);
+        long hash = CaptchaIds.mix(high, low);
+        if (captcha == null) {
+            return segmentFor(hash).verify(hash, high, low, false, 0, now());
+        }
+        return segmentFor(hash).verify(hash, high, low, true, digest.hash(captcha), now());
+    }
+
+    @Override
+    public void remove(String id) {
+        long high = CaptchaIds.high(id);
+        long low = CaptchaIds.low(id);
+        long hash = CaptchaIds.mix(high, low);
+        segmentFor(hash).remove(hash, high, low);
+    }
+
+    /**
+     * 当前保存的验证码数量（包含已过期但尚未清理的验证码）
+     *
+     * @return 数量
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * 已分配的直接内存字节数
+     *
+     * @return 字节数
+     */
+    public long capacityBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.table.capacity();
+        }
+        return bytes;
+    }
+
+    /**
+     * 全量清理已过期的验证码
+     */
+    public void cleanUp() {
+        int now = now();
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                segment.sweep(segment.mask + 1, now);
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    private int now() {
+        return (int) ((System.currentTimeMillis() - epoch) / 1000);
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 32) & segmentMask];
+    }
+
+    private static int tableSize(int n) {
+        int size = Integer.highestOneBit(Math.min(n, 1 << 30));
+        return size < n ? size << 1 : size;
+    }
+
+    /**
+     * 分段：一个直接内存表，所有操作在分段锁内完成
+     */
+    private final class Segment extends ReentrantLock {
+        private static final long serialVersionUID = 2954873207715349123L;
+
+        private ByteBuffer table;
+
+        private int mask;
+
+        private int size;
+
+        /**
+         * 增量清理游标
+         */
+        private int cursor;
+
+        private Segment(int capacity) {
+            this.table = allocate(capacity);
+            this.mask = capacity - 1;
+        }
+
+        void put(long hash, long high, long low, long answerHash, int expire, int now) {
+            lock();
+            try {
+                sweep(SWEEP_STEP, now);
+                int slot = find(hash, high, low, now);
+                if (slot < 0) {
+                    if (size + 1 > ((mask + 1) >> 1) + ((mask + 1) >> 2)) {
+                        resize(now);
+                    }
+                    slot = insertSlot(hash);
+                    int base = slot * RECORD_SIZE;
+                    table.putLong(base + OFFSET_HIGH, high);
+                    table.putLong(base + OFFSET_LOW, low);
+                    table.putShort(base + OFFSET_STATE, STATE_USED);
+                    size++;
+                }
+                int base = slot * RECORD_SIZE;
+                table.putLong(base + OFFSET_HASH, answerHash);
+                table.putInt(base + OFFSET_EXPIRE, expire);
+                table.putShort(base + OFFSET_ATTEMPTS, (short) 0);
+            } finally {
+                unlock();
+            }
+        }
+
+        boolean verify(long hash, long high, long low, boolean present, long answerHash, int now) {
+            lock();
+            try {
+                int slot = find(hash, high, low, now);
+                if (slot < 0) {
+                    return false;
+                }
+                int base = slot * RECORD_SIZE;
+                if (present && AnswerDigest.equal(table.getLong(base + OFFSET_HASH), answerHash)) {
+                    delete(slot);
+                    return true;
+                }
+                int attempts = table.getShort(base + OFFSET_ATTEMPTS) + 1;
+                if (attempts >= maxAttempts) {
+                    delete(slot);
+                } else {
+                    table.putShort(base + OFFSET_ATTEMPTS, (short) attempts);
+                }
+                return false;
+            } finally {
+                unlock();
+            }
+        }
+
+        void remove(long hash, long high, long low) {
+            lock();
+            try {
+                int slot = find(hash, high, low, Integer.MIN_VALUE);
+                if (slot >= 0) {
+                    delete(slot);
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * 查找记录，探测途中遇到的过期记录直接删除
+         */
+        private int find(long hash, long high, long low, int now) {
+            int slot = (int) hash & mask;
+            while (table.getShort(slot * RECORD_SIZE + OFFSET_STATE) != STATE_EMPTY) {
+                int base = slot * RECORD_SIZE;
+                if (table.getInt(base + OFFSET_EXPIRE) <= now) {
+                    // 删除后当前槽位可能被后移的记录填充，原地继续探测
+                    delete(slot);
+                    continue;
+                }
+                if (table.getLong(base + OFFSET_HIGH) == high && table.getLong(base + OFFSET_LOW) == low) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private int insertSlot(long hash) {
+            int slot = (int) hash & mask;
+            while (table.getShort(slot * RECORD_SIZE + OFFSET_STATE) != STATE_EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * 删除槽位，后移删除（backward shift），不留墓碑
+         */
+        private void delete(int slot) {
+            int hole = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                int nextBase = next * RECORD_SIZE;
+                if (table.getShort(nextBase + OFFSET_STATE) == STATE_EMPTY) {
+                    break;
+                }
+                int home = (int) CaptchaIds.mix(table.getLong(nextBase + OFFSET_HIGH), table.getLong(nextBase + OFFSET_LOW)) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    copy(next, hole);
+                    hole = next;
+                }
+            }
+            table.putShort(hole * RECORD_SIZE + OFFSET_STATE, STATE_EMPTY);
+            size--;
+        }
+
+        private void copy(int from, int to) {
+            int src = from * RECORD_SIZE;
+            int dst = to * RECORD_SIZE;
+            for (int i = 0; i < RECORD_SIZE; i += 8) {
+                table.putLong(dst + i, table.getLong(src + i));
+            }
+        }
+
+        /**
+         * 从游标开始清理指定数量的槽位
+         */
+        private void sweep(int steps, int now) {
+            int i = 0;
+            while (i < steps && size > 0) {
+                int base = cursor * RECORD_SIZE;
+                if (table.getShort(base + OFFSET_STATE) != STATE_EMPTY && table.getInt(base + OFFSET_EXPIRE) <= now) {
+                    // 删除后当前槽位可能被后移的记录填充，游标不前进
+                    delete(cursor);
+                } else {
+                    cursor = (cursor + 1) & mask;
+                    i++;
+                }
+            }
+        }
+
+        private void resize(int now) {
+            if (mask + 1 >= maxSegmentSlots) {
+                sweep(mask + 1, now);
+                if (size + 1 > mask) {
+                    throw new IllegalStateException("off-heap captcha store segment is full: " + size);
+                }
+                return;
+            }
+            ByteBuffer old = table;
+            int oldCapacity = mask + 1;
+            table = allocate(oldCapacity << 1);
+            mask = (oldCapacity << 1) - 1;
+            cursor = 0;
+            size = 0;
+            for (int i = 0; i < oldCapacity; i++) {
+                int base = i * RECORD_SIZE;
+                if (old.getShort(base + OFFSET_STATE) != STATE_EMPTY && old.getInt(base + OFFSET_EXPIRE) > now) {
+                    long high = old.getLong(base + OFFSET_HIGH);
+                    long low = old.getLong(base + OFFSET_LOW);
+                    int dst = insertSlot(CaptchaIds.mix(high, low)) * RECORD_SIZE;
+                    for (int j = 0; j < RECORD_SIZE; j += 8) {
+                        table.putLong(dst + j, old.getLong(base + j));
+                    }
+                    size++;
+                }
+            }
+        }
+
+        private ByteBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.nativeOrder());
+        }
+    }
+}
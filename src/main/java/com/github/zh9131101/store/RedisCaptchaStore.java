@@ -0,0 +1,490 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>
+ * 基于Redis的验证码存储
+ * </p>
+ * 直接使用RESP协议通过一个socket连接访问Redis，不依赖任何客户端库。保存使用SET EX，
+ * 校验使用GETDEL（Redis 6.2及以上），读取与删除原子完成，验证码不能被使用两次。
+ * 调用线程只把命令放入队列，由一个I/O线程把并发到达的命令合并为一批流水线（pipeline）写出，
+ * 一次刷新、按顺序读取回复，高并发时一次网络往返即可完成多个请求。连接断开后下一批命令自动重连。
+ * <p>
+ * 与session相同，默认保存答案原文；通过{@link AnswerDigest#setDefault}配置密钥后保存"#"加16位十六进制的答案摘要，
+ * 共用同一个Redis的各节点需配置相同的密钥。配置之前保存的原文答案仍可校验。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 15:40
+ * @since 1.1
+ */
+
+public class RedisCaptchaStore implements ICaptchaStore, Closeable {
+    /**
+     * 默认键前缀
+     */
+    public static final String DEFAULT_KEY_PREFIX = "captcha:";
+
+    /**
+     * 默认超时时间（毫秒）
+     */
+    public static final int DEFAULT_TIMEOUT_MILLIS = 3000;
+
+    /**
+     * 一批流水线最多包含的命令数
+     */
+    private static final int MAX_BATCH = 512;
+
+    /**
+     * 答案摘要的前缀，答案本身不会包含该字符
+     */
+    private static final String DIGEST_PREFIX = "#";
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private static final byte[] SET = bytes("SET");
+
+    private static final byte[] EX = bytes("EX");
+
+    private static final byte[] GETDEL = bytes("GETDEL");
+
+    private static final byte[] DEL = bytes("DEL");
+
+    private final String host;
+
+    private final int port;
+
+    private final String password;
+
+    private final int database;
+
+    private final String keyPrefix;
+
+    private final int timeoutMillis;
+
+    private final LinkedBlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+
+    private final Thread worker;
+
+    private volatile boolean closed;
+
+    /**
+     * 以下连接状态只由I/O线程访问；socket另由close()关闭，使正在等待回复的I/O线程立即结束
+     */
+    private volatile Socket socket;
+
+    private OutputStream out;
+
+    private InputStream in;
+
+    public RedisCaptchaStore(String host, int port) {
+        this(host, port, null, 0, DEFAULT_KEY_PREFIX, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 创建Redis验证码存储
+     *
+     * @param host          主机
+     * @param port          端口
+     * @param password      密码，为null时不认证
+     * @param database      数据库序号
+     * @param keyPrefix     键前缀
+     * @param timeoutMillis 连接、读取及等待回复的超时时间（毫秒）
+     */
+    public RedisCaptchaStore(String host, int port, String password, int database, String keyPrefix, int timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("timeoutMillis must be positive: " + timeoutMillis);
+        }
+        this.host = host;
+        this.port = port;
+        this.password = password;
+        this.database = database;
+        this.keyPrefix = keyPrefix == null ? "" : keyPrefix;
+        this.timeoutMillis = timeoutMillis;
+        this.worker = new Thread(this::run, "captcha-redis-store");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void put(String id, String answer, long ttl) {
+        await(submit(set(id, answer, ttl)));
+    }
+
+    @Override
+    public boolean verifyAndRemove(String id, String captcha) {
+        return matches(await(submit(new Command(GETDEL, key(id)))), captcha);
+    }
+
+    @Override
+    public void remove(String id) {
+        await(submit(new Command(DEL, key(id))));
+    }
+
+    @Override
+    public void putAll(Map<String, String> answers, long ttl) {
+        List<Command> commands = new ArrayList<>(answers.size());
+        for (Map.Entry<String, String> entry : answers.entrySet()) {
+            commands.add(submit(set(entry.getKey(), entry.getValue(), ttl)));
+        }
+        for (Command command : commands) {
+            await(command);
+        }
+    }
+
+    @Override
+    public Map<String, Boolean> verifyAndRemoveAll(Map<String, String> captchas) {
+        List<Command> commands = new ArrayList<>(captchas.size());
+        for (String id : captchas.keySet()) {
+            commands.add(submit(new Command(GETDEL, key(id))));
+        }
+        Map<String, Boolean> result = new LinkedHashMap<>(captchas.size() * 2);
+        int i = 0;
+        for (Map.Entry<String, String> entry : captchas.entrySet()) {
+            result.put(entry.getKey(), matches(await(commands.get(i++)), entry.getValue()));
+        }
+        return result;
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        byte[][] args = new byte[ids.size() + 1][];
+        args[0] = DEL;
+        int i = 1;
+        for (String id : ids) {
+            args[i++] = key(id);
+        }
+        await(submit(new Command(args)));
+    }
+
+    /**
+     * 关闭连接并停止I/O线程，尚未完成的命令以异常结束，之后提交的命令直接抛出IllegalStateException
+     */
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+        Socket s = socket;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException ignored) {
+                // 连接已不可用
+            }
+        }
+        try {
+            worker.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Command set(String id, String answer, long ttl) {
+        AnswerDigest digest = AnswerDigest.getDefault();
+        byte[] value = bytes(digest == null ? answer.trim() : DIGEST_PREFIX + hex(digest.hash(answer)));
+        if (ttl > 0) {
+            return new Command(SET, key(id), value, EX, bytes(Long.toString(ttl)));
+        }
+        return new Command(SET, key(id), value);
+    }
+
+    private static boolean matches(Object answer, String captcha) {
+        if (!(answer instanceof String) || captcha == null) {
+            return false;
+        }
+        String stored = (String) answer;
+        if (stored.length() == DIGEST_PREFIX.length() + 16 && stored.startsWith(DIGEST_PREFIX)) {
+            AnswerDigest digest = AnswerDigest.getDefault();
+            try {
+                return digest != null && digest.matches(Long.parseUnsignedLong(stored.substring(DIGEST_PREFIX.length()), 16), captcha);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return AnswerDigest.matchesPlain(stored, captcha);
+    }
+
+    private static String hex(long hash) {
+        String hex = Long.toHexString(hash);
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    private byte[] key(String id) {
+        return bytes(keyPrefix + id);
+    }
+
+    private Command submit(Command command) {
+        if (closed) {
+            throw new IllegalStateException("captcha store is closed");
+        }
+        queue.add(command);
+        // close()之后I/O线程已经或即将清空队列；入队晚于清空时命令不会再被取出，由提交线程结束
+        if (closed && queue.remove(command)) {
+            throw new IllegalStateException("captcha store is closed");
+        }
+        return command;
+    }
+
+    private Object await(Command command) {
+        try {
+            return command.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for redis reply", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("redis reply timed out after " + timeoutMillis + "ms", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+            throw new IllegalStateException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * I/O线程：取出队列中已到达的全部命令（至多MAX_BATCH个），一次写出并按顺序读取回复
+     */
+    private void run() {
+        List<Command> batch = new ArrayList<>(MAX_BATCH);
+        while (!closed) {
+            try {
+                Command first = queue.take();
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                execute(batch);
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        disconnect();
+        IOException closedException = new IOException("captcha store is closed");
+        Command command;
+        while ((command = queue.poll()) != null) {
+            command.completeExceptionally(closedException);
+        }
+    }
+
+    private void execute(List<Command> batch) {
+        try {
+            connect();
+            for (Command command : batch) {
+                write(command.args);
+            }
+            out.flush();
+            for (Command command : batch) {
+                Object reply = read();
+                if (reply instanceof ErrorReply) {
+                    command.completeExceptionally(new IllegalStateException(((ErrorReply) reply).message));
+                } else {
+                    command.complete(reply);
+                }
+            }
+        } catch (IOException e) {
+            disconnect();
+            IOException cause = closed ? new IOException("captcha store is closed", e) : e;
+            for (Command command : batch) {
+                command.completeExceptionally(cause);
+            }
+        }
+    }
+
+    private void connect() throws IOException {
+        if (socket != null) {
+            return;
+        }
+        Socket s = new Socket();
+        try {
+            s.setTcpNoDelay(true);
+            s.setSoTimeout(timeoutMillis);
+            s.connect(new InetSocketAddress(host, port), timeoutMillis);
+            socket = s;
+            if (closed) {
+                throw new IOException("captcha store is closed");
+            }
+            out = new BufferedOutputStream(s.getOutputStream(), 8192);
+            in = new BufferedInputStream(s.getInputStream(), 8192);
+            if (password != null) {
+                handshake(bytes("AUTH"), bytes(password));
+            }
+            if (database != 0) {
+                handshake(bytes("SELECT"), bytes(Integer.toString(database)));
+            }
+        } catch (IOException e) {
+            disconnect();
+            throw e;
+        }
+    }
+
+    private void handshake(byte[]... args) throws IOException {
+        write(args);
+        out.flush();
+        Object reply = read();
+        if (reply instanceof ErrorReply) {
+            throw new IOException(((ErrorReply) reply).message);
+        }
+    }
+
+    private void disconnect() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 连接已不可用
+            }
+        }
+        socket = null;
+        out = null;
+        in = null;
+    }
+
+    private void write(byte[][] args) throws IOException {
+        out.write('*');
+        writeNumber(args.length);
+        for (byte[] arg : args) {
+            out.write('$');
+            writeNumber(arg.length);
+            out.write(arg);
+            out.write(CRLF);
+        }
+    }
+
+    private void writeNumber(long n) throws IOException {
+        if (n < 10) {
+            out.write((int) ('0' + n));
+        } else {
+            out.write(bytes(Long.toString(n)));
+        }
+        out.write(CRLF);
+    }
+
+    private Object read() throws IOException {
+        int type = in.read();
+        switch (type) {
+            case '+':
+                return readLine();
+            case '-':
+                return new ErrorReply(readLine());
+            case ':':
+                return Long.parseLong(readLine());
+            case '$': {
+                int length = Integer.parseInt(readLine());
+                if (length < 0) {
+                    return null;
+                }
+                byte[] data = new byte[length];
+                readFully(data);
+                readLine();
+                return new String(data, StandardCharsets.UTF_8);
+            }
+            case '*': {
+                int length = Integer.parseInt(readLine());
+                if (length < 0) {
+                    return null;
+                }
+                Object[] items = new Object[length];
+                for (int i = 0; i < length; i++) {
+                    items[i] = read();
+                }
+                return items;
+            }
+            case -1:
+                throw new EOFException("redis connection closed");
+            default:
+                throw new IOException("unexpected redis reply type: " + (char) type);
+        }
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c == -1) {
+                throw new EOFException("redis connection closed");
+            }
+            sb.append((char) c);
+        }
+        if (in.read() != '\n') {
+            throw new IOException("malformed redis reply");
+        }
+        return sb.toString();
+    }
+
+    private void readFully(byte[] data) throws IOException {
+        int n = 0;
+        while (n < data.length) {
+            int r = in.read(data, n, data.length - n);
+            if (r < 0) {
+                throw new EOFException("redis connection closed");
+            }
+            n += r;
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 待执行的命令及其回复
+     */
+    private static final class Command extends CompletableFuture<Object> {
+        private final byte[][] args;
+
+        private Command(byte[]... args) {
+            this.args = args;
+        }
+    }
+
+    /**
+     * Redis错误回复
+     */
+    private static final class ErrorReply {
+        private final String message;
+
+        private ErrorReply(String message) {
+            this.message = message;
+        }
+    }
+}
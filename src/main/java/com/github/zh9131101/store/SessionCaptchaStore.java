@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import com.github.zh9131101.constant.CaptchaConst;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import java.io.Serializable;
+
+/**
+ * <p>
+ * 基于HttpSession的验证码存储
+ * </p>
+ * 与当前请求绑定，每个请求创建一个实例。只有保存验证码时才会创建session，校验与删除不会创建session。
+ * 默认保存答案原文；通过{@link AnswerDigest#setDefault}配置密钥后只保存答案摘要，
+ * 此时session在集群间复制或持久化后由其他进程校验时，各节点需配置相同的密钥。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 10:05
+ * @since 1.1
+ */
+
+public class SessionCaptchaStore implements ICaptchaStore {
+
+    private final HttpServletRequest request;
+
+    public SessionCaptchaStore(HttpServletRequest request) {
+        this.request = request;
+    }
+
+    @Override
+    public void put(String id, String answer, long ttl) {
+        long expireAt = ttl > 0 ? System.currentTimeMillis() + ttl * 1000 : Long.MAX_VALUE;
+        AnswerDigest digest = AnswerDigest.getDefault();
+        Entry entry = digest == null ? new Entry(0, answer.trim(), expireAt) : new Entry(digest.hash(answer), null, expireAt);
+        request.getSession().setAttribute(attributeName(id), entry);
+    }
+
+    @Override
+    public boolean verifyAndRemove(String id, String captcha) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return false;
+        }
+        String name = attributeName(id);
+        Object value = session.getAttribute(name);
+        if (!(value instanceof Entry)) {
+            return false;
+        }
+        session.removeAttribute(name);
+        Entry entry = (Entry) value;
+        if (entry.expireAt <= System.currentTimeMillis() || captcha == null) {
+            return false;
+        }
+        if (entry.plain != null) {
+            return AnswerDigest.matchesPlain(entry.plain, captcha);
+        }
+        AnswerDigest digest = AnswerDigest.getDefault();
+        return digest != null && digest.matches(entry.answer, captcha);
+    }
+
+    @Override
+    public void remove(String id) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.removeAttribute(attributeName(id));
+        }
+    }
+
+    private static String attributeName(String id) {
+        return CaptchaConst.SESSION_KEY + ":" + id;
+    }
+
+    /**
+     * session中保存的验证码
+     */
+    private static class Entry implements Serializable {
+        private static final long serialVersionUID = -2206357911829466590L;
+
+        /**
+         * 答案摘要
+         */
+        private final long answer;
+
+        /**
+         * 答案原文，保存摘要时为null
+         */
+        private final String plain;
+
+        private final long expireAt;
+
+        private Entry(long answer, String plain, long expireAt) {
+            this.answer = answer;
+            this.plain = plain;
+            this.expireAt = expireAt;
+        }
+    }
+}
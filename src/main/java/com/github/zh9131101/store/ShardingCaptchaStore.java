@@ -0,0 +1,467 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * 分片验证码存储
+ * </p>
+ * 把验证码按一致性哈希环（带虚拟节点）分布到多个后端存储，增删节点时只有少量验证码改变归属。
+ * {@link #nextId()}生成的id前4个十六进制字符是主节点的标识（节点名的16位哈希），路由时直接按标识找到主节点，
+ * 签发后节点增减也不影响已签发验证码的路由；不带有效标识的id按哈希环路由。
+ * 可选把验证码复制到环上之后的节点：主节点不可用（抛出异常）时由副本校验；校验后同时删除副本（读修复），副本不会被再次使用。
+ * 删除失败的节点记录墓碑，节点恢复后先补删墓碑中的验证码再参与校验，不可用期间被副本校验的验证码不会在主节点恢复后被再次使用；
+ * 保存失败的节点同样记录下来，校验时跳过该节点，由保存成功的副本校验，避免恢复后的主节点把正确答案判为不存在并删除副本。
+ * 墓碑与保存失败的记录只保存在当前进程内，数量与节点不可用期间的请求量成正比，保存失败的记录在验证码过期后清理。
+ * 带标识的id的副本从主节点自己的虚拟节点出发顺时针选取，节点增减时副本与主节点一样稳定。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 18:50
+ * @since 1.1
+ */
+
+public class ShardingCaptchaStore implements ICaptchaStore {
+    /**
+     * 默认每个节点的虚拟节点数
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final int MISSING_PRUNE_SIZE = 1024;
+
+    private final ICaptchaStore[] nodes;
+
+    private final String[] names;
+
+    /**
+     * 环上的点，升序
+     */
+    private final long[] points;
+
+    /**
+     * 环上每个点所属的节点
+     */
+    private final int[] owners;
+
+    /**
+     * 节点标识到节点序号，-1表示不存在
+     */
+    private final int[] hints = new int[1 << 16];
+
+    private final int[] tokens;
+
+    private final int replicas;
+
+    /**
+     * 每个节点删除失败、待补删的验证码id
+     */
+    private final Set<String>[] tombstones;
+
+    /**
+     * 每个节点保存失败的验证码id及其过期时间（毫秒）
+     */
+    private final Map<String, Long>[] missing;
+
+    /**
+     * 每个节点下次清理过期保存失败记录的数量阈值
+     */
+    private final int[] missingPruneAt;
+
+    /**
+     * 每个节点的虚拟节点在环上的下标
+     */
+    private final int[][] nodePoints;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * 创建分片验证码存储，节点名依次为node-0、node-1……
+     *
+     * @param nodes 后端存储
+     */
+    public ShardingCaptchaStore(List<? extends ICaptchaStore> nodes) {
+        this(named(nodes), DEFAULT_VIRTUAL_NODES, 1);
+    }
+
+    /**
+     * 创建分片验证码存储
+     *
+     * @param nodes        节点名与后端存储，节点名决定在环上的位置，各应用节点需配置相同
+     * @param virtualNodes 每个节点的虚拟节点数
+     * @param replicas     每个验证码保存的节点数（含主节点）
+     */
+    @SuppressWarnings("unchecked")
+    public ShardingCaptchaStore(Map<String, ? extends ICaptchaStore> nodes, int virtualNodes, int replicas) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("at least one node is required");
+        }
+        if (virtualNodes < 1 || replicas < 1) {
+            throw new IllegalArgumentException("virtualNodes and replicas must be positive");
+        }
+        int count = nodes.size();
+        this.nodes = new ICaptchaStore[count];
+        this.names = new String[count];
+        this.tokens = new int[count];
+        this.replicas = Math.min(replicas, count);
+        this.tombstones = new Set[count];
+        this.missing = new Map[count];
+        this.missingPruneAt = new int[count];
+        Arrays.fill(hints, -1);
+        int i = 0;
+        for (Map.Entry<String, ? extends ICaptchaStore> entry : nodes.entrySet()) {
+            this.nodes[i] = entry.getValue();
+            this.names[i] = entry.getKey();
+            int token = (int) (hash(entry.getKey(), 0) & 0xFFFF);
+            if (hints[token] >= 0) {
+                throw new IllegalArgumentException("node names " + names[hints[token]] + " and "
+                        + entry.getKey() + " share a routing hint, rename one of them");
+            }
+            hints[token] = i;
+            tokens[i] = token;
+            tombstones[i] = ConcurrentHashMap.newKeySet();
+            missing[i] = new ConcurrentHashMap<>();
+            missingPruneAt[i] = MISSING_PRUNE_SIZE;
+            i++;
+        }
+        long[][] ring = new long[count * virtualNodes][];
+        int n = 0;
+        for (int node = 0; node < count; node++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                ring[n++] = new long[]{hash(names[node], v + 1), node};
+            }
+        }
+        Arrays.sort(ring, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[ring.length];
+        this.owners = new int[ring.length];
+        this.nodePoints = new int[count][virtualNodes];
+        int[] filled = new int[count];
+        for (int k = 0; k < ring.length; k++) {
+            points[k] = ring[k][0];
+            owners[k] = (int) ring[k][1];
+            nodePoints[owners[k]][filled[owners[k]]++] = k;
+        }
+    }
+
+    /**
+     * 生成id：前4个字符为主节点标识，其余为随机数
+     */
+    @Override
+    public String nextId() {
+        long high = random.nextLong();
+        long low = random.nextLong();
+        int node = owners[ringIndex(CaptchaIds.mix(high, low))];
+        high = high & 0x0000FFFFFFFFFFFFL | (long) tokens[node] << 48;
+        char[] id = new char[32];
+        for (int k = 15; k >= 0; k--) {
+            id[k] = HEX[(int) (high & 0xF)];
+            id[16 + k] = HEX[(int) (low & 0xF)];
+            high >>>= 4;
+            low >>>= 4;
+        }
+        return new String(id);
+    }
+
+    @Override
+    public void put(String id, String answer, long ttl) {
+        RuntimeException failure = null;
+        boolean stored = false;
+        int[] route = route(id);
+        boolean[] failed = new boolean[route.length];
+        for (int k = 0; k < route.length; k++) {
+            try {
+                nodes[route[k]].put(id, answer, ttl);
+                stored = true;
+            } catch (RuntimeException e) {
+                failed[k] = true;
+                failure = e;
+            }
+        }
+        if (!stored) {
+            throw failure;
+        }
+        for (int k = 0; k < route.length; k++) {
+            if (failed[k]) {
+                markMissing(route[k], id, ttl);
+            }
+        }
+    }
+
+    @Override
+    public boolean verifyAndRemove(String id, String captcha) {
+        int[] route = route(id);
+        boolean verified = false;
+        boolean answered = false;
+        RuntimeException failure = null;
+        for (int node : route) {
+            // 保存失败的节点没有该验证码，其结果不可信；保存时也可能已写入，按删除失败处理
+            boolean absent = missing[node].remove(id) != null;
+            try {
+                if (answered) {
+                    // 读修复：结果已确定，删除其余副本
+                    nodes[node].remove(id);
+                } else if (absent) {
+                    tombstones[node].add(id);
+                } else {
+                    settle(node);
+                    verified = nodes[node].verifyAndRemove(id, captcha);
+                    answered = true;
+                }
+            } catch (RuntimeException e) {
+                tombstones[node].add(id);
+                failure = e;
+            }
+        }
+        if (!answered && failure != null) {
+            throw failure;
+        }
+        return verified;
+    }
+
+    @Override
+    public void remove(String id) {
+        RuntimeException failure = null;
+        boolean removed = false;
+        for (int node : route(id)) {
+            missing[node].remove(id);
+            try {
+                nodes[node].remove(id);
+                removed = true;
+            } catch (RuntimeException e) {
+                tombstones[node].add(id);
+                failure = e;
+            }
+        }
+        if (!removed) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 按节点分组后调用各节点的批量保存，与逐个保存一样容忍部分节点失败
+     */
+    @Override
+    public void putAll(Map<String, String> answers, long ttl) {
+        List<Map<String, String>> groups = groups();
+        for (Map.Entry<String, String> entry : answers.entrySet()) {
+            for (int node : route(entry.getKey())) {
+                groups.get(node).put(entry.getKey(), entry.getValue());
+            }
+        }
+        RuntimeException failure = null;
+        boolean[] failed = new boolean[nodes.length];
+        for (int node = 0; node < nodes.length; node++) {
+            if (!groups.get(node).isEmpty()) {
+                try {
+                    nodes[node].putAll(groups.get(node), ttl);
+                } catch (RuntimeException e) {
+                    failed[node] = true;
+                    failure = e;
+                }
+            }
+        }
+        if (failure == null) {
+            return;
+        }
+        for (String id : answers.keySet()) {
+            boolean stored = false;
+            for (int node : route(id)) {
+                stored |= !failed[node];
+            }
+            if (!stored) {
+                throw failure;
+            }
+        }
+        for (int node = 0; node < nodes.length; node++) {
+            if (failed[node]) {
+                for (String id : groups.get(node).keySet()) {
+                    markMissing(node, id, ttl);
+                }
+            }
+        }
+    }
+
+    /**
+     * 未复制时按节点分组后调用各节点的批量校验，复制时逐个校验以便故障转移与读修复
+     */
+    @Override
+    public Map<String, Boolean> verifyAndRemoveAll(Map<String, String> captchas) {
+        if (replicas > 1) {
+            return ICaptchaStore.super.verifyAndRemoveAll(captchas);
+        }
+        List<Map<String, String>> groups = groups();
+        for (Map.Entry<String, String> entry : captchas.entrySet()) {
+            groups.get(route(entry.getKey())[0]).put(entry.getKey(), entry.getValue());
+        }
+        Map<String, Boolean> verified = new HashMap<>(captchas.size() * 2);
+        for (int node = 0; node < nodes.length; node++) {
+            if (!groups.get(node).isEmpty()) {
+                settle(node);
+                verified.putAll(nodes[node].verifyAndRemoveAll(groups.get(node)));
+            }
+        }
+        Map<String, Boolean> result = new LinkedHashMap<>(captchas.size() * 2);
+        for (String id : captchas.keySet()) {
+            result.put(id, Boolean.TRUE.equals(verified.get(id)));
+        }
+        return result;
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        List<List<String>> groups = new ArrayList<>(nodes.length);
+        for (int node = 0; node < nodes.length; node++) {
+            groups.add(new ArrayList<>());
+        }
+        for (String id : ids) {
+            for (int node : route(id)) {
+                groups.get(node).add(id);
+            }
+        }
+        RuntimeException failure = null;
+        boolean removed = false;
+        for (int node = 0; node < nodes.length; node++) {
+            if (!groups.get(node).isEmpty()) {
+                try {
+                    nodes[node].removeAll(groups.get(node));
+                    removed = true;
+                } catch (RuntimeException e) {
+                    tombstones[node].addAll(groups.get(node));
+                    failure = e;
+                }
+            }
+        }
+        if (!removed && failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 记录保存失败的验证码，记录数翻倍时清理已过期的记录
+     */
+    private void markMissing(int node, String id, long ttl) {
+        long now = System.currentTimeMillis();
+        Map<String, Long> ids = missing[node];
+        ids.put(id, ttl > 0 ? now + ttl * 1000 : Long.MAX_VALUE);
+        if (ids.size() >= missingPruneAt[node]) {
+            ids.values().removeIf(expireAt -> expireAt <= now);
+            missingPruneAt[node] = Math.max(MISSING_PRUNE_SIZE, ids.size() << 1);
+        }
+    }
+
+    /**
+     * 补删节点的墓碑，失败时抛出异常，该节点本次不参与校验
+     */
+    private void settle(int node) {
+        Set<String> pending = tombstones[node];
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(pending);
+        nodes[node].removeAll(ids);
+        pending.removeAll(ids);
+    }
+
+    /**
+     * 验证码所在的节点：主节点在前，其后为从主节点的虚拟节点出发、环上顺时针方向的其他节点
+     */
+    private int[] route(String id) {
+        long high = CaptchaIds.high(id);
+        long low = CaptchaIds.low(id);
+        long hash = CaptchaIds.mix(high, low);
+        int index = ringIndex(hash);
+        int primary = hintedNode(id, high);
+        if (primary < 0) {
+            primary = owners[index];
+        } else {
+            // 从主节点的一个虚拟节点出发，按id分散到主节点的各个虚拟节点
+            int[] own = nodePoints[primary];
+            index = own[(int) ((hash >>> 1) % own.length)];
+        }
+        int[] route = new int[replicas];
+        route[0] = primary;
+        int n = 1;
+        for (int k = 0; n < replicas && k < points.length; k++) {
+            int node = owners[(index + k) % points.length];
+            if (!contains(route, n, node)) {
+                route[n++] = node;
+            }
+        }
+        return route;
+    }
+
+    private int hintedNode(String id, long high) {
+        // 非十六进制id的high为散列值，不含标识
+        return CaptchaIds.isHexId(id) ? hints[(int) (high >>> 48)] : -1;
+    }
+
+    /**
+     * 顺时针方向第一个不小于hash的点，越过末尾时回到起点
+     */
+    private int ringIndex(long hash) {
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index == points.length ? 0 : index;
+    }
+
+    private List<Map<String, String>> groups() {
+        List<Map<String, String>> groups = new ArrayList<>(nodes.length);
+        for (int node = 0; node < nodes.length; node++) {
+            groups.add(new LinkedHashMap<>());
+        }
+        return groups;
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int k = 0; k < length; k++) {
+            if (values[k] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long hash(String name, int replica) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        return CaptchaIds.mix64(h ^ (long) replica * 0x9E3779B97F4A7C15L);
+    }
+
+    private static Map<String, ICaptchaStore> named(List<? extends ICaptchaStore> nodes) {
+        Map<String, ICaptchaStore> named = new LinkedHashMap<>(nodes.size() * 2);
+        for (int i = 0; i < nodes.size(); i++) {
+            named.put("node-" + i, nodes.get(i));
+        }
+        return named;
+    }
+}
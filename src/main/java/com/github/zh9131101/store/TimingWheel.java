@@ -0,0 +1,268 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * 分层时间轮
+ * </p>
+ * 每层64个槽，共4层，以tick为单位覆盖64^4个tick。条目以(id高64位, id低64位, 到期tick)三个long连续保存在槽数组中，
+ * 不为每个条目创建对象。高层槽在低层转完一圈时降级到低层，第0层槽到期时回调{@link Expiry}。
+ * 非线程安全，由所属存储分段在锁内调用；已被提前删除的条目不会立即从时间轮中移除，由回调方自行判断，
+ * 并在失效条目过多时调用{@link #compact(Retention)}批量清除。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 10:48
+ * @since 1.1
+ */
+
+final class TimingWheel {
+    /**
+     * 到期回调
+     */
+    interface Expiry {
+        /**
+         * 条目到期
+         *
+         * @param high id高64位
+         * @param low  id低64位
+         */
+        void expire(long high, long low);
+    }
+
+    /**
+     * 压缩时判断条目是否仍然有效
+     */
+    interface Retention {
+        /**
+         * 条目是否保留
+         *
+         * @param high       id高64位
+         * @param low        id低64位
+         * @param expireTick 登记的到期tick
+         * @return 条目对应的验证码已被删除或重新登记时返回false
+         */
+        boolean retain(long high, long low, long expireTick);
+    }
+
+    private static final int WHEEL_BITS = 6;
+
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private static final int LEVELS = 4;
+
+    private static final int INITIAL_BUCKET_SIZE = 3 * 8;
+
+    /**
+     * 槽数组回收阈值，避免洪峰过后长期占用内存
+     */
+    private static final int SHRINK_BUCKET_SIZE = 3 * 4096;
+
+    private final long[][][] buckets = new long[LEVELS][WHEEL_SIZE][];
+
+    private final int[][] counts = new int[LEVELS][WHEEL_SIZE];
+
+    private long currentTick;
+
+    private int size;
+
+    TimingWheel(long currentTick) {
+        this.currentTick = currentTick;
+    }
+
+    long currentTick() {
+        return currentTick;
+    }
+
+    /**
+     * 登记的条目数量，包含已失效但尚未清除的条目
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 登记条目
+     *
+     * @param high       id高64位
+     * @param low        id低64位
+     * @param expireTick 到期tick
+     */
+    void schedule(long high, long low, long expireTick) {
+        long delta = expireTick - currentTick;
+        if (delta < 0) {
+            expireTick = currentTick;
+            delta = 0;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) ((expireTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        long[] bucket = buckets[level][slot];
+        int count = counts[level][slot];
+        if (bucket == null) {
+            bucket = new long[INITIAL_BUCKET_SIZE];
+            buckets[level][slot] = bucket;
+        } else if (count + 3 > bucket.length) {
+            long[] grown = new long[bucket.length << 1];
+            System.arraycopy(bucket, 0, grown, 0, count);
+            bucket = grown;
+            buckets[level][slot] = bucket;
+        }
+        bucket[count] = high;
+        bucket[count + 1] = low;
+        bucket[count + 2] = expireTick;
+        counts[level][slot] = count + 3;
+        size++;
+    }
+
+    /**
+     * 推进到指定tick，回调期间到期的条目
+     *
+     * @param nowTick 当前tick
+     * @param expiry  到期回调
+     */
+    void advance(long nowTick, Expiry expiry) {
+        if (size == 0) {
+            currentTick = Math.max(currentTick, nowTick);
+            return;
+        }
+        if (nowTick - currentTick > 1L << (WHEEL_BITS * LEVELS)) {
+            // 长时间未推进，重新登记全部条目后跳到当前tick
+            rebuild(nowTick, expiry);
+            return;
+        }
+        while (currentTick < nowTick) {
+            long tick = ++currentTick;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((tick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK));
+                }
+            }
+            int slot = (int) (tick & WHEEL_MASK);
+            int count = counts[0][slot];
+            if (count > 0) {
+                long[] bucket = detach(0, slot);
+                for (int i = 0; i < count; i += 3) {
+                    expiry.expire(bucket[i], bucket[i + 1]);
+                }
+                reattach(0, slot, bucket);
+            }
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        int count = counts[level][slot];
+        if (count == 0) {
+            return;
+        }
+        long[] bucket = detach(level, slot);
+        for (int i = 0; i < count; i += 3) {
+            schedule(bucket[i], bucket[i + 1], bucket[i + 2]);
+        }
+        reattach(level, slot, bucket);
+    }
+
+    private void rebuild(long nowTick, Expiry expiry) {
+        long[] all = new long[size * 3];
+        int n = 0;
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                int count = counts[level][slot];
+                if (count > 0) {
+                    System.arraycopy(buckets[level][slot], 0, all, n, count);
+                    n += count;
+                }
+            }
+        }
+        clear();
+        currentTick = nowTick;
+        for (int i = 0; i < n; i += 3) {
+            if (all[i + 2] <= nowTick) {
+                expiry.expire(all[i], all[i + 1]);
+            } else {
+                schedule(all[i], all[i + 1], all[i + 2]);
+            }
+        }
+    }
+
+    /**
+     * 取下槽数组，回调或降级期间新登记到同一槽的条目写入新数组
+     */
+    private long[] detach(int level, int slot) {
+        long[] bucket = buckets[level][slot];
+        size -= counts[level][slot] / 3;
+        counts[level][slot] = 0;
+        buckets[level][slot] = null;
+        return bucket;
+    }
+
+    private void reattach(int level, int slot, long[] bucket) {
+        if (buckets[level][slot] == null && bucket.length <= SHRINK_BUCKET_SIZE) {
+            buckets[level][slot] = bucket;
+        }
+    }
+
+    /**
+     * 清除失效条目，槽数组明显过大时一并缩小
+     *
+     * @param retention 条目是否保留
+     */
+    void compact(Retention retention) {
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                int count = counts[level][slot];
+                if (count == 0) {
+                    continue;
+                }
+                long[] bucket = buckets[level][slot];
+                int n = 0;
+                for (int i = 0; i < count; i += 3) {
+                    if (retention.retain(bucket[i], bucket[i + 1], bucket[i + 2])) {
+                        bucket[n] = bucket[i];
+                        bucket[n + 1] = bucket[i + 1];
+                        bucket[n + 2] = bucket[i + 2];
+                        n += 3;
+                    }
+                }
+                size -= (count - n) / 3;
+                counts[level][slot] = n;
+                if (bucket.length > SHRINK_BUCKET_SIZE && n << 2 < bucket.length) {
+                    buckets[level][slot] = Arrays.copyOf(bucket, Math.max(INITIAL_BUCKET_SIZE, n << 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * 清空时间轮
+     */
+    void clear() {
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                counts[level][slot] = 0;
+                buckets[level][slot] = null;
+            }
+        }
+        size = 0;
+    }
+}
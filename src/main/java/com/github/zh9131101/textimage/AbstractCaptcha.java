@@ -16,6 +16,10 @@
 package com.github.zh9131101.textimage;
 
 import com.github.zh9131101.constant.CaptchaConst;
+import com.github.zh9131101.quantize.IQuantizer;
+import com.github.zh9131101.utils.BackgroundTiles;
+import com.github.zh9131101.utils.PixelWarp;
+import com.github.zh9131101.utils.RenderQuality;
 
 import java.awt.*;
 
@@ -111,6 +115,26 @@ public abstract class AbstractCaptcha {
      */
     protected Integer bezierCurvesCount = 2;
 
+    /**
+     * 预渲染背景：默认null，每次渲染重新绘制干扰圆、干扰线与干扰点
+     */
+    protected BackgroundTiles backgroundTiles;
+
+    /**
+     * 渲染质量：默认null，使用RendererUtils的默认质量并按负载自动降级
+     */
+    protected RenderQuality renderQuality;
+
+    /**
+     * 像素扭曲：默认null，不扭曲
+     */
+    protected PixelWarp pixelWarp;
+
+    /**
+     * GIF颜色量化器：默认null，使用采样因子180的NeuQuant
+     */
+    protected IQuantizer quantizer;
+
     public Font getFont() {
         return font;
     }
@@ -239,6 +263,38 @@ public abstract class AbstractCaptcha {
         this.bezierCurvesCount = bezierCurvesCount;
     }
 
+    public BackgroundTiles getBackgroundTiles() {
+        return backgroundTiles;
+    }
+
+    public void setBackgroundTiles(BackgroundTiles backgroundTiles) {
+        this.backgroundTiles = backgroundTiles;
+    }
+
+    public RenderQuality getRenderQuality() {
+        return renderQuality;
+    }
+
+    public void setRenderQuality(RenderQuality renderQuality) {
+        this.renderQuality = renderQuality;
+    }
+
+    public PixelWarp getPixelWarp() {
+        return pixelWarp;
+    }
+
+    public void setPixelWarp(PixelWarp pixelWarp) {
+        this.pixelWarp = pixelWarp;
+    }
+
+    public IQuantizer getQuantizer() {
+        return quantizer;
+    }
+
+    public void setQuantizer(IQuantizer quantizer) {
+        this.quantizer = quantizer;
+    }
+
     /**
      * 生成验证码
      *
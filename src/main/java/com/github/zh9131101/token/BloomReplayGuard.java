@@ -0,0 +1,261 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.token;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * 验证码id一次性使用校验（防重放）
+ * </p>
+ * 由多个按过期时间分桶的布隆过滤器组成：id按其过期时间落入固定的时间窗口，每个窗口对应一个桶，
+ * 同一个id总是命中同一个桶。窗口内的验证码全部过期后，该桶被下一轮窗口复用并清空，内存占用恒定。
+ * 置位通过CAS完成；同一个id的检查与置位在按哈希分段的锁内完成，并发提交同一个id时只有一个调用返回true，
+ * 不同id通常落在不同分段，互不等待。桶轮换时加桶锁。误判（把未使用的id当作已使用）概率由falsePositiveRate控制。
+ * <p>
+ * 过期时间晚于当前时间加有效时长与时钟偏差的id直接判为已使用，不会把桶轮换到未来的窗口，
+ * 否则伪造一个很远的过期时间即可让正常窗口的桶全部失效。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 15:02
+ * @since 1.1
+ */
+
+public class BloomReplayGuard {
+    /**
+     * 有效期被划分的窗口数
+     */
+    private static final int WINDOWS_PER_TTL = 4;
+
+    /**
+     * 标记锁的分段数，2的幂
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * 默认允许的节点间时钟偏差（秒）
+     */
+    public static final long DEFAULT_CLOCK_SKEW_SECONDS = 30;
+
+    private final Bucket[] buckets;
+
+    private final long ttlSeconds;
+
+    private final long clockSkewSeconds;
+
+    private final long windowSeconds;
+
+    private final int hashCount;
+
+    private final long seed = new SecureRandom().nextLong();
+
+    private final Object[] stripes = new Object[STRIPES];
+
+    /**
+     * 创建防重放校验
+     *
+     * @param ttlSeconds        验证码有效时长（秒）
+     * @param expectedPerSecond 预计每秒签发的验证码数量
+     * @param falsePositiveRate 可接受的误判率，如0.000001
+     */
+    public BloomReplayGuard(long ttlSeconds, long expectedPerSecond, double falsePositiveRate) {
+        this(ttlSeconds, expectedPerSecond, falsePositiveRate, DEFAULT_CLOCK_SKEW_SECONDS);
+    }
+
+    /**
+     * 创建防重放校验
+     *
+     * @param ttlSeconds        验证码有效时长（秒）
+     * @param expectedPerSecond 预计每秒签发的验证码数量
+     * @param falsePositiveRate 可接受的误判率，如0.000001
+     * @param clockSkewSeconds  签发节点的时钟最多比本节点快多少秒
+     */
+    public BloomReplayGuard(long ttlSeconds, long expectedPerSecond, double falsePositiveRate, long clockSkewSeconds) {
+        if (ttlSeconds <= 0 || expectedPerSecond <= 0) {
+            throw new IllegalArgumentException("ttlSeconds and expectedPerSecond must be positive");
+        }
+        if (clockSkewSeconds < 0) {
+            throw new IllegalArgumentException("clockSkewSeconds must not be negative: " + clockSkewSeconds);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1): " + falsePositiveRate);
+        }
+        this.ttlSeconds = ttlSeconds;
+        this.clockSkewSeconds = clockSkewSeconds;
+        this.windowSeconds = Math.max(1, (ttlSeconds + WINDOWS_PER_TTL - 1) / WINDOWS_PER_TTL);
+        // 同时存活的窗口数（包括时钟偏差），额外保留一个用于轮换
+        int count = (int) ((ttlSeconds + clockSkewSeconds + windowSeconds - 1) / windowSeconds) + 2;
+        double expected = (double) expectedPerSecond * windowSeconds;
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int words = tableSize((int) Math.min((bits + 63) >>> 6, 1 << 25));
+        this.hashCount = Math.max(1, (int) Math.round((double) words * 64 / expected * ln2));
+        this.buckets = new Bucket[count];
+        for (int i = 0; i < count; i++) {
+            buckets[i] = new Bucket(words);
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * 标记id为已使用
+     *
+     * @param id       id字节数组
+     * @param offset   id起始位置，读取16字节
+     * @param expireAt 过期时间（秒）
+     * @return 首次使用返回true，已使用（或误判）返回false
+     */
+    public boolean markIfAbsent(byte[] id, int offset, long expireAt) {
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 8; i++) {
+            high = high << 8 | (id[offset + i] & 0xFF);
+            low = low << 8 | (id[offset + 8 + i] & 0xFF);
+        }
+        return markIfAbsent(high, low, expireAt);
+    }
+
+    /**
+     * 标记id为已使用
+     *
+     * @param high     id高64位
+     * @param low      id低64位
+     * @param expireAt 过期时间（秒）
+     * @return 首次使用返回true，已使用（或误判）返回false
+     */
+    public boolean markIfAbsent(long high, long low, long expireAt) {
+        long now = System.currentTimeMillis() / 1000;
+        if (expireAt <= now || expireAt > now + ttlSeconds + clockSkewSeconds) {
+            // 已过期，或过期时间不可能由正常签发得到
+            return false;
+        }
+        long window = expireAt / windowSeconds;
+        Bucket bucket = buckets[(int) (window % buckets.length)];
+        if (!bucket.acquire(window, now / windowSeconds + buckets.length - 1)) {
+            // 窗口已被轮换，验证码早已过期
+            return false;
+        }
+        long h1 = mix64(high ^ seed);
+        long h2 = mix64(low + seed) | 1;
+        long mask = (long) bucket.bits.length() * 64 - 1;
+        // 同一个id总是落在同一分段：逐位各自CAS时，并发的两次提交可能各自置位不同的位而都返回true
+        synchronized (stripes[(int) (h1 >>> 58) & (STRIPES - 1)]) {
+            boolean absent = false;
+            for (int i = 0; i < hashCount && !absent; i++) {
+                int index = (int) ((h1 + i * h2) & mask);
+                absent = (bucket.bits.get(index >>> 6) & 1L << index) == 0;
+            }
+            if (!absent) {
+                return false;
+            }
+            for (int i = 0; i < hashCount; i++) {
+                int index = (int) ((h1 + i * h2) & mask);
+                long bit = 1L << index;
+                int word = index >>> 6;
+                long old = bucket.bits.get(word);
+                // 其他分段可能同时修改同一个字
+                while ((old & bit) == 0 && !bucket.bits.compareAndSet(word, old, old | bit)) {
+                    old = bucket.bits.get(word);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 验证码有效时长
+     *
+     * @return 秒
+     */
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * 允许的时钟偏差
+     *
+     * @return 秒
+     */
+    public long getClockSkewSeconds() {
+        return clockSkewSeconds;
+    }
+
+    /**
+     * 所有桶占用的字节数
+     *
+     * @return 字节数
+     */
+    public long sizeInBytes() {
+        return (long) buckets.length * buckets[0].bits.length() * 8;
+    }
+
+    private static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int tableSize(int n) {
+        int size = Integer.highestOneBit(Math.max(n, 1));
+        return size < n ? size << 1 : size;
+    }
+
+    /**
+     * 一个时间窗口的布隆过滤器
+     */
+    private static final class Bucket {
+        private final AtomicLongArray bits;
+
+        private volatile long window = -1;
+
+        private Bucket(int words) {
+            this.bits = new AtomicLongArray(words);
+        }
+
+        /**
+         * 切换到指定窗口，窗口较新时清空后复用
+         *
+         * @param target    窗口
+         * @param maxWindow 允许切换到的最新窗口，更新的窗口会占用仍在使用的桶
+         * @return 当前桶属于该窗口时返回true
+         */
+        private boolean acquire(long target, long maxWindow) {
+            long current = window;
+            if (current == target) {
+                return true;
+            }
+            if (current > target || target > maxWindow) {
+                return false;
+            }
+            synchronized (this) {
+                if (window < target) {
+                    for (int i = 0; i < bits.length(); i++) {
+                        bits.set(i, 0);
+                    }
+                    window = target;
+                }
+                return window == target;
+            }
+        }
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.token;
+
+import com.github.zh9131101.store.AnswerDigest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * 无状态验证码令牌
+ * </p>
+ * 令牌携带随机id、过期时间以及验证码答案的HMAC，服务端无需保存任何状态，任意节点均可校验。
+ * 签名密钥由主密钥按轮换周期派生（HMAC-SHA256(主密钥, 周期序号)），配置相同主密钥的节点无需协调即可得到相同的轮换密钥。
+ * <pre>
+ * 令牌结构（42字节，base64url编码后56个字符）：
+ *   版本(1) 密钥序号(1) 随机id(16) 过期时间(8，秒) HMAC-SHA256(密钥, 前26字节 + 规范化答案)截取16字节
+ * </pre>
+ * 每个线程复用一个Mac实例与缓冲区，签发与校验不产生中间字符串。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 14:10
+ * @since 1.1
+ */
+
+public class CaptchaTokenSigner {
+    /**
+     * 令牌字节长度
+     */
+    public static final int TOKEN_BYTES = 42;
+
+    /**
+     * 令牌字符长度
+     */
+    public static final int TOKEN_LENGTH = TOKEN_BYTES / 3 * 4;
+
+    /**
+     * 默认密钥轮换周期（秒）
+     */
+    public static final long DEFAULT_ROTATION_SECONDS = 3600;
+
+    private static final int ID_OFFSET = 2;
+
+    private static final int ID_BYTES = 16;
+
+    private static final byte VERSION = 1;
+
+    private static final int EXPIRE_OFFSET = ID_OFFSET + ID_BYTES;
+
+    private static final int PAYLOAD_BYTES = EXPIRE_OFFSET + 8;
+
+    private static final int TAG_BYTES = TOKEN_BYTES - PAYLOAD_BYTES;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final char[] ENCODE = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < ENCODE.length; i++) {
+            DECODE[ENCODE[i]] = i;
+        }
+    }
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final SecretKeySpec masterKey;
+
+    private final long rotationSeconds;
+
+    /**
+     * 派生密钥缓存，按密钥序号（周期序号低8位）索引
+     */
+    private final DerivedKey[] keys = new DerivedKey[256];
+
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    /**
+     * 使用随机主密钥，仅适用于单节点
+     */
+    public CaptchaTokenSigner() {
+        this(randomSecret(), DEFAULT_ROTATION_SECONDS);
+    }
+
+    /**
+     * 创建令牌签名器
+     *
+     * @param masterSecret    主密钥，集群内各节点需相同，建议至少32字节
+     * @param rotationSeconds 密钥轮换周期（秒），需大于验证码有效时长
+     */
+    public CaptchaTokenSigner(byte[] masterSecret, long rotationSeconds) {
+        if (masterSecret == null || masterSecret.length < 16) {
+            throw new IllegalArgumentException("master secret must be at least 16 bytes");
+        }
+        if (rotationSeconds <= 0) {
+            throw new IllegalArgumentException("rotationSeconds must be positive: " + rotationSeconds);
+        }
+        this.masterKey = new SecretKeySpec(masterSecret.clone(), ALGORITHM);
+        this.rotationSeconds = rotationSeconds;
+    }
+
+    /**
+     * 签发令牌
+     *
+     * @param answer 验证码答案
+     * @param ttl    有效时长（秒）
+     * @return 令牌
+     */
+    public String issue(String answer, long ttl) {
+        State s = state.get();
+        byte[] token = s.token;
+        long now = System.currentTimeMillis() / 1000;
+        long period = now / rotationSeconds;
+        token[0] = VERSION;
+        token[1] = (byte) period;
+        s.nextId(random);
+        System.arraycopy(s.id, 0, token, ID_OFFSET, ID_BYTES);
+        putLong(token, EXPIRE_OFFSET, now + Math.max(ttl, 1));
+        sign(s, period, answer, token, PAYLOAD_BYTES);
+        char[] chars = s.chars;
+        encode(token, chars);
+        return new String(chars);
+    }
+
+    /**
+     * 校验令牌与用户输入的验证码
+     *
+     * @param token   令牌
+     * @param captcha 用户输入的验证码
+     * @return true or false
+     */
+    public boolean verify(CharSequence token, String captcha) {
+        return verify(token, captcha, null);
+    }
+
+    /**
+     * 校验令牌与用户输入的验证码，并通过防重放校验保证令牌只能使用一次。
+     * 只有MAC校验通过（令牌由本方签发且答案正确）后才标记为已使用，伪造的令牌不会占用防重放校验的位；
+     * 答案错误时令牌不会失效，应配合限流限制同一令牌的尝试次数
+     *
+     * @param token   令牌
+     * @param captcha 用户输入的验证码
+     * @param guard   防重放校验，可为null；过期时间晚于当前时间加其有效时长与时钟偏差的令牌校验失败，
+     *                签发时的有效时长不能超过防重放校验的有效时长
+     * @return true or false
+     */
+    public boolean verify(CharSequence token, String captcha, BloomReplayGuard guard) {
+        if (token == null || captcha == null || token.length() != TOKEN_LENGTH) {
+            return false;
+        }
+        State s = state.get();
+        byte[] bytes = s.token;
+        if (!decode(token, bytes) || bytes[0] != VERSION) {
+            return false;
+        }
+        long now = System.currentTimeMillis() / 1000;
+        long expireAt = getLong(bytes, EXPIRE_OFFSET);
+        if (expireAt <= now) {
+            return false;
+        }
+        if (guard != null && expireAt > now + guard.getTtlSeconds() + guard.getClockSkewSeconds()) {
+            // 过期时间不可能由正常签发得到，不交给防重放校验，避免伪造的令牌把桶轮换到未来的窗口
+            return false;
+        }
+        // 按密钥序号找到不晚于当前周期的最近周期
+        long current = now / rotationSeconds;
+        long period = current - ((current - (bytes[1] & 0xFF)) & 0xFF);
+        sign(s, period, captcha, s.expected, 0);
+        int diff = 0;
+        for (int i = 0; i < TAG_BYTES; i++) {
+            diff |= s.expected[i] ^ bytes[PAYLOAD_BYTES + i];
+        }
+        if (diff != 0) {
+            return false;
+        }
+        return guard == null || guard.markIfAbsent(bytes, ID_OFFSET, expireAt);
+    }
+
+    /**
+     * 计算令牌前缀与规范化答案的HMAC，写入out[offset, offset + 16)
+     */
+    private void sign(State s, long period, String answer, byte[] out, int offset) {
+        Mac mac = s.mac(key(period), period);
+        mac.update(s.token, 0, PAYLOAD_BYTES);
+        int n = normalize(answer, s);
+        mac.update(s.answer, 0, n);
+        try {
+            mac.doFinal(s.digest, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        System.arraycopy(s.digest, 0, out, offset, TAG_BYTES);
+    }
+
+    /**
+     * 按{@link AnswerDigest#normalize(CharSequence, byte[])}规范化后按UTF-8写入线程缓冲区，与存储的答案比较规则一致
+     *
+     * @return 字节数
+     */
+    private static int normalize(String answer, State s) {
+        if (s.answer.length < answer.length() * 3) {
+            s.answer = new byte[answer.length() * 3];
+        }
+        return AnswerDigest.normalize(answer, s.answer);
+    }
+
+    private DerivedKey key(long period) {
+        int slot = (int) (period & 0xFF);
+        DerivedKey key = keys[slot];
+        if (key == null || key.period != period) {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(masterKey);
+                byte[] info = new byte[8];
+                putLong(info, 0, period);
+                key = new DerivedKey(period, new SecretKeySpec(mac.doFinal(info), ALGORITHM));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+            keys[slot] = key;
+        }
+        return key;
+    }
+
+    private static void encode(byte[] src, char[] dst) {
+        int j = 0;
+        for (int i = 0; i < TOKEN_BYTES; i += 3) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+            dst[j++] = ENCODE[(bits >>> 18) & 0x3F];
+            dst[j++] = ENCODE[(bits >>> 12) & 0x3F];
+            dst[j++] = ENCODE[(bits >>> 6) & 0x3F];
+            dst[j++] = ENCODE[bits & 0x3F];
+        }
+    }
+
+    private static boolean decode(CharSequence src, byte[] dst) {
+        int j = 0;
+        for (int i = 0; i < TOKEN_LENGTH; i += 4) {
+            int bits = 0;
+            for (int k = 0; k < 4; k++) {
+                char c = src.charAt(i + k);
+                int v = c < 128 ? DECODE[c] : -1;
+                if (v < 0) {
+                    return false;
+                }
+                bits = bits << 6 | v;
+            }
+            dst[j++] = (byte) (bits >>> 16);
+            dst[j++] = (byte) (bits >>> 8);
+            dst[j++] = (byte) bits;
+        }
+        return true;
+    }
+
+    private static void putLong(byte[] b, int offset, long v) {
+        for (int i = 7; i >= 0; i--) {
+            b[offset + i] = (byte) v;
+            v >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] b, int offset) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = v << 8 | (b[offset + i] & 0xFF);
+        }
+        return v;
+    }
+
+    private static byte[] randomSecret() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return secret;
+    }
+
+    /**
+     * 某个周期的派生密钥
+     */
+    private static final class DerivedKey {
+        private final long period;
+
+        private final SecretKeySpec key;
+
+        private DerivedKey(long period, SecretKeySpec key) {
+            this.period = period;
+            this.key = key;
+        }
+    }
+
+    /**
+     * 线程私有的Mac与缓冲区
+     */
+    private static final class State {
+        private final byte[] token = new byte[TOKEN_BYTES];
+
+        private final byte[] expected = new byte[TAG_BYTES];
+
+        private final byte[] digest = new byte[32];
+
+        private final byte[] id = new byte[ID_BYTES];
+
+        private final char[] chars = new char[TOKEN_LENGTH];
+
+        private byte[] answer = new byte[32];
+
+        private Mac mac;
+
+        private long period = Long.MIN_VALUE;
+
+        private Mac mac(DerivedKey key, long period) {
+            try {
+                if (mac == null) {
+                    mac = Mac.getInstance(ALGORITHM);
+                }
+                if (this.period != period) {
+                    mac.init(key.key);
+                    this.period = period;
+                }
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void nextId(SecureRandom random) {
+            random.nextBytes(id);
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.github.zh9131101.utils;
 
+import com.github.zh9131101.metrics.RenderStage;
+import com.github.zh9131101.quantize.IQuantizer;
+import com.github.zh9131101.quantize.NeuQuantQuantizer;
+
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
@@ -8,6 +12,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
 
 /**
  * <p>
@@ -108,6 +113,33 @@ public class AnimatedGifEncoder {
      * default sample interval for quantizer
      */
     protected int sample = 10;
+    /**
+     * 颜色量化器，为null时按sample使用NeuQuant
+     */
+    protected IQuantizer quantizer;
+    /**
+     * 分阶段计时，由RendererUtils设置
+     */
+    RenderTimer timer = RenderTimer.DISABLED;
+    /**
+     * 除第一帧外只编码与上一帧不同的矩形区域，区域内未变化的像素为透明色
+     */
+    protected boolean deltaFrames = false;
+    /**
+     * 上一帧的BGR像素
+     */
+    protected byte[] prevPixels;
+    /**
+     * 当前帧编码的区域
+     */
+    protected int frameX;
+    protected int frameY;
+    protected int frameWidth;
+    protected int frameHeight;
+    /**
+     * 当前帧是否以transIndex标记未变化的像素
+     */
+    protected boolean frameTransparent;
 
     /**
      * Sets the delay time between each frame, or changes it
@@ -161,6 +193,16 @@ public class AnimatedGifEncoder {
         transparent = c;
     }
 
+    /**
+     * 设置是否只编码帧间变化的区域。开启后除第一帧外，每帧只写出与上一帧不同像素的外接矩形，
+     * 矩形内未变化的像素使用透明色，各帧的换帧方式为保留（1），显示效果与完整帧相同
+     *
+     * @param delta true为只编码变化区域
+     */
+    public void setDeltaFrames(boolean delta) {
+        deltaFrames = delta;
+    }
+
     /**
      * Adds next GIF frame.  The frame is not written immediately, but is
      * actually deferred until the next frame is received so that timing
@@ -184,8 +226,25 @@ public class AnimatedGifEncoder {
             image = im;
             // convert to correct format if necessary
             getImagePixels();
+            byte[] current = pixels;
             // build color table & map pixels
-            analyzePixels();
+            if (deltaFrames && !firstFrame) {
+                analyzeDelta();
+            } else {
+                frameX = 0;
+                frameY = 0;
+                frameWidth = width;
+                frameHeight = height;
+                frameTransparent = transparent != null;
+                analyzePixels();
+            }
+            if (deltaFrames) {
+                if (prevPixels == null || prevPixels.length != current.length) {
+                    prevPixels = new byte[current.length];
+                }
+                System.arraycopy(current, 0, prevPixels, 0, current.length);
+            }
+            timer.lap(RenderStage.QUANTIZE);
             if (firstFrame) {
                 // logical screen descriptior
                 writeLSD();
@@ -206,6 +265,7 @@ public class AnimatedGifEncoder {
             }
             // encode and write pixel data
             writePixels();
+            timer.lap(RenderStage.ENCODE);
             firstFrame = false;
         } catch (IOException e) {
             ok = false;
@@ -266,6 +326,7 @@ public class AnimatedGifEncoder {
         pixels = null;
         indexedPixels = null;
         colorTab = null;
+        prevPixels = null;
         closeStream = false;
         firstFrame = true;
     }
@@ -299,6 +360,15 @@ public class AnimatedGifEncoder {
         sample = quality;
     }
 
+    /**
+     * 设置颜色量化器，设置后{@link #setQuality}不再生效
+     *
+     * @param quantizer 为null时按setQuality的采样因子使用NeuQuant
+     */
+    public void setQuantizer(IQuantizer quantizer) {
+        this.quantizer = quantizer;
+    }
+
     /**
      * Sets the GIF frame size.  The default size is the
      * size of the first frame added if this method is
@@ -319,6 +389,8 @@ public class AnimatedGifEncoder {
         if (height < 1) {
             height = 240;
         }
+        frameWidth = width;
+        frameHeight = height;
         sizeSet = true;
     }
 
@@ -369,22 +441,15 @@ public class AnimatedGifEncoder {
         int len = pixels.length;
         int nPix = len / 3;
         indexedPixels = new byte[nPix];
-        NeuQuant nq = new NeuQuant(pixels, len, sample);
-        // initialize quantizer
         // create reduced palette
-        colorTab = nq.process();
-        // convert map from BGR to RGB
-        for (int i = 0; i < colorTab.length; i += 3) {
-            byte temp = colorTab[i];
-            colorTab[i] = colorTab[i + 2];
-            colorTab[i + 2] = temp;
-            usedEntry[i / 3] = false;
-        }
+        IQuantizer.Palette palette = quantizer().quantize(pixels, len);
+        colorTab = palette.getColorTab();
+        Arrays.fill(usedEntry, false);
         // map image pixels to new palette
         int k = 0;
         for (int i = 0; i < nPix; i++) {
             int index =
-                    nq.map(pixels[k++] & 0xff,
+                    palette.map(pixels[k++] & 0xff,
                             pixels[k++] & 0xff,
                             pixels[k++] & 0xff);
             usedEntry[index] = true;
@@ -399,6 +464,102 @@ public class AnimatedGifEncoder {
         }
     }
 
+    /**
+     * 与上一帧比较，得到变化像素的外接矩形，只用变化的像素生成调色板；
+     * 矩形内未变化的像素映射到一个未使用的调色板项并作为透明色。调色板256项都被使用时不使用透明色
+     */
+    protected void analyzeDelta() {
+        byte[] cur = pixels;
+        byte[] prev = prevPixels;
+        int minX = width;
+        int minY = height;
+        int maxX = -1;
+        int maxY = -1;
+        for (int y = 0; y < height; y++) {
+            int k = y * width * 3;
+            for (int x = 0; x < width; x++, k += 3) {
+                if (cur[k] != prev[k] || cur[k + 1] != prev[k + 1] || cur[k + 2] != prev[k + 2]) {
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y);
+                    maxY = y;
+                }
+            }
+        }
+        if (maxX < 0) {
+            // 与上一帧相同，写出一个透明像素
+            minX = 0;
+            minY = 0;
+            maxX = 0;
+            maxY = 0;
+        }
+        frameX = minX;
+        frameY = minY;
+        frameWidth = maxX - minX + 1;
+        frameHeight = maxY - minY + 1;
+        int nPix = frameWidth * frameHeight;
+        indexedPixels = new byte[nPix];
+        byte[] changed = new byte[nPix * 3];
+        int len = 0;
+        for (int y = minY; y <= maxY; y++) {
+            int k = (y * width + minX) * 3;
+            for (int x = minX; x <= maxX; x++, k += 3) {
+                if (cur[k] != prev[k] || cur[k + 1] != prev[k + 1] || cur[k + 2] != prev[k + 2]) {
+                    changed[len++] = cur[k];
+                    changed[len++] = cur[k + 1];
+                    changed[len++] = cur[k + 2];
+                }
+            }
+        }
+        colorDepth = 8;
+        palSize = 7;
+        pixels = null;
+        if (len == 0) {
+            colorTab = new byte[3];
+            transIndex = 0;
+            frameTransparent = true;
+            return;
+        }
+        IQuantizer.Palette palette = quantizer().quantize(changed, len);
+        colorTab = palette.getColorTab();
+        Arrays.fill(usedEntry, false);
+        int i = 0;
+        for (int y = minY; y <= maxY; y++) {
+            int k = (y * width + minX) * 3;
+            for (int x = minX; x <= maxX; x++, k += 3, i++) {
+                if (cur[k] != prev[k] || cur[k + 1] != prev[k + 1] || cur[k + 2] != prev[k + 2]) {
+                    int index = palette.map(cur[k] & 0xff, cur[k + 1] & 0xff, cur[k + 2] & 0xff);
+                    usedEntry[index] = true;
+                    indexedPixels[i] = (byte) index;
+                }
+            }
+        }
+        // 调色板不足256项时，写出时补齐的项同样未使用
+        int unused = -1;
+        for (int e = 0; e < usedEntry.length && unused < 0; e++) {
+            if (!usedEntry[e]) {
+                unused = e;
+            }
+        }
+        frameTransparent = unused >= 0;
+        i = 0;
+        for (int y = minY; y <= maxY; y++) {
+            int k = (y * width + minX) * 3;
+            for (int x = minX; x <= maxX; x++, k += 3, i++) {
+                if (cur[k] == prev[k] && cur[k + 1] == prev[k + 1] && cur[k + 2] == prev[k + 2]) {
+                    indexedPixels[i] = (byte) (frameTransparent ? unused : palette.map(cur[k] & 0xff, cur[k + 1] & 0xff, cur[k + 2] & 0xff));
+                }
+            }
+        }
+        if (frameTransparent) {
+            transIndex = unused;
+        }
+    }
+
+    private IQuantizer quantizer() {
+        return quantizer == null ? new NeuQuantQuantizer(sample) : quantizer;
+    }
+
     /**
      * Returns index of palette color closest to c
      *
@@ -463,7 +624,11 @@ public class AnimatedGifEncoder {
         out.write(4);
         int transp;
         int disp;
-        if (transparent == null) {
+        if (deltaFrames) {
+            // 后续帧叠加在当前帧之上
+            transp = frameTransparent ? 1 : 0;
+            disp = 1;
+        } else if (transparent == null) {
             transp = 0;
             // dispose = no action
             disp = 0;
@@ -499,12 +664,12 @@ public class AnimatedGifEncoder {
     protected void writeImageDesc() throws IOException {
         // image separator
         out.write(0x2c);
-        // image position x,y = 0,0
-        writeShort(0);
-        writeShort(0);
+        // image position
+        writeShort(frameX);
+        writeShort(frameY);
         // image size
-        writeShort(width);
-        writeShort(height);
+        writeShort(frameWidth);
+        writeShort(frameHeight);
         // packed fields
         if (firstFrame) {
             // no LCT  - GCT is used for first (or only) frame
@@ -583,7 +748,7 @@ public class AnimatedGifEncoder {
      * @throws IOException IO异常
      */
     protected void writePixels() throws IOException {
-        Encoder encoder = new Encoder(width, height, indexedPixels, colorDepth);
+        Encoder encoder = new Encoder(frameWidth, frameHeight, indexedPixels, colorDepth);
         encoder.encode(out);
     }
 
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.utils;
+
+import com.github.zh9131101.textimage.AbstractCaptcha;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * 预渲染背景
+ * </p>
+ * 创建时按验证码的背景色与干扰数量绘制若干张宽高各为验证码两倍的噪声纹理，干扰密度与单张验证码相同，
+ * 并为每张纹理预先生成水平翻转与色相轮换（RGB通道轮换，背景色不变）的变体。
+ * 渲染时随机选取一个变体，按随机偏移、随机上下翻转逐行复制到验证码图片中，背景的绘制只剩数组复制。
+ * <pre>
+ * AbstractCaptcha captcha = TextImageCaptchaFactory.getInstance().createCaptcha();
+ * captcha.setBackgroundTiles(new BackgroundTiles(captcha));
+ * </pre>
+ * 使用预渲染背景时，渲染只在背景上重新绘制贝塞尔曲线与文字。纹理不可变，可被多个验证码、多个线程共用。
+ * 干扰数量按{@link RenderQuality#getNoiseDensity()}缩放：创建时只绘制{@link RenderQuality#HIGH}的纹理，
+ * 其他渲染质量的纹理在第一次使用时绘制。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 22:20
+ * @since 1.1
+ */
+
+public class BackgroundTiles {
+    /**
+     * 默认纹理数量
+     */
+    public static final int DEFAULT_COUNT = 4;
+
+    private static final int HUE_ROTATIONS = 3;
+
+    private final int width;
+
+    private final int height;
+
+    private final int tileWidth;
+
+    private final int tileHeight;
+
+    private final int count;
+
+    private final Color bgColor;
+
+    private final int ovals;
+
+    private final int lines;
+
+    private final int points;
+
+    private final int curves;
+
+    /**
+     * 按渲染质量序号保存的纹理变体，未使用过的渲染质量为null
+     */
+    private final AtomicReferenceArray<int[][]> variants = new AtomicReferenceArray<>(RenderQuality.values().length);
+
+    /**
+     * 按验证码的尺寸、背景色与干扰数量创建默认数量的纹理
+     *
+     * @param spec 验证码
+     */
+    public BackgroundTiles(AbstractCaptcha spec) {
+        this(spec, DEFAULT_COUNT);
+    }
+
+    /**
+     * 按验证码的尺寸、背景色与干扰数量创建纹理
+     *
+     * @param spec  验证码
+     * @param count 纹理数量，每张纹理另有5个变体
+     */
+    public BackgroundTiles(AbstractCaptcha spec, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        this.width = spec.getWidth();
+        this.height = spec.getHeight();
+        this.tileWidth = width * 2;
+        this.tileHeight = height * 2;
+        this.count = count;
+        this.bgColor = spec.getBgColor() == null ? Color.WHITE : spec.getBgColor();
+        this.ovals = spec.getObstructOvalCount();
+        this.lines = spec.getObstructLineCount();
+        this.points = spec.getObstructPointCount();
+        this.curves = spec.getBezierCurvesCount();
+        variants.set(RenderQuality.HIGH.ordinal(), build(RenderQuality.HIGH));
+    }
+
+    /**
+     * 可填充的最大宽度
+     *
+     * @return 宽度
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * 可填充的最大高度
+     *
+     * @return 高度
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * 用随机裁剪的纹理填充图片
+     *
+     * @param image   TYPE_INT_RGB图片
+     * @param quality 渲染质量，决定干扰密度
+     * @return 图片类型不符或大于创建时的尺寸时不填充，返回false
+     */
+    boolean paint(BufferedImage image, RenderQuality quality) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        if (image.getType() != BufferedImage.TYPE_INT_RGB || w > width || h > height) {
+            return false;
+        }
+        int[] dst = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int[][] tiles = variants(quality);
+        int[] src = tiles[RandomUtils.randomNumber(tiles.length)];
+        int x0 = RandomUtils.randomNumber(tileWidth - w + 1);
+        int y0 = RandomUtils.randomNumber(tileHeight - h + 1);
+        boolean flip = RandomUtils.randomNumber(2) == 0;
+        for (int y = 0; y < h; y++) {
+            int sy = flip ? y0 + h - 1 - y : y0 + y;
+            System.arraycopy(src, sy * tileWidth + x0, dst, y * w, w);
+        }
+        return true;
+    }
+
+    private int[][] variants(RenderQuality quality) {
+        int[][] tiles = variants.get(quality.ordinal());
+        if (tiles == null) {
+            synchronized (this) {
+                tiles = variants.get(quality.ordinal());
+                if (tiles == null) {
+                    tiles = build(quality);
+                    variants.set(quality.ordinal(), tiles);
+                }
+            }
+        }
+        return tiles;
+    }
+
+    private int[][] build(RenderQuality quality) {
+        int background = bgColor.getRGB() & 0xFFFFFF;
+        int[][] tiles = new int[count * 2 * HUE_ROTATIONS][];
+        int v = 0;
+        for (int i = 0; i < count; i++) {
+            int[] tile = render(quality);
+            int[] mirrored = mirror(tile);
+            for (int rotation = 0; rotation < HUE_ROTATIONS; rotation++) {
+                tiles[v++] = rotate(tile, rotation, background);
+                tiles[v++] = rotate(mirrored, rotation, background);
+            }
+        }
+        return tiles;
+    }
+
+    private int[] render(RenderQuality quality) {
+        BufferedImage tile = new BufferedImage(tileWidth, tileHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = tile.createGraphics();
+        g2d.setColor(bgColor);
+        g2d.fillRect(0, 0, tileWidth, tileHeight);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        // 面积为验证码的4倍：圆与点的数量乘4；线与曲线随纹理变长，数量乘2即保持相同密度
+        RendererUtils.drawNoise(tileWidth, tileHeight, quality.scale(ovals) * 4, quality.scale(lines) * 2,
+                quality.scale(points) * 4, quality.scale(curves) * 2, g2d);
+        g2d.dispose();
+        return ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+    }
+
+    private int[] mirror(int[] tile) {
+        int[] mirrored = new int[tile.length];
+        for (int y = 0; y < tileHeight; y++) {
+            int row = y * tileWidth;
+            for (int x = 0; x < tileWidth; x++) {
+                mirrored[row + x] = tile[row + tileWidth - 1 - x];
+            }
+        }
+        return mirrored;
+    }
+
+    private static int[] rotate(int[] tile, int rotation, int background) {
+        if (rotation == 0) {
+            return tile;
+        }
+        int[] rotated = new int[tile.length];
+        int shift = rotation * 8;
+        for (int i = 0; i < tile.length; i++) {
+            int rgb = tile[i] & 0xFFFFFF;
+            rotated[i] = rgb == background ? rgb : (rgb << shift | rgb >>> (24 - shift)) & 0xFFFFFF;
+        }
+        return rotated;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.utils;
+
+/**
+ * <p>
+ * JFR事件
+ * </p>
+ * Java 8没有jdk.jfr，这里的方法什么也不做。jar包是多版本jar，Java 11及以上运行时使用META-INF/versions/11中的同名类，
+ * 其中的实现发出com.github.zh9131101.CaptchaRender、CaptchaVerify与FontLoad事件。
+ * 开始方法在没有启用对应事件的记录时返回null，结束方法收到null时直接返回。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 21:20
+ * @since 1.1
+ */
+
+final class CaptchaEvents {
+
+    private CaptchaEvents() {
+    }
+
+    static Object beginRender() {
+        return null;
+    }
+
+    static void endRender(Object event, String format, int width, int height, int frames, long bytes, boolean success) {
+    }
+
+    static Object beginVerify() {
+        return null;
+    }
+
+    static void endVerify(Object event, String store, boolean verified) {
+    }
+
+    static Object beginFontLoad() {
+        return null;
+    }
+
+    static void endFontLoad(Object event, String name, boolean cached) {
+    }
+}
@@ -16,15 +16,30 @@
 package com.github.zh9131101.utils;
 
 import com.github.zh9131101.constant.CaptchaConst;
+import com.github.zh9131101.corpus.CaptchaCorpusEntry;
+import com.github.zh9131101.limit.TokenBucketLimiter;
+import com.github.zh9131101.metrics.CaptchaMetrics;
+import com.github.zh9131101.metrics.CaptchaMetricsMXBean;
+import com.github.zh9131101.store.AnswerDigest;
+import com.github.zh9131101.store.ICaptchaStore;
+import com.github.zh9131101.store.MemoryCaptchaStore;
 import com.github.zh9131101.textimage.AbstractCaptcha;
 import com.github.zh9131101.textimage.ICaptchaFactory;
 import com.github.zh9131101.textimage.TextImageCaptchaFactory;
+import com.github.zh9131101.token.BloomReplayGuard;
+import com.github.zh9131101.token.CaptchaTokenSigner;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * <p>
@@ -44,6 +59,43 @@ public class CaptchaUtils {
 
     private static final ICaptchaFactory TEXT_IMAGE_CAPTCHA_FACTORY;
 
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * 验证码存储，未配置时使用进程内存储{@link MemoryCaptchaStore}
+     */
+    private static volatile ICaptchaStore captchaStore;
+
+    /**
+     * 无状态验证码令牌签名器，未配置时使用随机主密钥（仅适用于单节点）
+     */
+    private static volatile CaptchaTokenSigner tokenSigner;
+
+    /**
+     * 无状态令牌防重放校验，未配置时令牌在有效期内可重复校验
+     */
+    private static volatile BloomReplayGuard replayGuard;
+
+    /**
+     * 验证码有效时长（秒）
+     */
+    private static volatile long captchaTtl = CaptchaConst.DEFAULT_TTL;
+
+    /**
+     * 按客户端限流，未配置时不限流
+     */
+    private static volatile TokenBucketLimiter rateLimiter;
+
+    /**
+     * 运行指标，未启用时为null
+     */
+    private static volatile CaptchaMetrics metrics;
+
+    /**
+     * 最近一次预热，未预热时为null
+     */
+    private static volatile CompletableFuture<Void> warmUp;
+
     static {
         TEXT_IMAGE_CAPTCHA_FACTORY = TextImageCaptchaFactory.getInstance();
     }
@@ -51,31 +103,105 @@ public class CaptchaUtils {
     /* ----->>>模版相关<<<------*/
 
     /**
-     * 字母+数字Png验证码模版
+     * 字母+数字Png验证码模版，客户端被限流时响应429
      *
      * @param request  HttpServletRequest
      * @param response HttpServletResponse
      * @throws IOException IO异常
      */
     public static void rendererPng(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!tryAcquire(request)) {
+            rejectTooManyRequests(response);
+            return;
+        }
         AbstractCaptcha captcha = TEXT_IMAGE_CAPTCHA_FACTORY.createCaptcha();
         captcha.setRandomText(CaptchaConst.NUM_EN_MIX);
-        sesseionCache(captcha.generateCaptcha(), request);
+        sesseionCache(RendererUtils.generateCaptcha(CaptchaConst.PNG, captcha), request);
         rendererPngCaptcha(captcha, response);
     }
 
     /**
-     * 字母+数字验证码Gif模版
+     * 字母+数字验证码Gif模版，客户端被限流时响应429
      *
      * @param request  HttpServletRequest
      * @param response HttpServletResponse
      * @throws IOException IO异常
      */
     public static void rendererGif(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!tryAcquire(request)) {
+            rejectTooManyRequests(response);
+            return;
+        }
+        AbstractCaptcha captcha = TEXT_IMAGE_CAPTCHA_FACTORY.createCaptcha();
+        captcha.setRandomText(CaptchaConst.NUM_EN_MIX);
+        sesseionCache(RendererUtils.generateCaptcha(CaptchaConst.GIF, captcha), request);
+        rendererGifCaptcha(captcha, response);
+    }
+
+    /**
+     * 字母+数字Png验证码模版，验证码保存到配置的验证码存储，验证码id通过响应头下发，客户端被限流时响应429
+     *
+     * @param request  HttpServletRequest
+     * @param response HttpServletResponse
+     * @return 验证码id，被限流时返回null
+     * @throws IOException IO异常
+     */
+    public static String rendererStorePng(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!tryAcquire(request)) {
+            rejectTooManyRequests(response);
+            return null;
+        }
+        return rendererPng(response);
+    }
+
+    /**
+     * 字母+数字Gif验证码模版，验证码保存到配置的验证码存储，验证码id通过响应头下发，客户端被限流时响应429
+     *
+     * @param request  HttpServletRequest
+     * @param response HttpServletResponse
+     * @return 验证码id，被限流时返回null
+     * @throws IOException IO异常
+     */
+    public static String rendererStoreGif(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!tryAcquire(request)) {
+            rejectTooManyRequests(response);
+            return null;
+        }
+        return rendererGif(response);
+    }
+
+    /**
+     * 字母+数字Png验证码模版，验证码保存到配置的验证码存储，验证码id通过响应头下发。
+     * 不检查限流，调用方需先调用{@link #tryAcquire(HttpServletRequest)}，或使用{@link #rendererStorePng}
+     *
+     * @param response HttpServletResponse
+     * @return 验证码id
+     * @throws IOException IO异常
+     */
+    public static String rendererPng(HttpServletResponse response) throws IOException {
+        AbstractCaptcha captcha = TEXT_IMAGE_CAPTCHA_FACTORY.createCaptcha();
+        captcha.setRandomText(CaptchaConst.NUM_EN_MIX);
+        String id = storeCache(RendererUtils.generateCaptcha(CaptchaConst.PNG, captcha));
+        setCaptchaIdHeader(id, response);
+        rendererPngCaptcha(captcha, response);
+        return id;
+    }
+
+    /**
+     * 字母+数字Gif验证码模版，验证码保存到配置的验证码存储，验证码id通过响应头下发。
+     * 不检查限流，调用方需先调用{@link #tryAcquire(HttpServletRequest)}，或使用{@link #rendererStoreGif}
+     *
+     * @param response HttpServletResponse
+     * @return 验证码id
+     * @throws IOException IO异常
+     */
+    public static String rendererGif(HttpServletResponse response) throws IOException {
         AbstractCaptcha captcha = TEXT_IMAGE_CAPTCHA_FACTORY.createCaptcha();
         captcha.setRandomText(CaptchaConst.NUM_EN_MIX);
-        sesseionCache(captcha.generateCaptcha(), request);
+        String id = storeCache(RendererUtils.generateCaptcha(CaptchaConst.GIF, captcha));
+        setCaptchaIdHeader(id, response);
         rendererGifCaptcha(captcha, response);
+        return id;
     }
 
     /* ----->>>渲染相关<<<------*/
@@ -90,7 +216,7 @@ public class CaptchaUtils {
     public static void rendererPngCaptcha(AbstractCaptcha captcha, HttpServletResponse response) throws IOException {
         // 设置请求头为输出图片类型
         setResponseHeader(response);
-        RendererUtils.renderer(CaptchaConst.PNG, response.getOutputStream(), captcha);
+        renderer(CaptchaConst.PNG, captcha, response);
     }
 
     /**
@@ -103,7 +229,52 @@ public class CaptchaUtils {
     public static void rendererGifCaptcha(AbstractCaptcha captcha, HttpServletResponse response) throws IOException {
         // 设置请求头为输出图片类型
         setResponseHeader(response);
-        RendererUtils.renderer(CaptchaConst.GIF, response.getOutputStream(), captcha);
+        renderer(CaptchaConst.GIF, captcha, response);
+    }
+
+    private static void renderer(String formatType, AbstractCaptcha captcha, HttpServletResponse response) throws IOException {
+        CaptchaMetrics current = metrics;
+        if (current == null) {
+            RendererUtils.renderer(formatType, response.getOutputStream(), captcha);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean success = RendererUtils.renderer(formatType, response.getOutputStream(), captcha);
+        current.rendered(formatType, System.nanoTime() - start, success);
+    }
+
+    /**
+     * 输出预渲染验证码库中的验证码
+     *
+     * @param entry    预渲染验证码条目
+     * @param response HttpServletResponse
+     * @throws IOException 输入输出流异常
+     */
+    public static void rendererCorpusCaptcha(CaptchaCorpusEntry entry, HttpServletResponse response) throws IOException {
+        // 设置请求头为输出图片类型
+        setResponseHeader(response);
+        response.setContentLength(entry.getLength());
+        entry.writeTo(response.getOutputStream());
+        CaptchaMetrics current = metrics;
+        if (current != null) {
+            current.issued("corpus");
+        }
+    }
+
+    /**
+     * 输出预渲染验证码库中的验证码，答案摘要保存到配置的验证码存储，验证码id通过响应头下发。
+     * 语料不含明文答案，该id须用{@link #storeVerifyCorpus(String, String)}校验，{@link #storeVerify(String, String)}不会通过
+     *
+     * @param entry    预渲染验证码条目
+     * @param response HttpServletResponse
+     * @return 验证码id
+     * @throws IOException 输入输出流异常
+     */
+    public static String rendererStoreCorpus(CaptchaCorpusEntry entry, HttpServletResponse response) throws IOException {
+        String id = storeCache(entry.getAnswerKey());
+        setCaptchaIdHeader(id, response);
+        rendererCorpusCaptcha(entry, response);
+        return id;
     }
 
     /**
@@ -120,16 +291,333 @@ public class CaptchaUtils {
         response.setDateHeader("Expires", 0);
     }
 
+    /**
+     * 设置验证码id响应头
+     *
+     * @param id       验证码id
+     * @param response HttpServletResponse
+     */
+    public static void setCaptchaIdHeader(String id, HttpServletResponse response) {
+        response.setHeader(CaptchaConst.CAPTCHA_ID_HEADER, id);
+        response.setHeader("Access-Control-Expose-Headers", CaptchaConst.CAPTCHA_ID_HEADER);
+    }
+
+    /* ----->>>限流相关<<<------*/
+
+    /**
+     * 配置按客户端限流
+     *
+     * @param limiter 令牌桶限流，为null时不限流
+     */
+    public static void setRateLimiter(TokenBucketLimiter limiter) {
+        rateLimiter = limiter;
+    }
+
+    /**
+     * 按客户端地址获取渲染验证码的许可，应在创建验证码之前调用
+     *
+     * @param request HttpServletRequest
+     * @return 未配置限流或获取成功返回true
+     */
+    public static boolean tryAcquire(HttpServletRequest request) {
+        TokenBucketLimiter limiter = rateLimiter;
+        return limiter == null || limiter.tryAcquire(request.getRemoteAddr());
+    }
+
+    /**
+     * 按调用方提供的客户端标识获取渲染验证码的许可，如代理后的真实IP或用户名
+     *
+     * @param clientKey 客户端标识
+     * @return 未配置限流或获取成功返回true
+     */
+    public static boolean tryAcquire(String clientKey) {
+        TokenBucketLimiter limiter = rateLimiter;
+        return limiter == null || limiter.tryAcquire(clientKey);
+    }
+
+    /**
+     * 响应429，不渲染验证码。也可改为输出预渲染验证码{@link #rendererCorpusCaptcha}
+     *
+     * @param response HttpServletResponse
+     */
+    public static void rejectTooManyRequests(HttpServletResponse response) {
+        response.setStatus(SC_TOO_MANY_REQUESTS);
+        response.setHeader("Retry-After", "1");
+        response.setContentLength(0);
+    }
+
+    /* ----->>>指标相关<<<------*/
+
+    /**
+     * 启用运行指标并注册到平台MBeanServer，重复调用返回同一个实例
+     *
+     * @return 运行指标
+     */
+    public static synchronized CaptchaMetrics enableMetrics() {
+        if (metrics == null) {
+            CaptchaMetrics created = new CaptchaMetrics();
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(CaptchaMetricsMXBean.OBJECT_NAME);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(created, name);
+            } catch (JMException e) {
+                throw new IllegalStateException("Failed to register " + CaptchaMetricsMXBean.OBJECT_NAME, e);
+            }
+            metrics = created;
+        }
+        return metrics;
+    }
+
+    /**
+     * 停用运行指标并从平台MBeanServer注销
+     */
+    public static synchronized void disableMetrics() {
+        if (metrics != null) {
+            metrics = null;
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(CaptchaMetricsMXBean.OBJECT_NAME));
+            } catch (JMException e) {
+                // 已被其他方式注销
+            }
+        }
+    }
+
+    /**
+     * 获取运行指标
+     *
+     * @return 未启用时为null
+     */
+    public static CaptchaMetrics getMetrics() {
+        return metrics;
+    }
+
+    /* ----->>>预热相关<<<------*/
+
+    /**
+     * 按字母+数字模版在后台预热PNG与GIF渲染
+     *
+     * @return 预热完成时完成
+     */
+    public static CompletableFuture<Void> warmUp() {
+        AbstractCaptcha captcha = TEXT_IMAGE_CAPTCHA_FACTORY.createCaptcha();
+        captcha.setRandomText(CaptchaConst.NUM_EN_MIX);
+        return warmUp(CaptchaConst.DEFAULT_WARM_UP_RENDERS, captcha);
+    }
+
+    /**
+     * 在后台线程中预热：初始化headless模式的Java2D、读取各验证码的字体，再按各验证码渲染PNG与GIF并丢弃结果。
+     * 就绪检查可等待返回的future或调用{@link #isWarmedUp()}
+     *
+     * @param renders 每个验证码每种格式的渲染次数
+     * @param specs   用于预热的验证码，与实际使用的尺寸、字体、字符集一致；预热会修改其答案，不应再用于实际请求
+     * @return 预热完成时完成，任一次渲染失败时异常完成
+     */
+    public static synchronized CompletableFuture<Void> warmUp(int renders, AbstractCaptcha... specs) {
+        if (renders < 0) {
+            throw new IllegalArgumentException("renders must not be negative: " + renders);
+        }
+        CompletableFuture<Void> future = CaptchaWarmUp.start(renders, specs.clone());
+        warmUp = future;
+        return future;
+    }
+
+    /**
+     * 最近一次预热是否已成功完成
+     *
+     * @return 未预热、预热中或预热失败时为false
+     */
+    public static boolean isWarmedUp() {
+        CompletableFuture<Void> future = warmUp;
+        return future != null && future.isDone() && !future.isCompletedExceptionally();
+    }
+
     /* ----->>>缓存相关<<<------*/
 
     /**
-     * 使用session缓存验证码
+     * 配置验证码存储
+     *
+     * @param store 验证码存储
+     */
+    public static void setCaptchaStore(ICaptchaStore store) {
+        captchaStore = store;
+    }
+
+    /**
+     * 获取配置的验证码存储
+     *
+     * @return 验证码存储
+     */
+    public static ICaptchaStore getCaptchaStore() {
+        ICaptchaStore store = captchaStore;
+        return store == null ? DefaultStoreHolder.INSTANCE : store;
+    }
+
+    /**
+     * 设置验证码有效时长
+     *
+     * @param ttl 有效时长（秒）
+     */
+    public static void setCaptchaTtl(long ttl) {
+        captchaTtl = ttl;
+    }
+
+    /**
+     * 使用配置的验证码存储缓存验证码
+     *
+     * @param captcha 验证码
+     * @return 验证码id
+     */
+    public static String storeCache(String captcha) {
+        return storeCache(getCaptchaStore(), captcha);
+    }
+
+    /**
+     * 使用指定的验证码存储缓存验证码
+     *
+     * @param store   验证码存储
+     * @param captcha 验证码
+     * @return 验证码id
+     */
+    public static String storeCache(ICaptchaStore store, String captcha) {
+        String id = store.nextId();
+        store.put(id, captcha, captchaTtl);
+        return id;
+    }
+
+    /**
+     * 使用配置的验证码存储校验并清除验证码
+     *
+     * @param id      验证码id
+     * @param captcha 用户输入的验证码
+     * @return true or false
+     */
+    public static boolean storeVerify(String id, String captcha) {
+        return storeVerify(getCaptchaStore(), id, captcha);
+    }
+
+    /**
+     * 使用指定的验证码存储校验并清除验证码
+     *
+     * @param store   验证码存储
+     * @param id      验证码id
+     * @param captcha 用户输入的验证码
+     * @return true or false
+     */
+    public static boolean storeVerify(ICaptchaStore store, String id, String captcha) {
+        Object event = CaptchaEvents.beginVerify();
+        boolean verified = id != null && captcha != null && store.verifyAndRemove(id, captcha);
+        return verified(event, store.getClass().getSimpleName(), verified);
+    }
+
+    /**
+     * 使用配置的验证码存储校验并清除{@link #rendererStoreCorpus}下发的验证码
+     *
+     * @param id      验证码id
+     * @param captcha 用户输入的验证码
+     * @return true or false
+     */
+    public static boolean storeVerifyCorpus(String id, String captcha) {
+        return storeVerifyCorpus(getCaptchaStore(), id, captcha);
+    }
+
+    /**
+     * 使用指定的验证码存储校验并清除预渲染验证码，存储中保存的是{@link CaptchaCorpusEntry#getAnswerKey()}
+     *
+     * @param store   验证码存储
+     * @param id      验证码id
+     * @param captcha 用户输入的验证码
+     * @return true or false
+     */
+    public static boolean storeVerifyCorpus(ICaptchaStore store, String id, String captcha) {
+        return storeVerify(store, id, captcha == null ? null : CaptchaCorpusEntry.answerKey(captcha));
+    }
+
+    /* ----->>>无状态令牌相关<<<------*/
+
+    /**
+     * 配置无状态验证码令牌签名器
+     *
+     * @param signer 令牌签名器
+     */
+    public static void setCaptchaTokenSigner(CaptchaTokenSigner signer) {
+        tokenSigner = signer;
+    }
+
+    /**
+     * 获取无状态验证码令牌签名器
+     *
+     * @return 令牌签名器
+     */
+    public static CaptchaTokenSigner getCaptchaTokenSigner() {
+        CaptchaTokenSigner signer = tokenSigner;
+        return signer == null ? DefaultTokenSignerHolder.INSTANCE : signer;
+    }
+
+    /**
+     * 配置无状态令牌防重放校验
+     *
+     * @param guard 防重放校验
+     */
+    public static void setReplayGuard(BloomReplayGuard guard) {
+        replayGuard = guard;
+    }
+
+    /**
+     * 签发携带验证码答案摘要的无状态令牌，服务端不保存验证码
+     *
+     * @param captcha 验证码
+     * @return 令牌
+     */
+    public static String tokenSign(String captcha) {
+        return getCaptchaTokenSigner().issue(captcha, captchaTtl);
+    }
+
+    /**
+     * 校验无状态令牌，配置了防重放校验时令牌只能校验一次
+     *
+     * @param token   令牌
+     * @param captcha 用户输入的验证码
+     * @return true or false
+     */
+    public static boolean tokenVerify(String token, String captcha) {
+        Object event = CaptchaEvents.beginVerify();
+        boolean verified = getCaptchaTokenSigner().verify(token, captcha, replayGuard);
+        return verified(event, "token", verified);
+    }
+
+    private static class DefaultTokenSignerHolder {
+        private static final CaptchaTokenSigner INSTANCE = new CaptchaTokenSigner();
+    }
+
+    private static class DefaultStoreHolder {
+        private static final ICaptchaStore INSTANCE = new MemoryCaptchaStore();
+    }
+
+    /**
+     * 记录校验结果
+     */
+    private static boolean verified(Object event, String type, boolean verified) {
+        CaptchaEvents.endVerify(event, type, verified);
+        CaptchaMetrics current = metrics;
+        if (current != null) {
+            current.verified(type, verified);
+        }
+        return verified;
+    }
+
+    /**
+     * 使用session缓存验证码。默认保存答案原文；通过{@link AnswerDigest#setDefault}配置密钥后只保存答案摘要，
+     * 此时session复制（集群、Spring Session）或持久化后由其他进程校验时，各节点需配置相同的密钥
      *
      * @param captcha 验证码实体
      * @param request HttpServletRequest
      */
     public static void sesseionCache(String captcha, HttpServletRequest request) {
-        request.getSession().setAttribute(CaptchaConst.SESSION_KEY, captcha);
+        AnswerDigest digest = AnswerDigest.getDefault();
+        request.getSession().setAttribute(CaptchaConst.SESSION_KEY, digest == null ? captcha : (Object) digest.hash(captcha));
     }
 
     /**
@@ -140,11 +628,25 @@ public class CaptchaUtils {
      * @return true or false
      */
     public static boolean sessionVerify(String captcha, HttpServletRequest request) {
-        if (captcha != null) {
-            String cacheCaptcha = (String) request.getSession().getAttribute(CaptchaConst.SESSION_KEY);
-            if (captcha.equalsIgnoreCase(cacheCaptcha)) {
+        Object event = CaptchaEvents.beginVerify();
+        return verified(event, "session", sessionMatches(captcha, request));
+    }
+
+    private static boolean sessionMatches(String captcha, HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (captcha != null && session != null) {
+            Object cacheCaptcha = session.getAttribute(CaptchaConst.SESSION_KEY);
+            boolean matched;
+            AnswerDigest digest = AnswerDigest.getDefault();
+            if (cacheCaptcha instanceof Long) {
+                matched = digest != null && digest.matches((Long) cacheCaptcha, captcha);
+            } else {
+                // 未配置摘要密钥（或配置之前）保存的原文答案
+                matched = cacheCaptcha instanceof String && AnswerDigest.matchesPlain((String) cacheCaptcha, captcha);
+            }
+            if (matched) {
                 sessionClear(request);
-                return captcha.equalsIgnoreCase(cacheCaptcha.trim());
+                return true;
             }
         }
         return false;
@@ -156,7 +658,10 @@ public class CaptchaUtils {
      * @param request HttpServletRequest
      */
     public static void sessionClear(HttpServletRequest request) {
-        request.getSession().removeAttribute(CaptchaConst.SESSION_KEY);
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.removeAttribute(CaptchaConst.SESSION_KEY);
+        }
     }
 
     /**
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.utils;
+
+import com.github.zh9131101.constant.CaptchaConst;
+import com.github.zh9131101.metrics.RenderListener;
+import com.github.zh9131101.textimage.AbstractCaptcha;
+
+import javax.imageio.ImageIO;
+import java.awt.GraphicsEnvironment;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>
+ * 验证码预热
+ * </p>
+ * 部署后的第一张验证码需要初始化Java2D、读取字体、查找ImageIO插件，NeuQuant与LZW编码也尚未被JIT编译，耗时可达数秒。
+ * 预热在后台线程中依次完成这些初始化，再按给定的验证码渲染若干次PNG与GIF并丢弃结果。
+ * 预热渲染不报告给渲染监听器，也不计入运行指标。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 22:00
+ * @since 1.1
+ */
+
+final class CaptchaWarmUp {
+    private static final String[] FORMATS = {CaptchaConst.PNG, CaptchaConst.GIF};
+
+    private CaptchaWarmUp() {
+    }
+
+    /**
+     * 在后台线程中预热
+     *
+     * @param renders 每个验证码每种格式的渲染次数
+     * @param specs   用于预热的验证码，预热会修改其答案与字体，不应再用于实际请求
+     * @return 预热完成时完成，任一次渲染失败时异常完成
+     */
+    static CompletableFuture<Void> start(int renders, AbstractCaptcha[] specs) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                run(renders, specs);
+                future.complete(null);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }, "captcha-warmup");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    private static void run(int renders, AbstractCaptcha[] specs) {
+        // 只在应用未指定时启用headless，须在AWT初始化之前设置才生效
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        GraphicsEnvironment.getLocalGraphicsEnvironment();
+        ImageIO.getImageWritersByFormatName(CaptchaConst.PNG);
+        for (AbstractCaptcha spec : specs) {
+            if (spec.getFont() == null) {
+                spec.setFont(RendererUtils.createFont(spec.getFontPath(), spec.getFontStyle(), spec.getFontSize(), spec.getFontName()));
+            }
+        }
+        OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+        for (int i = 0; i < renders; i++) {
+            for (AbstractCaptcha spec : specs) {
+                for (String format : FORMATS) {
+                    spec.generateCaptcha();
+                    if (!RendererUtils.renderer(format, sink, spec, RenderListener.NOOP)) {
+                        throw new IllegalStateException("Warm-up " + format + " render failed for " + spec.getClass().getName());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.utils;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * 像素扭曲
+ * </p>
+ * 绘制文字之后对整张图片做一次位移映射，增加OCR识别难度。每种扭曲按图片尺寸预先计算{@link #PHASES}个相位的映射表，
+ * 表中保存每个像素的来源像素下标；每张验证码随机选取一个相位，扭曲只是对像素数组按表取值一遍，不经过Graphics2D。
+ * 映射表按尺寸缓存，GIF的各帧使用同一相位。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 23:00
+ * @since 1.1
+ */
+
+public enum PixelWarp {
+    /**
+     * 正弦波：列按正弦上下偏移，行按正弦左右偏移
+     */
+    SINE {
+        @Override
+        void displace(int width, int height, double phase, int x, int y, double[] out) {
+            out[0] = x + height / 24.0 * Math.sin(2 * Math.PI * y / height + phase);
+            out[1] = y + height / 10.0 * Math.sin(2 * Math.PI * x / (width / 1.5) + phase);
+        }
+    },
+    /**
+     * 波纹：以中心为圆心沿半径方向按正弦偏移
+     */
+    RIPPLE {
+        @Override
+        void displace(int width, int height, double phase, int x, int y, double[] out) {
+            double dx = x - width / 2.0;
+            double dy = y - height / 2.0;
+            double r = Math.sqrt(dx * dx + dy * dy);
+            double d = r == 0 ? 0 : height / 20.0 * Math.sin(2 * Math.PI * r / (height / 3.0) + phase) / r;
+            out[0] = x + dx * d;
+            out[1] = y + dy * d;
+        }
+    },
+    /**
+     * 旋涡：以高度为半径的圆内按到圆心的距离旋转，越靠近圆心旋转越多，圆心沿水平方向随相位移动
+     */
+    TWIRL {
+        @Override
+        void displace(int width, int height, double phase, int x, int y, double[] out) {
+            double cx = width * (0.2 + 0.6 * phase / (2 * Math.PI));
+            double cy = height / 2.0;
+            double dx = x - cx;
+            double dy = y - cy;
+            double r = Math.sqrt(dx * dx + dy * dy);
+            if (r >= height) {
+                out[0] = x;
+                out[1] = y;
+                return;
+            }
+            double angle = Math.atan2(dy, dx) + 0.8 * (1 - r / height);
+            out[0] = cx + r * Math.cos(angle);
+            out[1] = cy + r * Math.sin(angle);
+        }
+    };
+
+    /**
+     * 每种尺寸预先计算的相位数量
+     */
+    public static final int PHASES = 8;
+
+    private final ConcurrentMap<Long, int[][]> tables = new ConcurrentHashMap<>();
+
+    /**
+     * 计算目标像素的来源坐标
+     *
+     * @param width  图片宽度
+     * @param height 图片高度
+     * @param phase  相位（弧度）
+     * @param x      目标横坐标
+     * @param y      目标纵坐标
+     * @param out    来源横坐标与纵坐标
+     */
+    abstract void displace(int width, int height, double phase, int x, int y, double[] out);
+
+    /**
+     * 随机选取相位
+     *
+     * @return 0到{@link #PHASES}-1
+     */
+    static int randomPhase() {
+        return RandomUtils.randomNumber(PHASES);
+    }
+
+    /**
+     * 扭曲图片
+     *
+     * @param image   TYPE_INT_RGB图片，其他类型不处理
+     * @param phase   相位序号
+     * @param scratch 与图片像素数相同的临时数组，为null时新建
+     * @return 临时数组，可用于同尺寸的下一次扭曲
+     */
+    int[] apply(BufferedImage image, int phase, int[] scratch) {
+        if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+            return scratch;
+        }
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int[] source = scratch != null && scratch.length == pixels.length ? scratch : new int[pixels.length];
+        System.arraycopy(pixels, 0, source, 0, pixels.length);
+        int[] map = table(image.getWidth(), image.getHeight())[phase];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = source[map[i]];
+        }
+        return source;
+    }
+
+    private int[][] table(int width, int height) {
+        Long key = (long) width << 32 | height;
+        int[][] table = tables.get(key);
+        return table != null ? table : tables.computeIfAbsent(key, k -> build(width, height));
+    }
+
+    private int[][] build(int width, int height) {
+        int[][] table = new int[PHASES][width * height];
+        double[] out = new double[2];
+        for (int p = 0; p < PHASES; p++) {
+            double phase = 2 * Math.PI * p / PHASES;
+            int[] map = table[p];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    displace(width, height, phase, x, y, out);
+                    int sx = Math.min(width - 1, Math.max(0, (int) Math.round(out[0])));
+                    int sy = Math.min(height - 1, Math.max(0, (int) Math.round(out[1])));
+                    map[y * width + x] = sy * width + sx;
+                }
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.utils;
+
+import com.github.zh9131101.metrics.RenderListener;
+import com.github.zh9131101.metrics.RenderStage;
+import com.github.zh9131101.textimage.AbstractCaptcha;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <p>
+ * 一次渲染的分阶段计时
+ * </p>
+ * 按顺序计时：{@link #lap}把上一次计时点之后的时间计入指定阶段。写出到输出流的时间由{@link #wrap}包装的流单独计入WRITE，
+ * 同时顺延计时点，不会重复计入当时正在计时的阶段。结束时同时提交JFR渲染事件（见{@link CaptchaEvents}）。
+ * 未配置监听器且没有记录渲染事件时使用{@link #DISABLED}，所有方法直接返回。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 20:50
+ * @since 1.1
+ */
+
+final class RenderTimer {
+    static final RenderTimer DISABLED = new RenderTimer(null, null, null);
+
+    private static final RenderStage[] STAGES = RenderStage.values();
+
+    private final RenderListener listener;
+
+    private final String format;
+
+    private final Object event;
+
+    private final long[] nanos;
+
+    private final long start;
+
+    private long mark;
+
+    private int touched;
+
+    private long bytes;
+
+    private int frames = 1;
+
+    private RenderTimer(RenderListener listener, String format, Object event) {
+        this.listener = listener;
+        this.format = format;
+        this.event = event;
+        this.nanos = listener == null ? null : new long[STAGES.length];
+        this.start = listener == null ? 0 : System.nanoTime();
+        this.mark = start;
+    }
+
+    /**
+     * 开始一次渲染的计时
+     *
+     * @param listener 渲染监听器
+     * @param format   图片格式
+     * @return 监听器为NOOP且没有记录渲染事件时返回DISABLED
+     */
+    static RenderTimer start(RenderListener listener, String format) {
+        Object event = CaptchaEvents.beginRender();
+        if (listener == RenderListener.NOOP) {
+            if (event == null) {
+                return DISABLED;
+            }
+            listener = null;
+        }
+        return new RenderTimer(listener, format, event);
+    }
+
+    /**
+     * 重新设置计时点，之前未计入任何阶段的时间不再计入
+     */
+    void mark() {
+        if (listener != null) {
+            mark = System.nanoTime();
+        }
+    }
+
+    /**
+     * 上一次计时点之后的时间计入阶段
+     *
+     * @param stage 阶段
+     */
+    void lap(RenderStage stage) {
+        if (listener != null) {
+            long now = System.nanoTime();
+            add(stage, now - mark);
+            mark = now;
+        }
+    }
+
+    /**
+     * 记录实际渲染的帧数，GIF按渲染质量可能少于字符数
+     *
+     * @param frames 帧数
+     */
+    void frames(int frames) {
+        if (event != null) {
+            this.frames = frames;
+        }
+    }
+
+    /**
+     * 包装输出流，写出时间计入WRITE。包装的流带缓冲，GIF逐字节写出时不必每个字节计时
+     *
+     * @param os 输出流
+     * @return 未启用时返回原输出流
+     */
+    OutputStream wrap(OutputStream os) {
+        return listener == null && event == null ? os : new TimedOutputStream(os);
+    }
+
+    /**
+     * 报告各阶段与整次渲染的耗时，监听器抛出的异常不影响渲染结果
+     *
+     * @param success 是否成功
+     * @param captcha 验证码
+     */
+    void report(boolean success, AbstractCaptcha captcha) {
+        if (event != null) {
+            CaptchaEvents.endRender(event, format, captcha == null || captcha.getWidth() == null ? 0 : captcha.getWidth(),
+                    captcha == null || captcha.getHeight() == null ? 0 : captcha.getHeight(), frames, bytes, success);
+        }
+        if (listener == null) {
+            return;
+        }
+        long total = System.nanoTime() - start;
+        try {
+            for (RenderStage stage : STAGES) {
+                if ((touched & 1 << stage.ordinal()) != 0) {
+                    listener.onStage(format, stage, nanos[stage.ordinal()]);
+                }
+            }
+            listener.onRender(format, total, success);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void add(RenderStage stage, long elapsed) {
+        if (nanos == null) {
+            return;
+        }
+        nanos[stage.ordinal()] += elapsed;
+        touched |= 1 << stage.ordinal();
+    }
+
+    /**
+     * 带缓冲的计时输出流
+     */
+    private final class TimedOutputStream extends OutputStream {
+        private final OutputStream out;
+
+        private final byte[] buffer = new byte[8192];
+
+        private int count;
+
+        TimedOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                drain();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len >= buffer.length) {
+                drain();
+                long begin = System.nanoTime();
+                out.write(b, off, len);
+                bytes += len;
+                written(begin);
+                return;
+            }
+            if (len > buffer.length - count) {
+                drain();
+            }
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+            long begin = System.nanoTime();
+            out.flush();
+            written(begin);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                long begin = System.nanoTime();
+                out.close();
+                written(begin);
+            }
+        }
+
+        private void drain() throws IOException {
+            if (count > 0) {
+                long begin = System.nanoTime();
+                out.write(buffer, 0, count);
+                bytes += count;
+                count = 0;
+                written(begin);
+            }
+        }
+
+        private void written(long begin) {
+            long elapsed = System.nanoTime() - begin;
+            add(RenderStage.WRITE, elapsed);
+            mark += elapsed;
+        }
+    }
+}
@@ -16,6 +16,8 @@
 package com.github.zh9131101.utils;
 
 import com.github.zh9131101.constant.CaptchaConst;
+import com.github.zh9131101.metrics.RenderListener;
+import com.github.zh9131101.metrics.RenderStage;
 import com.github.zh9131101.textimage.AbstractCaptcha;
 
 import javax.imageio.ImageIO;
@@ -23,8 +25,13 @@ import java.awt.*;
 import java.awt.geom.CubicCurve2D;
 import java.awt.geom.QuadCurve2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,9 +47,64 @@ import java.util.regex.Pattern;
  */
 
 public class RendererUtils {
+    private static final ConcurrentMap<String, Font> FONT_CACHE = new ConcurrentHashMap<>();
+
+    private static final LongAdder FONT_CACHE_HITS = new LongAdder();
+
+    private static final LongAdder FONT_CACHE_MISSES = new LongAdder();
+
+    private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+
+    private static volatile RenderListener renderListener = RenderListener.NOOP;
+
+    private static volatile RenderQuality defaultQuality = RenderQuality.HIGH;
+
+    private static volatile AutoQuality autoQuality;
+
     private RendererUtils() {
     }
 
+    /**
+     * 配置渲染监听器，接收各阶段的耗时
+     *
+     * @param listener 渲染监听器，为null时不计时
+     */
+    public static void setRenderListener(RenderListener listener) {
+        renderListener = listener == null ? RenderListener.NOOP : listener;
+    }
+
+    /**
+     * 获取渲染监听器
+     *
+     * @return 渲染监听器
+     */
+    public static RenderListener getRenderListener() {
+        return renderListener;
+    }
+
+    /**
+     * 生成验证码，耗时作为{@link RenderStage#ANSWER}报告给渲染监听器
+     *
+     * @param formatType 将要渲染的图片格式
+     * @param captcha    验证码
+     * @return 验证码答案
+     */
+    public static String generateCaptcha(String formatType, AbstractCaptcha captcha) {
+        RenderListener listener = renderListener;
+        if (listener == RenderListener.NOOP) {
+            return captcha.generateCaptcha();
+        }
+        long start = System.nanoTime();
+        String answer = captcha.generateCaptcha();
+        try {
+            listener.onStage(StringUtils.isEmpty(formatType) ? CaptchaConst.PNG : formatType,
+                    RenderStage.ANSWER, System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+        return answer;
+    }
+
     /**
      * 渲染验证码
      *
@@ -52,16 +114,97 @@ public class RendererUtils {
      * @return true or false
      */
     public static boolean renderer(String formatType, OutputStream os, AbstractCaptcha captcha) {
+        return renderer(formatType, os, captcha, renderListener);
+    }
+
+    /**
+     * 渲染验证码，耗时报告给指定的监听器
+     *
+     * @param formatType 图片格式（后缀）
+     * @param os         输出流
+     * @param captcha    验证码
+     * @param listener   渲染监听器
+     * @return true or false
+     */
+    static boolean renderer(String formatType, OutputStream os, AbstractCaptcha captcha, RenderListener listener) {
         if (StringUtils.isEmpty(formatType)) {
             formatType = CaptchaConst.PNG;
         }
-        boolean success;
-        if (CaptchaConst.GIF.equals(formatType)) {
-            success = rendererGif(os, captcha);
-        } else {
-            success = rendererImage(formatType, os, captcha);
+        // 未启用自动降级时不统计正在进行的渲染
+        AutoQuality auto = autoQuality;
+        int load = auto == null ? 0 : IN_FLIGHT.incrementAndGet();
+        try {
+            RenderQuality quality = quality(captcha, auto, load);
+            boolean success;
+            RenderTimer timer = RenderTimer.start(listener, formatType);
+            if (CaptchaConst.GIF.equals(formatType)) {
+                success = rendererGif(timer.wrap(os), captcha, quality, timer);
+            } else {
+                success = rendererImage(formatType, timer.wrap(os), captcha, quality, timer);
+            }
+            timer.report(success, captcha);
+            return success;
+        } finally {
+            if (auto != null) {
+                IN_FLIGHT.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 设置默认渲染质量，验证码未指定渲染质量时使用
+     *
+     * @param quality 渲染质量，为null时恢复为{@link RenderQuality#HIGH}
+     */
+    public static void setDefaultQuality(RenderQuality quality) {
+        defaultQuality = quality == null ? RenderQuality.HIGH : quality;
+    }
+
+    /**
+     * 获取默认渲染质量
+     *
+     * @return 渲染质量
+     */
+    public static RenderQuality getDefaultQuality() {
+        return defaultQuality;
+    }
+
+    /**
+     * 按正在进行的渲染数量自动降低渲染质量，只作用于未指定渲染质量的验证码
+     *
+     * @param balancedAt 达到该数量时使用{@link RenderQuality#BALANCED}
+     * @param fastAt     达到该数量时使用{@link RenderQuality#FAST}
+     */
+    public static void setAutoQuality(int balancedAt, int fastAt) {
+        if (balancedAt <= 0 || fastAt < balancedAt) {
+            throw new IllegalArgumentException("Expected 0 < balancedAt <= fastAt, got " + balancedAt + ", " + fastAt);
         }
-        return success;
+        autoQuality = new AutoQuality(balancedAt, fastAt);
+    }
+
+    /**
+     * 停止自动降低渲染质量
+     */
+    public static void disableAutoQuality() {
+        autoQuality = null;
+    }
+
+    /**
+     * 选择本次渲染的质量：验证码指定的质量优先，其次为按负载降级后的默认质量
+     */
+    private static RenderQuality quality(AbstractCaptcha captcha, AutoQuality auto, int load) {
+        if (captcha.getRenderQuality() != null) {
+            return captcha.getRenderQuality();
+        }
+        RenderQuality quality = defaultQuality;
+        if (auto != null) {
+            RenderQuality degraded = load >= auto.fastAt ? RenderQuality.FAST
+                    : load >= auto.balancedAt ? RenderQuality.BALANCED : RenderQuality.HIGH;
+            if (degraded.ordinal() > quality.ordinal()) {
+                quality = degraded;
+            }
+        }
+        return quality;
     }
 
 
@@ -71,34 +214,44 @@ public class RendererUtils {
      * @param formatType     图片格式（后缀）
      * @param os      输出流
      * @param captcha 验证码
+     * @param quality 渲染质量
+     * @param timer   分阶段计时
      * @return true or false
      */
-    private static boolean rendererImage(String formatType, OutputStream os, AbstractCaptcha captcha) {
+    private static boolean rendererImage(String formatType, OutputStream os, AbstractCaptcha captcha, RenderQuality quality, RenderTimer timer) {
         try {
-            checkCaptcha(captcha);
+            checkCaptcha(captcha, timer);
             // 验证码图片宽度
             Integer width = captcha.getWidth();
             // 验证码图片长度
             int height = captcha.getHeight();
             checkFont(captcha);
+            timer.lap(RenderStage.FONT);
             Font font = captcha.getFont();
             char[] captchaChars = captcha.getCaptchaChars().toCharArray();
             BufferedImage bi = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            // 预渲染背景已包含干扰圆、干扰线与干扰点
+            boolean tiled = captcha.getBackgroundTiles() != null && captcha.getBackgroundTiles().paint(bi, quality);
             Graphics2D g2d = (Graphics2D) bi.getGraphics();
-            // 填充背景
-            g2d.setColor(captcha.getBgColor() == null ? Color.WHITE : captcha.getBgColor());
-            g2d.fillRect(0, 0, width, height);
-            // 抗锯齿
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            // 画干扰圆
-            drawObstructOval(width, height, captcha.getObstructOvalCount(), null, g2d);
-            // 画干扰线
-            drawObstructLine(width, height, captcha.getObstructLineCount(), null, g2d);
-            // 画干扰点
-            drawObstructPoint(width, height, captcha.getObstructPointCount(), null, g2d);
+            if (!tiled) {
+                // 填充背景
+                g2d.setColor(captcha.getBgColor() == null ? Color.WHITE : captcha.getBgColor());
+                g2d.fillRect(0, 0, width, height);
+            }
+            // 抗锯齿等渲染提示
+            g2d.addRenderingHints(quality.getHints());
+            if (!tiled) {
+                // 画干扰圆
+                drawObstructOval(width, height, quality.scale(captcha.getObstructOvalCount()), null, g2d);
+                // 画干扰线
+                drawObstructLine(width, height, quality.scale(captcha.getObstructLineCount()), null, g2d);
+                // 画干扰点
+                drawObstructPoint(width, height, quality.scale(captcha.getObstructPointCount()), null, g2d);
+            }
             // 画干扰线（贝塞尔曲线）
-            g2d.setStroke(new BasicStroke(1.2f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL));
-            drawBezierCurves(width, height, captcha.getBezierCurvesCount(), null, g2d);
+            g2d.setStroke(quality.getStroke());
+            drawBezierCurves(width, height, quality.scale(captcha.getBezierCurvesCount()), null, g2d);
+            timer.lap(RenderStage.BACKGROUND);
             // 画字符串
             g2d.setFont(font);
             FontMetrics fontMetrics = g2d.getFontMetrics();
@@ -113,8 +266,15 @@ public class RendererUtils {
                 g2d.drawString(String.valueOf(captchaChars[i]), i * fW + fSp + 3, fY - 3);
             }
             g2d.dispose();
+            timer.lap(RenderStage.TEXT);
+            if (captcha.getPixelWarp() != null) {
+                captcha.getPixelWarp().apply(bi, PixelWarp.randomPhase(), null);
+                timer.lap(RenderStage.WARP);
+            }
             ImageIO.write(bi, formatType, os);
+            timer.lap(RenderStage.ENCODE);
             os.flush();
+            timer.lap(RenderStage.WRITE);
             return true;
         } catch (IOException e) {
             e.printStackTrace();
@@ -133,11 +293,13 @@ public class RendererUtils {
      *
      * @param os      输出流
      * @param captcha 验证码
+     * @param quality 渲染质量
+     * @param timer   分阶段计时
      * @return true or false
      */
-    private static boolean rendererGif(OutputStream os, AbstractCaptcha captcha) {
+    private static boolean rendererGif(OutputStream os, AbstractCaptcha captcha, RenderQuality quality, RenderTimer timer) {
         try {
-            checkCaptcha(captcha);
+            checkCaptcha(captcha, timer);
             // 验证码图片宽度
             Integer width = captcha.getWidth();
             // 验证码图片长度
@@ -163,18 +325,37 @@ public class RendererUtils {
             int ctrlx1 = RandomUtils.randomNumber(width / 4, width / 4 * 3);
             int ctrly1 = RandomUtils.randomNumber(5, height - 5);
             int[][] besselXY = new int[][]{{x1, y1}, {ctrlx, ctrly}, {ctrlx1, ctrly1}, {x2, y2}};
+            // 各帧共用背景，帧间只有文字透明度不同，只编码变化的区域
+            BufferedImage background = graphicsGifBackground(captcha, fontColor, besselXY, quality, timer);
+            BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
             // 开始画gif每一帧
             AnimatedGifEncoder gifEncoder = new AnimatedGifEncoder();
             gifEncoder.setQuality(180);
             gifEncoder.setDelay(100);
             gifEncoder.setRepeat(0);
+            gifEncoder.setDeltaFrames(true);
+            gifEncoder.setQuantizer(captcha.getQuantizer());
+            gifEncoder.timer = timer;
             gifEncoder.start(os);
-            for (int i = 0; i < captcha.getCaptchaChars().length(); i++) {
-                BufferedImage frame = graphicsGifImage(captcha, fontColor, i, besselXY);
+            // 帧数少于字符数时，各帧的透明度起点在字符间均匀分布
+            int frames = quality.gifFrames(len);
+            timer.frames(frames);
+            // 各帧使用同一相位，文字不会在帧间跳动
+            PixelWarp warp = captcha.getPixelWarp();
+            int phase = warp == null ? 0 : PixelWarp.randomPhase();
+            int[] scratch = null;
+            for (int i = 0; i < frames; i++) {
+                graphicsGifImage(captcha, background, frame, fontColor, i * len / frames, quality, timer);
+                if (warp != null) {
+                    scratch = warp.apply(frame, phase, scratch);
+                    timer.lap(RenderStage.WARP);
+                }
                 gifEncoder.addFrame(frame);
-                frame.flush();
             }
+            frame.flush();
+            background.flush();
             gifEncoder.finish();
+            timer.lap(RenderStage.WRITE);
             return true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -189,43 +370,80 @@ public class RendererUtils {
     }
 
     /**
-     * 画gif随机验证码图
+     * 画gif验证码的背景，各帧共用
      *
      * @param captcha   验证码
      * @param fontColor 随机字体颜色
-     * @param flag      透明度
      * @param besselXY  干扰线参数
-     * @return BufferedImage
+     * @param quality   渲染质量
+     * @param timer     分阶段计时
+     * @return TYPE_INT_RGB的背景图
      */
-    private static BufferedImage graphicsGifImage(AbstractCaptcha captcha, Color[] fontColor, int flag, int[][] besselXY) {
+    private static BufferedImage graphicsGifBackground(AbstractCaptcha captcha, Color[] fontColor, int[][] besselXY, RenderQuality quality, RenderTimer timer) {
         Integer width = captcha.getWidth();
         Integer height = captcha.getHeight();
         checkFont(captcha);
-        Font font = captcha.getFont();
-        char[] captchaChars = captcha.getCaptchaChars().toCharArray();
+        timer.lap(RenderStage.FONT);
         BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        // 预渲染背景已包含干扰圆、干扰线与干扰点
+        boolean tiled = captcha.getBackgroundTiles() != null && captcha.getBackgroundTiles().paint(image, quality);
         Graphics2D g2d = (Graphics2D) image.getGraphics();
-        // 填充背景颜色
-        g2d.setColor(captcha.getBgColor() == null ? Color.WHITE : captcha.getBgColor());
-        g2d.fillRect(0, 0, width, height);
-        // 抗锯齿
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        // 画干扰圆圈, 设置透明度
-        g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.1f * RandomUtils.randomNumber(10)));
-        drawObstructOval(width, height, captcha.getObstructOvalCount(), null, g2d);
-        // 画干扰线
-        drawObstructLine(width, height, captcha.getObstructLineCount(), null, g2d);
-        // 画干扰点
-        drawObstructPoint(width, height, captcha.getObstructPointCount(), null, g2d);
+        if (!tiled) {
+            // 填充背景颜色
+            g2d.setColor(captcha.getBgColor() == null ? Color.WHITE : captcha.getBgColor());
+            g2d.fillRect(0, 0, width, height);
+        }
+        // 抗锯齿等渲染提示
+        g2d.addRenderingHints(quality.getHints());
+        boolean composite = quality.isComposite();
+        if (!tiled) {
+            // 画干扰圆圈, 设置透明度
+            if (composite) {
+                g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.1f * RandomUtils.randomNumber(10)));
+            }
+            drawObstructOval(width, height, quality.scale(captcha.getObstructOvalCount()), null, g2d);
+            // 画干扰线
+            drawObstructLine(width, height, quality.scale(captcha.getObstructLineCount()), null, g2d);
+            // 画干扰点
+            drawObstructPoint(width, height, quality.scale(captcha.getObstructPointCount()), null, g2d);
+        }
         // 画干扰线, 设置透明度
-        g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.7f));
-        drawBezierCurves(width, height, captcha.getBezierCurvesCount(), null, g2d);
-        g2d.setStroke(new BasicStroke(1.2f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL));
+        if (composite) {
+            g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.7f));
+        }
+        drawBezierCurves(width, height, quality.scale(captcha.getBezierCurvesCount()), null, g2d);
+        g2d.setStroke(quality.getStroke());
         g2d.setColor(fontColor[0]);
         CubicCurve2D shape = new CubicCurve2D.Double(besselXY[0][0], besselXY[0][1], besselXY[1][0], besselXY[1][1], besselXY[2][0], besselXY[2][1], besselXY[3][0], besselXY[3][1]);
         g2d.draw(shape);
+        g2d.dispose();
+        timer.lap(RenderStage.BACKGROUND);
+        return image;
+    }
+
+    /**
+     * 画gif随机验证码图：复制背景后画验证码
+     *
+     * @param captcha    验证码
+     * @param background 背景
+     * @param frame      与背景同尺寸的TYPE_INT_RGB图片，原有内容被覆盖
+     * @param fontColor  随机字体颜色
+     * @param flag       透明度
+     * @param quality    渲染质量
+     * @param timer      分阶段计时
+     */
+    private static void graphicsGifImage(AbstractCaptcha captcha, BufferedImage background, BufferedImage frame, Color[] fontColor, int flag, RenderQuality quality, RenderTimer timer) {
+        int[] src = ((DataBufferInt) background.getRaster().getDataBuffer()).getData();
+        int[] dst = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+        System.arraycopy(src, 0, dst, 0, src.length);
+        Integer width = captcha.getWidth();
+        Integer height = captcha.getHeight();
+        char[] captchaChars = captcha.getCaptchaChars().toCharArray();
+        Graphics2D g2d = (Graphics2D) frame.getGraphics();
+        g2d.addRenderingHints(quality.getHints());
+        boolean composite = quality.isComposite();
         // 画验证码
-        g2d.setFont(font);
+        g2d.setFont(captcha.getFont());
         FontMetrics fontMetrics = g2d.getFontMetrics();
         int len = captchaChars.length;
         // 每一个字符所占的宽度
@@ -234,25 +452,29 @@ public class RendererUtils {
         int fSp = (fW - (int) fontMetrics.getStringBounds(alphaPattern(String.valueOf(captchaChars)), g2d).getWidth()) / 2;
         for (int i = 0; i < len; i++) {
             // 设置透明度
-            AlphaComposite ac3 = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha(len, flag, i));
-            g2d.setComposite(ac3);
+            if (composite) {
+                g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha(len, flag, i)));
+            }
             g2d.setColor(fontColor[i % fontColor.length]);
             // 文字的纵坐标
             int fY = height - ((height - (int) fontMetrics.getStringBounds(String.valueOf(captchaChars[i]), g2d).getHeight()) >> 1);
             g2d.drawString(String.valueOf(captchaChars[i]), i * fW + fSp + 3, fY - 3);
         }
         g2d.dispose();
-        return image;
+        timer.lap(RenderStage.TEXT);
     }
 
     /**
      * 检查生成验证码
      *
      * @param captcha 验证码抽象类
+     * @param timer   分阶段计时
      */
-    private static void checkCaptcha(AbstractCaptcha captcha) {
+    private static void checkCaptcha(AbstractCaptcha captcha, RenderTimer timer) {
+        timer.mark();
         if (StringUtils.isEmpty(captcha.getCaptcha()) || StringUtils.isEmpty(captcha.getCaptchaChars())) {
             captcha.generateCaptcha();
+            timer.lap(RenderStage.ANSWER);
         }
     }
 
@@ -343,6 +565,25 @@ public class RendererUtils {
         }
     }
 
+    /**
+     * 绘制干扰圆、干扰线、干扰点与贝塞尔曲线，用于生成预渲染背景
+     *
+     * @param width   宽度
+     * @param height  高度
+     * @param ovals   干扰圆数量
+     * @param lines   干扰线数量
+     * @param points  干扰点数量
+     * @param beziers 贝塞尔曲线数量
+     * @param g       Graphics2D
+     */
+    static void drawNoise(int width, int height, int ovals, int lines, int points, int beziers, Graphics2D g) {
+        drawObstructOval(width, height, ovals, null, g);
+        drawObstructLine(width, height, lines, null, g);
+        drawObstructPoint(width, height, points, null, g);
+        g.setStroke(new BasicStroke(1.2f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL));
+        drawBezierCurves(width, height, beziers, null, g);
+    }
+
     /**
      * 随机画干扰圆
      *
@@ -405,39 +646,88 @@ public class RendererUtils {
 
     /**
      * 创建字体
+     * <p>
+     * 按路径、名称、样式与大小缓存，每种组合只读取一次字体文件；读取失败时回退的Arial字体同样缓存，不再每次打印异常。
      *
      * @return 字体
      */
     public static Font createFont(String fontPath, Integer fontStyle, Integer fontSize, String fontName) {
-        Font font;
-        try {
-            String path = fontPath;
-            if (StringUtils.isEmpty(fontPath)) {
-                path = StringUtils.FOLDER_SEPARATOR + "font" + StringUtils.FOLDER_SEPARATOR;
-            } else {
-                if (!fontPath.startsWith(StringUtils.FOLDER_SEPARATOR)) {
-                    path = StringUtils.FOLDER_SEPARATOR + fontPath;
-                }
-                if (!fontPath.endsWith(StringUtils.FOLDER_SEPARATOR)) {
-                    path = fontPath + StringUtils.FOLDER_SEPARATOR;
-                }
-            }
-            if (fontSize == null || fontSize <= 0) {
-                fontSize = 28;
-            }
-            if (fontStyle == null || fontStyle <= 0) {
-                fontStyle = Font.PLAIN;
+        Object event = CaptchaEvents.beginFontLoad();
+        String path = fontPath;
+        if (StringUtils.isEmpty(fontPath)) {
+            path = StringUtils.FOLDER_SEPARATOR + "font" + StringUtils.FOLDER_SEPARATOR;
+        } else {
+            if (!fontPath.startsWith(StringUtils.FOLDER_SEPARATOR)) {
+                path = StringUtils.FOLDER_SEPARATOR + fontPath;
             }
-            if (StringUtils.isEmpty(fontName)) {
-                fontName = "microsoft_yahei.ttf";
+            if (!fontPath.endsWith(StringUtils.FOLDER_SEPARATOR)) {
+                path = fontPath + StringUtils.FOLDER_SEPARATOR;
             }
-            font = Font.createFont(Font.TRUETYPE_FONT, RendererUtils.class.getResourceAsStream(path + fontName)).deriveFont(fontStyle, fontSize);
+        }
+        int size = fontSize == null || fontSize <= 0 ? 28 : fontSize;
+        int style = fontStyle == null || fontStyle <= 0 ? Font.PLAIN : fontStyle;
+        String name = StringUtils.isEmpty(fontName) ? "microsoft_yahei.ttf" : fontName;
+        String resource = path + name;
+        String key = resource + '|' + style + '|' + size;
+        Font font = FONT_CACHE.get(key);
+        boolean cached = font != null;
+        if (cached) {
+            FONT_CACHE_HITS.increment();
+        } else {
+            FONT_CACHE_MISSES.increment();
+            font = FONT_CACHE.computeIfAbsent(key, k -> loadFont(resource, style, size));
+        }
+        CaptchaEvents.endFontLoad(event, name, cached);
+        return font;
+    }
+
+    /**
+     * 字体缓存命中次数
+     *
+     * @return 次数
+     */
+    public static long fontCacheHits() {
+        return FONT_CACHE_HITS.sum();
+    }
+
+    /**
+     * 字体缓存未命中次数
+     *
+     * @return 次数
+     */
+    public static long fontCacheMisses() {
+        return FONT_CACHE_MISSES.sum();
+    }
+
+    /**
+     * 已缓存的字体数量
+     *
+     * @return 数量
+     */
+    public static int fontCacheSize() {
+        return FONT_CACHE.size();
+    }
+
+    private static Font loadFont(String resource, int style, int size) {
+        try {
+            return Font.createFont(Font.TRUETYPE_FONT, RendererUtils.class.getResourceAsStream(resource)).deriveFont(style, (float) size);
         } catch (Exception e) {
-            font = new Font("Arial", Font.PLAIN, 28);
             e.printStackTrace();
+            return new Font("Arial", Font.PLAIN, 28);
         }
-        return font;
     }
 
-}
+    /**
+     * 自动降级的阈值
+     */
+    private static final class AutoQuality {
+        private final int balancedAt;
 
+        private final int fastAt;
+
+        AutoQuality(int balancedAt, int fastAt) {
+            this.balancedAt = balancedAt;
+            this.fastAt = fastAt;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.utils;
+
+/**
+ * <p>
+ * JFR事件（Java 11及以上）
+ * </p>
+ * 多版本jar中替换基础版本的同名类。开始方法先检查事件是否启用，没有记录或在JFR配置中关闭时返回null，
+ * 不创建事件对象也不读取时间；启用时在结束方法中按阈值决定是否提交。
+ * 事件名为com.github.zh9131101.CaptchaRender、com.github.zh9131101.CaptchaVerify与com.github.zh9131101.FontLoad。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 21:20
+ * @since 1.1
+ */
+
+final class CaptchaEvents {
+    private static final CaptchaRenderEvent RENDER = new CaptchaRenderEvent();
+
+    private static final CaptchaVerifyEvent VERIFY = new CaptchaVerifyEvent();
+
+    private static final FontLoadEvent FONT_LOAD = new FontLoadEvent();
+
+    private CaptchaEvents() {
+    }
+
+    static Object beginRender() {
+        if (!RENDER.isEnabled()) {
+            return null;
+        }
+        CaptchaRenderEvent event = new CaptchaRenderEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endRender(Object event, String format, int width, int height, int frames, long bytes, boolean success) {
+        if (event == null) {
+            return;
+        }
+        CaptchaRenderEvent render = (CaptchaRenderEvent) event;
+        render.end();
+        if (render.shouldCommit()) {
+            render.format = format;
+            render.width = width;
+            render.height = height;
+            render.frames = frames;
+            render.bytes = bytes;
+            render.success = success;
+            render.commit();
+        }
+    }
+
+    static Object beginVerify() {
+        if (!VERIFY.isEnabled()) {
+            return null;
+        }
+        CaptchaVerifyEvent event = new CaptchaVerifyEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endVerify(Object event, String store, boolean verified) {
+        if (event == null) {
+            return;
+        }
+        CaptchaVerifyEvent verify = (CaptchaVerifyEvent) event;
+        verify.end();
+        if (verify.shouldCommit()) {
+            verify.store = store;
+            verify.verified = verified;
+            verify.commit();
+        }
+    }
+
+    static Object beginFontLoad() {
+        if (!FONT_LOAD.isEnabled()) {
+            return null;
+        }
+        FontLoadEvent event = new FontLoadEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endFontLoad(Object event, String name, boolean cached) {
+        if (event == null) {
+            return;
+        }
+        FontLoadEvent fontLoad = (FontLoadEvent) event;
+        fontLoad.end();
+        if (fontLoad.shouldCommit()) {
+            fontLoad.name = name;
+            fontLoad.cached = cached;
+            fontLoad.commit();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * <p>
+ * 验证码渲染事件
+ * </p>
+ * 从开始渲染到写出完成，持续时间即整次渲染的耗时。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 21:20
+ * @since 1.1
+ */
+
+@Name("com.github.zh9131101.CaptchaRender")
+@Label("Captcha Render")
+@Category("zhCaptcha")
+@Description("渲染一张验证码图片")
+@StackTrace(false)
+class CaptchaRenderEvent extends Event {
+    @Label("Format")
+    String format;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Frames")
+    int frames;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Success")
+    boolean success;
+}
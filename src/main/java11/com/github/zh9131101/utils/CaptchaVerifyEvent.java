@@ -0,0 +1,48 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * <p>
+ * 验证码校验事件
+ * </p>
+ * 存储为验证码存储的类名，令牌校验为token，session校验为session。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-19 21:20
+ * @since 1.1
+ */
+
+@Name("com.github.zh9131101.CaptchaVerify")
+@Label("Captcha Verify")
+@Category("zhCaptcha")
+@Description("校验一次用户输入的验证码")
+@StackTrace(false)
+class CaptchaVerifyEvent extends Event {
+    @Label("Store")
+    String store;
+
+    @Label("Verified")
+    boolean verified;
+}
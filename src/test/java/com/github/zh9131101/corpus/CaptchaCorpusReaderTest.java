@@ -0,0 +1,216 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.corpus;
+
+import com.github.zh9131101.store.MemoryCaptchaStore;
+import com.github.zh9131101.utils.CaptchaUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * CaptchaCorpusReader测试：位图取用、.used使用记录的持久化与重置、分段读取，以及按id校验预渲染验证码
+ * </p>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-21 10:20
+ * @since 1.1
+ */
+
+public class CaptchaCorpusReaderTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void nextServesEveryEntryExactlyOnce() throws IOException {
+        // 130条跨越三个位图字，最后一个字只有2位有效
+        Path path = corpus("a", 130, "");
+        try (CaptchaCorpusReader reader = CaptchaCorpusReader.open(path, null)) {
+            assertEquals(130, reader.size());
+            assertEquals("png", reader.getFormatType());
+            Set<Integer> seen = new HashSet<>();
+            for (int i = 0; i < 130; i++) {
+                CaptchaCorpusEntry entry = reader.next();
+                assertTrue(seen.add(entry.getIndex()));
+                assertArrayEquals(image(entry.getIndex()), bytes(entry));
+                assertTrue(entry.verify(answer("", entry.getIndex()).toUpperCase()));
+                assertEquals(129 - i, reader.remaining());
+            }
+            assertNull(reader.next());
+            assertEquals(0, reader.remaining());
+        }
+    }
+
+    @Test
+    public void usedEntriesAreNotServedAfterReopen() throws IOException {
+        Path path = corpus("b", 100, "");
+        Set<Integer> taken = new HashSet<>();
+        try (CaptchaCorpusReader reader = CaptchaCorpusReader.open(path)) {
+            for (int i = 0; i < 40; i++) {
+                taken.add(reader.next().getIndex());
+            }
+        }
+        assertTrue(Files.exists(path.resolveSibling(path.getFileName() + CaptchaCorpusReader.USED_SUFFIX)));
+        try (CaptchaCorpusReader reader = CaptchaCorpusReader.open(path)) {
+            assertEquals(60, reader.remaining());
+            for (int i = 0; i < 60; i++) {
+                assertFalse(taken.contains(reader.next().getIndex()));
+            }
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void regeneratedCorpusResetsUsedRecord() throws IOException {
+        Path path = corpus("c", 50, "old");
+        try (CaptchaCorpusReader reader = CaptchaCorpusReader.open(path)) {
+            for (int i = 0; i < 30; i++) {
+                reader.next();
+            }
+        }
+        // 条目数与文件大小都不变，只有答案不同
+        corpus("c", 50, "new");
+        try (CaptchaCorpusReader reader = CaptchaCorpusReader.open(path)) {
+            assertEquals(50, reader.remaining());
+        }
+    }
+
+    @Test
+    public void memoryOnlyReaderForgetsUsedEntries() throws IOException {
+        Path path = corpus("d", 10, "");
+        for (int round = 0; round < 2; round++) {
+            try (CaptchaCorpusReader reader = CaptchaCorpusReader.open(path, null)) {
+                assertEquals(10, reader.remaining());
+                for (int i = 0; i < 10; i++) {
+                    reader.next();
+                }
+            }
+        }
+        assertFalse(Files.exists(path.resolveSibling(path.getFileName() + CaptchaCorpusReader.USED_SUFFIX)));
+    }
+
+    @Test
+    public void secondReaderOnSameCorpusIsRejected() throws IOException {
+        Path path = corpus("e", 4, "");
+        try (CaptchaCorpusReader reader = CaptchaCorpusReader.open(path)) {
+            try {
+                CaptchaCorpusReader.open(path).close();
+                fail("corpus opened twice");
+            } catch (IOException expected) {
+                // 使用记录已被锁定
+            }
+            assertEquals(4, reader.remaining());
+        }
+        CaptchaCorpusReader.open(path).close();
+    }
+
+    @Test
+    public void entriesAreReadFromTheirSegment() throws IOException {
+        // 稀疏文件：条目1恰好结束在第一段末尾，条目2位于第二段起始
+        Path path = folder.getRoot().toPath().resolve("segments.corpus");
+        long dataOffset = CaptchaCorpusWriter.HEADER_SIZE + 3L * CaptchaCorpusWriter.INDEX_ENTRY_SIZE;
+        long[] offsets = {dataOffset, dataOffset + CaptchaCorpusWriter.SEGMENT_SIZE - 4,
+                dataOffset + CaptchaCorpusWriter.SEGMENT_SIZE};
+        byte[][] images = {{1, 2, 3}, {4, 5, 6, 7}, {8, 9, 10, 11, 12}};
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(CaptchaCorpusWriter.HEADER_SIZE);
+            header.putInt(CaptchaCorpusWriter.MAGIC).putInt(CaptchaCorpusWriter.VERSION).putInt(3);
+            header.put("png".getBytes(StandardCharsets.US_ASCII));
+            header.position(12 + CaptchaCorpusWriter.FORMAT_SIZE);
+            header.putLong(dataOffset);
+            header.clear();
+            channel.write(header, 0);
+            ByteBuffer index = ByteBuffer.allocate(3 * CaptchaCorpusWriter.INDEX_ENTRY_SIZE);
+            for (int i = 0; i < 3; i++) {
+                index.putLong(offsets[i]).putInt(images[i].length).put(CaptchaCorpusEntry.hash("s" + i));
+                channel.write(ByteBuffer.wrap(images[i]), offsets[i]);
+            }
+            index.flip();
+            channel.write(index, CaptchaCorpusWriter.HEADER_SIZE);
+        }
+        try (CaptchaCorpusReader reader = CaptchaCorpusReader.open(path, null)) {
+            for (int i = 0; i < 3; i++) {
+                CaptchaCorpusEntry entry = reader.get(i);
+                assertArrayEquals(images[i], bytes(entry));
+                assertTrue(entry.verify("s" + i));
+            }
+        }
+    }
+
+    @Test
+    public void corpusCaptchaVerifiesByIdThroughStore() throws IOException {
+        Path path = corpus("f", 1, "");
+        MemoryCaptchaStore store = new MemoryCaptchaStore();
+        try (CaptchaCorpusReader reader = CaptchaCorpusReader.open(path, null)) {
+            CaptchaCorpusEntry entry = reader.next();
+            String id = CaptchaUtils.storeCache(store, entry.getAnswerKey());
+            assertFalse(CaptchaUtils.storeVerifyCorpus(store, id, "wrong"));
+            String retry = CaptchaUtils.storeCache(store, entry.getAnswerKey());
+            assertFalse(CaptchaUtils.storeVerify(store, retry, answer("", 0)));
+            String plain = CaptchaUtils.storeCache(store, entry.getAnswerKey());
+            assertTrue(CaptchaUtils.storeVerifyCorpus(store, plain, answer("", 0).toUpperCase()));
+            assertFalse(CaptchaUtils.storeVerifyCorpus(store, plain, answer("", 0)));
+        }
+    }
+
+    private Path corpus(String name, int count, String salt) throws IOException {
+        Path path = folder.getRoot().toPath().resolve(name + ".corpus");
+        try (CaptchaCorpusWriter writer = new CaptchaCorpusWriter(path, "png", count)) {
+            for (int i = 0; i < count; i++) {
+                writer.append(image(i), answer(salt, i));
+            }
+        }
+        return path;
+    }
+
+    private static String answer(String salt, int i) {
+        return salt + "ab" + i;
+    }
+
+    private static byte[] image(int i) {
+        byte[] image = new byte[1 + i % 7];
+        for (int j = 0; j < image.length; j++) {
+            image[j] = (byte) (i + j);
+        }
+        return image;
+    }
+
+    private static byte[] bytes(CaptchaCorpusEntry entry) {
+        ByteBuffer image = entry.getImage();
+        byte[] bytes = new byte[image.remaining()];
+        image.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.limit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * TokenBucketLimiter测试
+ * </p>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-20 18:40
+ * @since 1.1
+ */
+
+public class TokenBucketLimiterTest {
+    @Test
+    public void burstIsAvailableImmediately() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 10);
+        assertEquals(10, drain(limiter, "client"));
+    }
+
+    @Test
+    public void tokensRefillOverTime() throws InterruptedException {
+        // 每20毫秒补充一个令牌
+        TokenBucketLimiter limiter = new TokenBucketLimiter(50, 2);
+        assertEquals(2, drain(limiter, "client"));
+        Thread.sleep(100);
+        int refilled = drain(limiter, "client");
+        // 补充的令牌不超过桶容量
+        assertTrue(refilled >= 1 && refilled <= 2);
+    }
+
+    @Test
+    public void clientsHaveSeparateBuckets() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1 << 20, 1, 3);
+        assertEquals(3, drain(limiter, "a"));
+        assertTrue(limiter.tryAcquire("b"));
+    }
+
+    @Test
+    public void maximumBurstFitsTokenBits() {
+        // 4095个令牌的定点数恰好不超过22位，不会进位到时间戳
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 0.001, TokenBucketLimiter.MAX_BURST);
+        assertEquals(TokenBucketLimiter.MAX_BURST, drain(limiter, "client"));
+    }
+
+    @Test
+    public void slowestRateStillStartsFull() {
+        // 补满一个桶约需30年，时间戳仍在42位之内
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, TokenBucketLimiter.MAX_BURST / (30 * 365.25 * 86400), TokenBucketLimiter.MAX_BURST);
+        assertEquals(TokenBucketLimiter.MAX_BURST, drain(limiter, "client"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rateThatOverflowsTimestampIsRejected() {
+        new TokenBucketLimiter(1, 1e-9, TokenBucketLimiter.MAX_BURST);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void burstAboveMaximumIsRejected() {
+        new TokenBucketLimiter(1, TokenBucketLimiter.MAX_BURST + 1);
+    }
+
+    /**
+     * 连续获取直到被限流，返回成功次数
+     */
+    private static int drain(TokenBucketLimiter limiter, String key) {
+        int acquired = 0;
+        while (limiter.tryAcquire(key)) {
+            acquired++;
+            if (acquired > TokenBucketLimiter.MAX_BURST) {
+                break;
+            }
+        }
+        assertFalse(limiter.tryAcquire(key));
+        return acquired;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.quantize;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * OctreeQuantizer测试
+ * </p>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-20 17:30
+ * @since 1.1
+ */
+
+public class OctreeQuantizerTest {
+    @Test
+    public void paletteNeverExceedsMaxColors() {
+        byte[] pixels = colourful(128, 128);
+        for (int maxColors : new int[]{2, 3, 4, 7, 8, 9, 64, 256}) {
+            IQuantizer.Palette palette = new OctreeQuantizer(maxColors).quantize(pixels, pixels.length);
+            int colors = palette.getColorTab().length / 3;
+            assertTrue("maxColors " + maxColors + ": " + colors, colors >= 1 && colors <= maxColors);
+            for (int k = 0; k < pixels.length; k += 3) {
+                int index = palette.map(pixels[k] & 0xff, pixels[k + 1] & 0xff, pixels[k + 2] & 0xff);
+                assertTrue(index >= 0 && index < colors);
+            }
+        }
+    }
+
+    @Test
+    public void fewColorsAreKeptExactly() {
+        int[] rgb = {0xFFFFFF, 0x000000, 0xFF0000, 0x00FF00, 0x0000FF};
+        byte[] pixels = new byte[rgb.length * 10 * 3];
+        for (int i = 0; i < pixels.length / 3; i++) {
+            int c = rgb[i % rgb.length];
+            pixels[i * 3] = (byte) c;
+            pixels[i * 3 + 1] = (byte) (c >> 8);
+            pixels[i * 3 + 2] = (byte) (c >> 16);
+        }
+        IQuantizer.Palette palette = new OctreeQuantizer(8).quantize(pixels, pixels.length);
+        byte[] colorTab = palette.getColorTab();
+        assertEquals(rgb.length * 3, colorTab.length);
+        for (int c : rgb) {
+            int index = palette.map(c & 0xff, (c >> 8) & 0xff, (c >> 16) & 0xff);
+            assertEquals(c, (colorTab[index * 3] & 0xff) << 16 | (colorTab[index * 3 + 1] & 0xff) << 8 | colorTab[index * 3 + 2] & 0xff);
+        }
+    }
+
+    /**
+     * BGR像素：渐变加随机噪声，覆盖八叉树第一层的全部分支
+     */
+    private static byte[] colourful(int width, int height) {
+        Random random = new Random(42);
+        byte[] pixels = new byte[width * height * 3];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int k = (y * width + x) * 3;
+                pixels[k] = (byte) ((x ^ y) * 2 + random.nextInt(8));
+                pixels[k + 1] = (byte) (y * 2 + random.nextInt(8));
+                pixels[k + 2] = (byte) (x * 2 + random.nextInt(8));
+            }
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import com.github.zh9131101.token.CaptchaTokenSigner;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * 答案规范化测试：摘要、原文与令牌三种校验对同一输入的结果一致
+ * </p>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-20 19:05
+ * @since 1.1
+ */
+
+public class AnswerDigestTest {
+    private static final String[] SAME_AS_AB12 = {"ab12", " AB12 ", "ＡＢ１２", "　ａＢ１２　", "\tAb12\n"};
+
+    @Test
+    public void normalizeFoldsWidthCaseAndSpaces() {
+        for (String input : SAME_AS_AB12) {
+            assertEquals("ab12", AnswerDigest.normalize(input));
+        }
+        assertEquals("中文 答案", AnswerDigest.normalize(" 中文 答案　"));
+        assertEquals("", AnswerDigest.normalize("　 "));
+    }
+
+    @Test
+    public void bufferAndStringNormalizationAgree() {
+        for (String input : new String[]{"ＡＢ１２", " 中文 ", "x😀y", "1+2=?"}) {
+            byte[] out = new byte[input.length() * 3];
+            int n = AnswerDigest.normalize(input, out);
+            assertArrayEquals(AnswerDigest.normalize(input).getBytes(StandardCharsets.UTF_8), Arrays.copyOf(out, n));
+        }
+    }
+
+    @Test
+    public void allVerifyPathsAgree() {
+        AnswerDigest digest = new AnswerDigest(1, 2);
+        CaptchaTokenSigner signer = new CaptchaTokenSigner();
+        String token = signer.issue("AB12", 60);
+        for (String input : SAME_AS_AB12) {
+            assertTrue(input, digest.matches(digest.hash("AB12"), input));
+            assertTrue(input, AnswerDigest.matchesPlain("AB12", input));
+            assertTrue(input, signer.verify(token, input));
+        }
+        assertFalse(digest.matches(digest.hash("AB12"), "AB13"));
+        assertFalse(AnswerDigest.matchesPlain("AB12", "AB13"));
+        assertFalse(signer.verify(token, "AB13"));
+    }
+}
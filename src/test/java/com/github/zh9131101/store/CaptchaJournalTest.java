@@ -0,0 +1,188 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * CaptchaJournal测试：重启恢复、写了一半的记录、快照与其后分段的重放
+ * </p>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-20 18:10
+ * @since 1.1
+ */
+
+public class CaptchaJournalTest {
+    /**
+     * 保存记录长度：长度(4) CRC32(4) 类型(1) id(16) 过期时间(8) 答案摘要(8)
+     */
+    private static final int PUT_RECORD_BYTES = 8 + 33;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void restartRestoresLiveEntriesAndDropsRemovedOnes() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        CaptchaJournal journal = journal(directory, 1 << 20);
+        MemoryCaptchaStore store = store(journal);
+        store.put("live", "abcd", 60);
+        store.put("verified", "abcd", 60);
+        store.put("removed", "abcd", 60);
+        assertTrue(store.verifyAndRemove("verified", "abcd"));
+        store.remove("removed");
+        journal.close();
+
+        journal = journal(directory, 1 << 20);
+        store = store(journal);
+        assertEquals(1, store.size());
+        assertTrue(store.verifyAndRemove("live", " ABCD "));
+        assertFalse(store.verifyAndRemove("verified", "abcd"));
+        assertFalse(store.verifyAndRemove("removed", "abcd"));
+        journal.close();
+    }
+
+    @Test
+    public void tornTrailingRecordIsIgnored() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        CaptchaJournal journal = journal(directory, 1 << 20);
+        MemoryCaptchaStore store = store(journal);
+        store.put("first", "abcd", 60);
+        store.put("second", "abcd", 60);
+        journal.close();
+        // 打开日志时切换到1号分段，两条记录依次写在开头；改坏第二条记录的最后一个字节
+        Path segment = directory.resolve(String.format("%016x.log", 1));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            long last = PUT_RECORD_BYTES * 2 - 1;
+            channel.read(b, last);
+            b.put(0, (byte) (b.get(0) ^ 0xFF)).rewind();
+            channel.write(b, last);
+        }
+
+        journal = journal(directory, 1 << 20);
+        store = store(journal);
+        assertEquals(1, store.size());
+        assertTrue(store.verifyAndRemove("first", "abcd"));
+        assertFalse(store.verifyAndRemove("second", "abcd"));
+        journal.close();
+    }
+
+    @Test
+    public void snapshotThenTailReplay() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        CaptchaJournal journal = journal(directory, 1 << 20);
+        MemoryCaptchaStore store = store(journal);
+        store.put("a", "abcd", 60);
+        store.put("b", "abcd", 60);
+        store.put("c", "abcd", 60);
+        journal.snapshot();
+        // 快照之前的分段已删除
+        assertEquals(1, list(directory, "*.snap").size());
+        assertEquals(1, list(directory, "*.log").size());
+        store.remove("a");
+        store.put("b", "efgh", 60);
+        store.put("d", "abcd", 60);
+        journal.close();
+
+        journal = journal(directory, 1 << 20);
+        store = store(journal);
+        assertEquals(3, store.size());
+        assertFalse(store.verifyAndRemove("a", "abcd"));
+        assertTrue(store.verifyAndRemove("b", "efgh"));
+        assertTrue(store.verifyAndRemove("c", "abcd"));
+        assertTrue(store.verifyAndRemove("d", "abcd"));
+        journal.close();
+    }
+
+    @Test
+    public void concurrentAppendsAcrossSegmentsAreRestored() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        // 小分段：并发写入时频繁切换分段
+        CaptchaJournal journal = journal(directory, 4096);
+        MemoryCaptchaStore store = store(journal);
+        int threads = 4;
+        int perThread = 2000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    store.put(thread + "-" + i, "a" + i, 60);
+                    if (i % 4 == 0) {
+                        store.remove(thread + "-" + i);
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        journal.close();
+        assertTrue(list(directory, "*.log").size() > 10);
+
+        journal = journal(directory, 4096);
+        MemoryCaptchaStore restored = store(journal);
+        assertEquals(threads * perThread * 3 / 4, restored.size());
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < perThread; i++) {
+                assertEquals(i % 4 != 0, restored.verifyAndRemove(t + "-" + i, "a" + i));
+            }
+        }
+        journal.close();
+    }
+
+    private static CaptchaJournal journal(Path directory, int segmentBytes) {
+        // 不自动生成快照，由测试控制
+        return new CaptchaJournal(directory, segmentBytes, 50, 3_600_000);
+    }
+
+    private static MemoryCaptchaStore store(CaptchaJournal journal) {
+        return new MemoryCaptchaStore(4, 16, MemoryCaptchaStore.DEFAULT_TICK_MILLIS, journal);
+    }
+
+    private static List<Path> list(Path directory, String glob) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path path : stream) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+}
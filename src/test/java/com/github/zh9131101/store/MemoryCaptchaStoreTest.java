@@ -0,0 +1,85 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * MemoryCaptchaStore测试
+ * </p>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-20 15:10
+ * @since 1.1
+ */
+
+public class MemoryCaptchaStoreTest {
+    @Test
+    public void putThenVerifyOnce() {
+        MemoryCaptchaStore store = new MemoryCaptchaStore(1, 16, MemoryCaptchaStore.DEFAULT_TICK_MILLIS);
+        store.put("a", "Ab3d", 60);
+        assertFalse(store.verifyAndRemove("a", "xxxx"));
+        store.put("b", "Ab3d", 60);
+        assertTrue(store.verifyAndRemove("b", " aB3D "));
+        assertFalse(store.verifyAndRemove("b", "Ab3d"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void verifiedEntriesDoNotAccumulateInWheel() {
+        MemoryCaptchaStore store = new MemoryCaptchaStore(1, 16, MemoryCaptchaStore.DEFAULT_TICK_MILLIS, 64, 0, null);
+        for (int i = 0; i < 100000; i++) {
+            String id = "id" + i;
+            store.put(id, "abcd", 300);
+            if ((i & 1) == 0) {
+                assertTrue(store.verifyAndRemove(id, "abcd"));
+            } else {
+                store.remove(id);
+            }
+        }
+        assertEquals(0, store.size());
+        assertTrue(store.scheduledCount() <= 64 * 2 + 64);
+    }
+
+    @Test
+    public void evictedEntriesDoNotAccumulateInWheel() {
+        MemoryCaptchaStore store = new MemoryCaptchaStore(1, 16, MemoryCaptchaStore.DEFAULT_TICK_MILLIS, 64, 0, null);
+        for (int i = 0; i < 100000; i++) {
+            store.put("id" + i, "abcd", 300);
+        }
+        assertEquals(64, store.size());
+        assertEquals(100000 - 64, store.evictionCount());
+        assertTrue(store.scheduledCount() <= 64 * 2 + 64);
+        // 最近写入的验证码带引用位，不会被淘汰
+        assertTrue(store.verifyAndRemove("id99999", "abcd"));
+    }
+
+    @Test
+    public void reputSameIdSchedulesOnce() {
+        MemoryCaptchaStore store = new MemoryCaptchaStore(1, 16, 60000);
+        for (int i = 0; i < 1000; i++) {
+            store.put("a", "abcd", 300);
+        }
+        assertEquals(1, store.size());
+        assertTrue(store.scheduledCount() <= 2);
+    }
+}
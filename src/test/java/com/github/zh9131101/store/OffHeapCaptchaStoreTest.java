@@ -0,0 +1,163 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * OffHeapCaptchaStore测试
+ * </p>
+ * 过期时间精度为秒，过期相关测试写入ttl为1秒的验证码后等待1.1秒。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-21 14:30
+ * @since 1.1
+ */
+
+public class OffHeapCaptchaStoreTest {
+    @Test
+    public void putThenVerifyOnce() {
+        OffHeapCaptchaStore store = new OffHeapCaptchaStore(1, 16, 1);
+        store.put("a", "Ab3d", 60);
+        assertFalse(store.verifyAndRemove("a", "xxxx"));
+        assertFalse(store.verifyAndRemove("a", "Ab3d"));
+        store.put("b", "Ab3d", 60);
+        assertTrue(store.verifyAndRemove("b", " aB3D "));
+        assertFalse(store.verifyAndRemove("b", "Ab3d"));
+        store.put("c", "Ab3d", 60);
+        store.remove("c");
+        assertFalse(store.verifyAndRemove("c", "Ab3d"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void failedAttemptsRemoveAtMaxAttempts() {
+        OffHeapCaptchaStore store = new OffHeapCaptchaStore(1, 16, 3);
+        store.put("a", "abcd", 60);
+        assertFalse(store.verifyAndRemove("a", "xxxx"));
+        assertFalse(store.verifyAndRemove("a", null));
+        assertTrue(store.verifyAndRemove("a", "abcd"));
+
+        store.put("b", "abcd", 60);
+        for (int i = 0; i < 3; i++) {
+            assertFalse(store.verifyAndRemove("b", "xxxx"));
+        }
+        assertEquals(0, store.size());
+        assertFalse(store.verifyAndRemove("b", "abcd"));
+
+        // 重新写入清零失败次数
+        store.put("c", "abcd", 60);
+        assertFalse(store.verifyAndRemove("c", "xxxx"));
+        assertFalse(store.verifyAndRemove("c", "xxxx"));
+        store.put("c", "abcd", 60);
+        assertFalse(store.verifyAndRemove("c", "xxxx"));
+        assertFalse(store.verifyAndRemove("c", "xxxx"));
+        assertTrue(store.verifyAndRemove("c", "abcd"));
+    }
+
+    @Test
+    public void expiredEntriesAreRemovedWhileProbing() throws InterruptedException {
+        OffHeapCaptchaStore store = new OffHeapCaptchaStore(1, 16, 1);
+        // 三个id散列到同一槽位：过期的first在探测链最前，second和third需越过它
+        List<String> ids = sameHomeSlot(3, 16);
+        store.put(ids.get(0), "abcd", 1);
+        store.put(ids.get(1), "abcd", 60);
+        store.put(ids.get(2), "abcd", 60);
+        store.put("other", "abcd", 1);
+        assertEquals(4, store.size());
+        Thread.sleep(1100);
+        assertTrue(store.verifyAndRemove(ids.get(1), "abcd"));
+        // 探测时删除了first，后移删除后third仍可找到
+        assertEquals(2, store.size());
+        assertTrue(store.verifyAndRemove(ids.get(2), "abcd"));
+        assertFalse(store.verifyAndRemove(ids.get(0), "abcd"));
+        assertFalse(store.verifyAndRemove("other", "abcd"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void fullSegmentRejectsNewIds() {
+        // 8个槽，至少保留一个空槽作为探测终点
+        OffHeapCaptchaStore store = new OffHeapCaptchaStore(1, 4, 1, 8);
+        for (int i = 0; i < 7; i++) {
+            store.put("id" + i, "abcd", 60);
+        }
+        assertEquals(8 * 32, store.capacityBytes());
+        try {
+            store.put("id7", "abcd", 60);
+            fail("segment accepted more than capacity - 1 entries");
+        } catch (IllegalStateException expected) {
+            // 分段已满
+        }
+        // 已存在的id仍可覆盖写入
+        store.put("id0", "efgh", 60);
+        assertEquals(7, store.size());
+        for (int i = 1; i < 7; i++) {
+            assertTrue(store.verifyAndRemove("id" + i, "abcd"));
+        }
+        assertTrue(store.verifyAndRemove("id0", "efgh"));
+        store.put("id7", "abcd", 60);
+        assertTrue(store.verifyAndRemove("id7", "abcd"));
+    }
+
+    @Test
+    public void fullSegmentReclaimsExpiredEntries() throws InterruptedException {
+        OffHeapCaptchaStore store = new OffHeapCaptchaStore(1, 4, 1, 8);
+        for (int i = 0; i < 7; i++) {
+            store.put("id" + i, "abcd", 1);
+        }
+        Thread.sleep(1100);
+        // 写入只增量清理少量槽位，分段满时再全量清理，不会因过期记录拒绝写入
+        for (int i = 7; i < 14; i++) {
+            store.put("id" + i, "abcd", 60);
+        }
+        assertFalse(store.verifyAndRemove("id0", "abcd"));
+        store.cleanUp();
+        assertEquals(7, store.size());
+        for (int i = 7; i < 14; i++) {
+            assertTrue(store.verifyAndRemove("id" + i, "abcd"));
+        }
+    }
+
+    /**
+     * 找出在容量为capacity的表中初始槽位相同的id
+     */
+    private static List<String> sameHomeSlot(int count, int capacity) {
+        List<String> ids = new ArrayList<>();
+        int home = -1;
+        for (int i = 0; ids.size() < count; i++) {
+            String id = "id" + i;
+            int slot = (int) CaptchaIds.mix(CaptchaIds.high(id), CaptchaIds.low(id)) & (capacity - 1);
+            if (home < 0) {
+                home = slot;
+            }
+            if (slot == home) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
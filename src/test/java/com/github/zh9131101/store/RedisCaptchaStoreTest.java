@@ -0,0 +1,200 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * RedisCaptchaStore测试
+ * </p>
+ * 连接{@link RespServer}，覆盖流水线批量写出、过期、连接断开后重连与关闭。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-20 10:00
+ * @since 1.1
+ */
+
+public class RedisCaptchaStoreTest {
+    private RespServer server;
+
+    private RedisCaptchaStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RespServer();
+        store = new RedisCaptchaStore("127.0.0.1", server.getPort(), "secret", 1,
+                RedisCaptchaStore.DEFAULT_KEY_PREFIX, 5000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.close();
+        server.close();
+    }
+
+    @Test
+    public void putThenVerifyOnce() {
+        store.put("a", " Ab3d ", 60);
+        assertNotNull(server.get("captcha:a"));
+        assertFalse(store.verifyAndRemove("a", "wrong"));
+        store.put("a", "Ab3d", 60);
+        assertTrue(store.verifyAndRemove("a", "aB3D"));
+        assertFalse(store.verifyAndRemove("a", "aB3D"));
+        assertNull(server.get("captcha:a"));
+    }
+
+    @Test
+    public void answersAreHashedOnceKeyIsConfigured() {
+        store.put("plain", "abcd", 60);
+        AnswerDigest.setDefault(new AnswerDigest(1, 2));
+        try {
+            store.put("a", "Ab3d", 60);
+            assertTrue(server.get("captcha:a").startsWith("#"));
+            assertFalse(server.get("captcha:a").contains("Ab3d"));
+            assertTrue(store.verifyAndRemove("a", "aB3D "));
+            // 配置密钥之前保存的原文答案
+            assertTrue(store.verifyAndRemove("plain", "ABCD"));
+            store.put("b", "abcd", 60);
+            AnswerDigest.setDefault(new AnswerDigest(3, 4));
+            assertFalse(store.verifyAndRemove("b", "abcd"));
+        } finally {
+            AnswerDigest.setDefault(null);
+        }
+    }
+
+    @Test
+    public void concurrentCommandsArePipelined() throws Exception {
+        // 先建立连接，认证与选择数据库的回复不计入
+        store.remove("warm");
+        int commands = server.commands();
+        int flushes = server.flushes();
+        server.pause();
+        Map<String, String> answers = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            answers.put("id" + i, "v" + i);
+        }
+        CompletableFuture<Void> put = CompletableFuture.runAsync(() -> store.putAll(answers, 60));
+        // I/O线程等待第一批回复时，其余命令在队列中积累
+        Thread.sleep(200);
+        server.resume();
+        put.get(5, TimeUnit.SECONDS);
+        assertEquals(100, server.commands() - commands);
+        // 第一条命令可能单独成批，其余命令在一两批内写出
+        assertTrue("flushes: " + (server.flushes() - flushes), server.flushes() - flushes <= 3);
+
+        Map<String, String> captchas = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            captchas.put("id" + i, i % 2 == 0 ? "v" + i : "x");
+        }
+        Map<String, Boolean> result = store.verifyAndRemoveAll(captchas);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 0, result.get("id" + i));
+        }
+        assertEquals(1, server.connections());
+    }
+
+    @Test
+    public void expiredAnswerDoesNotVerify() {
+        store.put("a", "abcd", 60);
+        store.put("b", "abcd", 120);
+        server.advance(90);
+        assertFalse(store.verifyAndRemove("a", "abcd"));
+        assertTrue(store.verifyAndRemove("b", "abcd"));
+    }
+
+    @Test
+    public void reconnectsAfterConnectionDrop() throws Exception {
+        store.put("a", "abcd", 60);
+        server.dropConnections();
+        try {
+            store.put("b", "abcd", 60);
+            fail("command on a dropped connection should fail");
+        } catch (UncheckedIOException expected) {
+            // 正在使用的连接已断开，本批命令失败
+        }
+        store.put("b", "abcd", 60);
+        assertTrue(store.verifyAndRemove("a", "abcd"));
+        assertTrue(store.verifyAndRemove("b", "abcd"));
+        assertEquals(2, server.connections());
+    }
+
+    @Test
+    public void closeFailsPendingCommands() throws Exception {
+        store.put("a", "abcd", 60);
+        server.pause();
+        CompletableFuture<Boolean> pending = CompletableFuture.supplyAsync(() -> store.verifyAndRemove("a", "abcd"));
+        Thread.sleep(100);
+        long start = System.nanoTime();
+        store.close();
+        try {
+            pending.get(2, TimeUnit.SECONDS);
+            fail("pending command should fail when the store is closed");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof UncheckedIOException);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        try {
+            store.put("b", "abcd", 60);
+            fail("closed store should reject commands");
+        } catch (IllegalStateException expected) {
+            // 已关闭
+        }
+    }
+
+    @Test
+    public void commandsRacingCloseNeverHang() throws Exception {
+        AtomicBoolean stop = new AtomicBoolean();
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; !stop.get(); i++) {
+                    try {
+                        store.put(thread + ":" + i, "abcd", 60);
+                    } catch (IllegalStateException | UncheckedIOException e) {
+                        return;
+                    }
+                }
+            }));
+        }
+        Thread.sleep(100);
+        store.close();
+        stop.set(true);
+        // 超时时间为5秒，未完成的命令会使写线程等待到超时
+        CompletableFuture.allOf(writers.toArray(new CompletableFuture[0])).get(2, TimeUnit.SECONDS);
+    }
+}
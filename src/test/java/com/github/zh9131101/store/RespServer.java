@@ -0,0 +1,275 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * 测试用的进程内RESP服务
+ * </p>
+ * 实现RedisCaptchaStore用到的SET [EX]、GETDEL、DEL、AUTH、SELECT。过期时间按{@link #advance}推进的虚拟时钟计算；
+ * 回复写入缓冲区，输入中没有更多已到达的命令时才刷新，刷新次数即服务端看到的流水线批数；{@link #commands}不计AUTH与SELECT。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-20 10:00
+ * @since 1.1
+ */
+
+final class RespServer implements Closeable {
+    private final ServerSocket server;
+
+    private final Map<String, Value> data = new ConcurrentHashMap<>();
+
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final AtomicInteger commands = new AtomicInteger();
+
+    private final AtomicInteger flushes = new AtomicInteger();
+
+    private final Object pauseLock = new Object();
+
+    private boolean paused;
+
+    RespServer() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "resp-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * 推进虚拟时钟
+     *
+     * @param seconds 秒
+     */
+    void advance(long seconds) {
+        clock.addAndGet(seconds * 1000);
+    }
+
+    String get(String key) {
+        Value value = data.get(key);
+        return value == null || value.expired(clock.get()) ? null : value.value;
+    }
+
+    int connections() {
+        return connections.get();
+    }
+
+    int commands() {
+        return commands.get();
+    }
+
+    int flushes() {
+        return flushes.get();
+    }
+
+    /**
+     * 暂停处理命令，已到达的命令留在输入中
+     */
+    void pause() {
+        synchronized (pauseLock) {
+            paused = true;
+        }
+    }
+
+    void resume() {
+        synchronized (pauseLock) {
+            paused = false;
+            pauseLock.notifyAll();
+        }
+    }
+
+    /**
+     * 关闭所有客户端连接，模拟连接断开
+     */
+    void dropConnections() throws IOException {
+        for (Socket client : clients) {
+            client.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        resume();
+        server.close();
+        dropConnections();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket client = server.accept();
+                connections.incrementAndGet();
+                clients.add(client);
+                Thread handler = new Thread(() -> serve(client), "resp-client");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        try (Socket s = client) {
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = new BufferedOutputStream(s.getOutputStream());
+            while (true) {
+                String[] args = readCommand(in);
+                awaitResume();
+                out.write(execute(args).getBytes(StandardCharsets.UTF_8));
+                if (in.available() == 0) {
+                    out.flush();
+                    flushes.incrementAndGet();
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // 连接关闭
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    private void awaitResume() throws InterruptedException {
+        synchronized (pauseLock) {
+            while (paused) {
+                pauseLock.wait();
+            }
+        }
+    }
+
+    private String execute(String[] args) {
+        long now = clock.get();
+        switch (args[0].toUpperCase()) {
+            case "AUTH":
+            case "SELECT":
+                return "+OK\r\n";
+            default:
+                break;
+        }
+        commands.incrementAndGet();
+        switch (args[0].toUpperCase()) {
+            case "SET": {
+                long expireAt = Long.MAX_VALUE;
+                if (args.length == 5 && "EX".equalsIgnoreCase(args[3])) {
+                    expireAt = now + Long.parseLong(args[4]) * 1000;
+                }
+                data.put(args[1], new Value(args[2], expireAt));
+                return "+OK\r\n";
+            }
+            case "GETDEL": {
+                Value value = data.remove(args[1]);
+                if (value == null || value.expired(now)) {
+                    return "$-1\r\n";
+                }
+                int length = value.value.getBytes(StandardCharsets.UTF_8).length;
+                return "$" + length + "\r\n" + value.value + "\r\n";
+            }
+            case "DEL": {
+                int removed = 0;
+                for (int i = 1; i < args.length; i++) {
+                    Value value = data.remove(args[i]);
+                    if (value != null && !value.expired(now)) {
+                        removed++;
+                    }
+                }
+                return ":" + removed + "\r\n";
+            }
+            default:
+                return "-ERR unknown command '" + args[0] + "'\r\n";
+        }
+    }
+
+    private static String[] readCommand(InputStream in) throws IOException {
+        expect(in, '*');
+        String[] args = new String[Integer.parseInt(readLine(in))];
+        for (int i = 0; i < args.length; i++) {
+            expect(in, '$');
+            byte[] arg = new byte[Integer.parseInt(readLine(in))];
+            int n = 0;
+            while (n < arg.length) {
+                int r = in.read(arg, n, arg.length - n);
+                if (r < 0) {
+                    throw new EOFException();
+                }
+                n += r;
+            }
+            readLine(in);
+            args[i] = new String(arg, StandardCharsets.UTF_8);
+        }
+        return args;
+    }
+
+    private static void expect(InputStream in, char type) throws IOException {
+        int c = in.read();
+        if (c != type) {
+            throw c < 0 ? new EOFException() : new IOException("unexpected " + (char) c);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c < 0) {
+                throw new EOFException();
+            }
+            sb.append((char) c);
+        }
+        in.read();
+        return sb.toString();
+    }
+
+    private static final class Value {
+        private final String value;
+
+        private final long expireAt;
+
+        private Value(String value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        private boolean expired(long now) {
+            return now >= expireAt;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.store;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * ShardingCaptchaStore故障转移测试，使用多个进程内存储模拟节点
+ * </p>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-20 16:20
+ * @since 1.1
+ */
+
+public class ShardingCaptchaStoreTest {
+    private static final int NODES = 4;
+
+    private final List<FlakyStore> nodes = new ArrayList<>();
+
+    private final List<FlakyStore> writes = new ArrayList<>();
+
+    private ShardingCaptchaStore store;
+
+    @Before
+    public void setUp() {
+        Map<String, ICaptchaStore> named = new LinkedHashMap<>();
+        for (int i = 0; i < NODES; i++) {
+            FlakyStore node = new FlakyStore();
+            nodes.add(node);
+            named.put("node-" + i, node);
+        }
+        store = new ShardingCaptchaStore(named, ShardingCaptchaStore.DEFAULT_VIRTUAL_NODES, 2);
+    }
+
+    @Test
+    public void replicaVerifiesWhilePrimaryIsDown() {
+        String id = store.nextId();
+        store.put(id, "abcd", 60);
+        assertEquals(2, writes.size());
+        FlakyStore primary = writes.get(0);
+        FlakyStore replica = writes.get(1);
+        primary.down = true;
+        assertTrue(store.verifyAndRemove(id, "abcd"));
+        assertFalse(store.verifyAndRemove(id, "abcd"));
+        assertFalse(replica.verifyAndRemove(id, "abcd"));
+    }
+
+    @Test
+    public void answerVerifiedDuringFailoverDoesNotVerifyAfterRecovery() {
+        String id = store.nextId();
+        store.put(id, "abcd", 60);
+        FlakyStore primary = writes.get(0);
+        primary.down = true;
+        assertTrue(store.verifyAndRemove(id, "abcd"));
+        primary.down = false;
+        assertFalse(store.verifyAndRemove(id, "abcd"));
+        assertFalse(primary.verifyAndRemove(id, "abcd"));
+    }
+
+    @Test
+    public void recoveredPrimaryRemovesTombstonesBeforeServing() {
+        List<String> ids = new ArrayList<>();
+        FlakyStore primary = null;
+        for (int i = 0; i < 100; i++) {
+            String id = store.nextId();
+            writes.clear();
+            store.put(id, "abcd", 60);
+            if (primary == null) {
+                primary = writes.get(0);
+            }
+            if (writes.get(0) == primary) {
+                ids.add(id);
+            }
+        }
+        primary.down = true;
+        for (String id : ids) {
+            assertTrue(store.verifyAndRemove(id, "abcd"));
+        }
+        primary.down = false;
+        // 恢复后第一次经过该节点的校验先补删墓碑
+        String fresh = ids.get(0);
+        assertFalse(store.verifyAndRemove(fresh, "abcd"));
+        for (String id : ids) {
+            assertFalse(primary.verifyAndRemove(id, "abcd"));
+        }
+    }
+
+    @Test
+    public void answerStoredOnlyOnReplicaVerifiesAfterPrimaryRecovers() {
+        String id = store.nextId();
+        FlakyStore primary = primaryOf(id);
+        primary.down = true;
+        store.put(id, "abcd", 60);
+        primary.down = false;
+        assertTrue(store.verifyAndRemove(id, "abcd"));
+        assertFalse(store.verifyAndRemove(id, "abcd"));
+    }
+
+    @Test
+    public void batchPutToleratesFailedPrimary() {
+        String id = store.nextId();
+        FlakyStore primary = primaryOf(id);
+        primary.down = true;
+        Map<String, String> answers = new LinkedHashMap<>();
+        answers.put(id, "abcd");
+        store.putAll(answers, 60);
+        primary.down = false;
+        assertTrue(store.verifyAndRemove(id, "abcd"));
+    }
+
+    @Test
+    public void replicasFollowPrimaryOnRing() {
+        // 每个节点一个虚拟节点：副本必然是主节点在环上的下一个节点
+        Map<String, ICaptchaStore> named = new LinkedHashMap<>();
+        for (int i = 0; i < NODES; i++) {
+            named.put("node-" + i, nodes.get(i));
+        }
+        ShardingCaptchaStore single = new ShardingCaptchaStore(named, 1, 2);
+        Map<FlakyStore, FlakyStore> successors = new LinkedHashMap<>();
+        for (int i = 0; i < 200; i++) {
+            writes.clear();
+            single.put(single.nextId(), "abcd", 60);
+            FlakyStore previous = successors.putIfAbsent(writes.get(0), writes.get(1));
+            if (previous != null) {
+                assertTrue(previous == writes.get(1));
+            }
+        }
+        assertEquals(NODES, successors.size());
+    }
+
+    @Test
+    public void failedReadRepairIsRetried() {
+        String id = store.nextId();
+        store.put(id, "abcd", 60);
+        FlakyStore primary = writes.get(0);
+        FlakyStore replica = writes.get(1);
+        replica.down = true;
+        assertTrue(store.verifyAndRemove(id, "abcd"));
+        replica.down = false;
+        primary.down = true;
+        assertFalse(store.verifyAndRemove(id, "abcd"));
+        assertFalse(replica.verifyAndRemove(id, "abcd"));
+    }
+
+    /**
+     * 写入一次探测主节点，写入的验证码随即删除
+     */
+    private FlakyStore primaryOf(String id) {
+        writes.clear();
+        store.put(id, "probe", 60);
+        store.remove(id);
+        return writes.get(0);
+    }
+
+    /**
+     * 可模拟不可用的节点，记录写入顺序（主节点在前）
+     */
+    private final class FlakyStore implements ICaptchaStore {
+        private final MemoryCaptchaStore delegate = new MemoryCaptchaStore(1, 16, MemoryCaptchaStore.DEFAULT_TICK_MILLIS);
+
+        private volatile boolean down;
+
+        @Override
+        public void put(String id, String answer, long ttl) {
+            check();
+            writes.add(this);
+            delegate.put(id, answer, ttl);
+        }
+
+        @Override
+        public boolean verifyAndRemove(String id, String captcha) {
+            check();
+            return delegate.verifyAndRemove(id, captcha);
+        }
+
+        @Override
+        public void remove(String id) {
+            check();
+            delegate.remove(id);
+        }
+
+        private void check() {
+            if (down) {
+                throw new IllegalStateException("node is down");
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.token;
+
+import org.junit.Test;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * CaptchaTokenSigner与BloomReplayGuard测试
+ * </p>
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-20 10:30
+ * @since 1.1
+ */
+
+public class CaptchaTokenSignerTest {
+    private static final long TTL = 180;
+
+    private final CaptchaTokenSigner signer = new CaptchaTokenSigner();
+
+    @Test
+    public void tokenVerifiesOnceWithGuard() {
+        BloomReplayGuard guard = new BloomReplayGuard(TTL, 100, 0.000001);
+        String token = signer.issue("Ab3d", TTL);
+        assertEquals(CaptchaTokenSigner.TOKEN_LENGTH, token.length());
+        assertTrue(signer.verify(token, " aB3D ", guard));
+        assertFalse(signer.verify(token, "ab3d", guard));
+        // 不使用防重放校验时令牌可重复校验
+        assertTrue(signer.verify(token, "ab3d"));
+        assertFalse(signer.verify(signer.issue("Ab3d", TTL), "wrong"));
+    }
+
+    @Test
+    public void forgedFarFutureTokenDoesNotDisableGuard() {
+        BloomReplayGuard guard = new BloomReplayGuard(TTL, 100, 0.000001);
+        String existing = signer.issue("abcd", TTL);
+        long now = System.currentTimeMillis() / 1000;
+        for (long ahead : new long[]{TTL + 3600, 86400L * 365 * 10, Long.MAX_VALUE / 2 - now}) {
+            assertFalse(signer.verify(forge(now + ahead), "abcd", guard));
+        }
+        assertTrue(signer.verify(existing, "abcd", guard));
+        String fresh = signer.issue("efgh", TTL);
+        assertTrue(signer.verify(fresh, "efgh", guard));
+        assertFalse(signer.verify(fresh, "efgh", guard));
+    }
+
+    @Test
+    public void guardRejectsIdsOutsideLiveWindows() {
+        BloomReplayGuard guard = new BloomReplayGuard(TTL, 100, 0.000001);
+        long now = System.currentTimeMillis() / 1000;
+        assertFalse(guard.markIfAbsent(1, 1, now + 86400L * 365));
+        assertFalse(guard.markIfAbsent(2, 2, now - 1));
+        assertFalse(guard.markIfAbsent(3, 3, -TTL));
+        assertTrue(guard.markIfAbsent(4, 4, now + TTL));
+        assertTrue(guard.markIfAbsent(5, 5, now + TTL + guard.getClockSkewSeconds() - 1));
+        assertFalse(guard.markIfAbsent(4, 4, now + TTL));
+    }
+
+    @Test
+    public void forgedTokensDoNotFillGuard() {
+        // 很小的过滤器：伪造的令牌如果置位，很快就会把所有位占满
+        BloomReplayGuard guard = new BloomReplayGuard(TTL, 1, 0.01);
+        long now = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < 20000; i++) {
+            assertFalse(signer.verify(forge(now + TTL), "abcd", guard));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertTrue(signer.verify(signer.issue("abcd", TTL), "abcd", guard));
+        }
+    }
+
+    @Test
+    public void wrongAnswerDoesNotConsumeToken() {
+        BloomReplayGuard guard = new BloomReplayGuard(TTL, 100, 0.000001);
+        String token = signer.issue("abcd", TTL);
+        assertFalse(signer.verify(token, "abce", guard));
+        assertTrue(signer.verify(token, "abcd", guard));
+        assertFalse(signer.verify(token, "abcd", guard));
+    }
+
+    @Test
+    public void concurrentVerifyAcceptsExactlyOnce() throws Exception {
+        int threads = 8;
+        BloomReplayGuard guard = new BloomReplayGuard(TTL, 10000, 0.000001);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int trial = 0; trial < 2000; trial++) {
+                String token = signer.issue("abcd", TTL);
+                CyclicBarrier barrier = new CyclicBarrier(threads);
+                AtomicInteger accepted = new AtomicInteger();
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(pool.submit(() -> {
+                        barrier.await();
+                        if (signer.verify(token, "abcd", guard)) {
+                            accepted.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                assertEquals(1, accepted.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 格式正确但签名随机的令牌
+     */
+    private static String forge(long expireAt) {
+        byte[] token = new byte[CaptchaTokenSigner.TOKEN_BYTES];
+        new SecureRandom().nextBytes(token);
+        token[0] = 1;
+        for (int i = 7; i >= 0; i--) {
+            token[18 + i] = (byte) expireAt;
+            expireAt >>>= 8;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2021-2039 ZH9131101.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.zh9131101.utils;
+
+import com.github.zh9131101.quantize.PopularityQuantizer;
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * AnimatedGifEncoder差分帧测试
+ * </p>
+ * 用ImageIO解码输出，按各帧偏移叠加（透明像素保留上一帧），与原始帧逐像素比较。
+ * 帧内颜色不超过256种并使用PopularityQuantizer，量化无损，叠加结果应与原始帧完全相同。
+ *
+ * @author zh9131101
+ * @version V1.1.0
+ * @date 2026-10-21 16:40
+ * @since 1.1
+ */
+
+public class AnimatedGifEncoderTest {
+    private static final int WHITE = 0xFFFFFF;
+
+    private static final int RED = 0xFF0000;
+
+    private static final int BLUE = 0x0000FF;
+
+    @Test
+    public void deltaFramesCompositeToSourceFrames() throws IOException {
+        List<BufferedImage> frames = new ArrayList<>();
+        BufferedImage first = image(40, 30, WHITE);
+        fill(first, 2, 2, 6, 6, RED);
+        frames.add(first);
+        // 方块右移：变化区域为两个方块的外接矩形
+        BufferedImage moved = image(40, 30, WHITE);
+        fill(moved, 10, 5, 6, 6, RED);
+        frames.add(moved);
+        // 与上一帧相同
+        frames.add(copy(moved));
+        // 两个对角像素变化，外接矩形内其余像素未变化
+        BufferedImage corners = copy(moved);
+        corners.setRGB(20, 8, BLUE);
+        corners.setRGB(33, 25, BLUE);
+        frames.add(corners);
+
+        List<Frame> decoded = decode(encode(frames));
+        assertEquals(4, decoded.size());
+        assertBounds(decoded.get(0), 0, 0, 40, 30);
+        assertFalse(decoded.get(0).transparent);
+        assertBounds(decoded.get(1), 2, 2, 14, 9);
+        assertBounds(decoded.get(2), 0, 0, 1, 1);
+        assertTrue(decoded.get(2).transparent);
+        assertBounds(decoded.get(3), 20, 8, 14, 18);
+        assertTrue(decoded.get(3).transparent);
+        assertComposite(frames, decoded);
+    }
+
+    @Test
+    public void fullPaletteDeltaFrameIsOpaque() throws IOException {
+        // 第二帧变化像素用满256色，没有空闲调色板项作透明色，未变化像素按颜色映射
+        BufferedImage first = image(16, 17, 0x000000);
+        first.setRGB(0, 16, color(0));
+        BufferedImage second = image(16, 17, color(1));
+        for (int i = 0; i < 256; i++) {
+            second.setRGB(i % 16, i / 16, color(i));
+        }
+        second.setRGB(0, 16, color(0));
+        List<BufferedImage> frames = new ArrayList<>();
+        frames.add(first);
+        frames.add(second);
+
+        List<Frame> decoded = decode(encode(frames));
+        assertEquals(2, decoded.size());
+        assertBounds(decoded.get(1), 0, 0, 16, 17);
+        assertFalse(decoded.get(1).transparent);
+        assertComposite(frames, decoded);
+    }
+
+    private static int color(int i) {
+        return i << 16 | (255 - i) << 8 | 77;
+    }
+
+    private static byte[] encode(List<BufferedImage> frames) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnimatedGifEncoder encoder = new AnimatedGifEncoder();
+        encoder.setQuantizer(new PopularityQuantizer());
+        encoder.setDeltaFrames(true);
+        encoder.setRepeat(0);
+        encoder.setDelay(100);
+        assertTrue(encoder.start(out));
+        for (BufferedImage frame : frames) {
+            assertTrue(encoder.addFrame(frame));
+        }
+        assertTrue(encoder.finish());
+        return out.toByteArray();
+    }
+
+    private static List<Frame> decode(byte[] gif) throws IOException {
+        ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+        List<Frame> frames = new ArrayList<>();
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(gif))) {
+            reader.setInput(in);
+            int count = reader.getNumImages(true);
+            for (int i = 0; i < count; i++) {
+                IIOMetadata metadata = reader.getImageMetadata(i);
+                Node root = metadata.getAsTree("javax_imageio_gif_image_1.0");
+                Frame frame = new Frame();
+                frame.image = reader.read(i);
+                for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+                    if ("ImageDescriptor".equals(node.getNodeName())) {
+                        frame.x = attribute(node, "imageLeftPosition");
+                        frame.y = attribute(node, "imageTopPosition");
+                        frame.width = attribute(node, "imageWidth");
+                        frame.height = attribute(node, "imageHeight");
+                    } else if ("GraphicControlExtension".equals(node.getNodeName())) {
+                        frame.transparent = Boolean.parseBoolean(node.getAttributes()
+                                .getNamedItem("transparentColorFlag").getNodeValue());
+                    }
+                }
+                frames.add(frame);
+            }
+        } finally {
+            reader.dispose();
+        }
+        return frames;
+    }
+
+    private static void assertComposite(List<BufferedImage> frames, List<Frame> decoded) {
+        int width = frames.get(0).getWidth();
+        int height = frames.get(0).getHeight();
+        int[] canvas = new int[width * height];
+        for (int f = 0; f < decoded.size(); f++) {
+            Frame frame = decoded.get(f);
+            for (int y = 0; y < frame.height; y++) {
+                for (int x = 0; x < frame.width; x++) {
+                    int argb = frame.image.getRGB(x, y);
+                    if ((argb >>> 24) != 0) {
+                        canvas[(frame.y + y) * width + frame.x + x] = argb & 0xFFFFFF;
+                    }
+                }
+            }
+            BufferedImage source = frames.get(f);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    assertEquals("frame " + f + " at (" + x + ", " + y + ")",
+                            source.getRGB(x, y) & 0xFFFFFF, canvas[y * width + x]);
+                }
+            }
+        }
+    }
+
+    private static void assertBounds(Frame frame, int x, int y, int width, int height) {
+        assertEquals(x, frame.x);
+        assertEquals(y, frame.y);
+        assertEquals(width, frame.width);
+        assertEquals(height, frame.height);
+    }
+
+    private static int attribute(Node node, String name) {
+        return Integer.parseInt(node.getAttributes().getNamedItem(name).getNodeValue());
+    }
+
+    private static BufferedImage image(int width, int height, int rgb) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        fill(image, 0, 0, width, height, rgb);
+        return image;
+    }
+
+    private static BufferedImage copy(BufferedImage source) {
+        BufferedImage image = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        image.setData(source.getData());
+        return image;
+    }
+
+    private static void fill(BufferedImage image, int x, int y, int width, int height, int rgb) {
+        for (int j = y; j < y + height; j++) {
+            for (int i = x; i < x + width; i++) {
+                image.setRGB(i, j, rgb);
+            }
+        }
+    }
+
+    private static final class Frame {
+        private BufferedImage image;
+
+        private int x;
+
+        private int y;
+
+        private int width;
+
+        private int height;
+
+        private boolean transparent;
+    }
+}